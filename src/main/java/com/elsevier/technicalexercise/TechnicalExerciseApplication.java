@@ -1,6 +1,9 @@
 package com.elsevier.technicalexercise;
 
+import java.util.Arrays;
+import java.util.stream.Stream;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 /**
@@ -8,14 +11,29 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  */
 @SpringBootApplication
 public class TechnicalExerciseApplication {
+  private static final String MIGRATE_TO_SHARDS_ARGUMENT = "--migrate-to-shards";
 
   /**
    * Main method that starts the application.
+   * With {@code --migrate-to-shards}, the application only runs the migration of the periodic
+   * table to the sharded layout: it starts without the web server, and without the background
+   * jobs that read or write the periodic table.
    *
    * @param args command line arguments
    */
   public static void main(String[] args) {
-    SpringApplication.run(TechnicalExerciseApplication.class, args);
+    SpringApplication application = new SpringApplication(TechnicalExerciseApplication.class);
+    if (Arrays.asList(args).contains(MIGRATE_TO_SHARDS_ARGUMENT)) {
+      application.setWebApplicationType(WebApplicationType.NONE);
+      // Command line arguments, so that they take precedence over application.properties.
+      args = Stream.concat(Arrays.stream(args), Stream.of(
+              "--periodic-table.warmup.enabled=false",
+              "--periodic-table.refresh.enabled=false",
+              "--periodic-table.storage.delta-log.compaction.enabled=false",
+              "--periodic-table.write.mode=synchronous"))
+          .toArray(String[]::new);
+    }
+    application.run(args);
   }
 
 }
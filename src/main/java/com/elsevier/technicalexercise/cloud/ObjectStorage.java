@@ -1,14 +1,26 @@
 package com.elsevier.technicalexercise.cloud;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
 import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.core.async.AsyncRequestBody;
 import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
@@ -16,14 +28,60 @@ import software.amazon.awssdk.services.s3.S3Configuration;
 import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 
 /**
  * Service for interacting with object storage (S3).
+ * Concurrent reads of the same object version share a single in-flight request.
  */
 @Component
 public class ObjectStorage {
   private S3AsyncClient s3Client;
+  private final ConcurrentMap<InFlightGetKey, CompletableFuture<GetObjectResponse>>
+      inFlightGets = new ConcurrentHashMap<>();
+  private final ConcurrentMap<InFlightGetKey, CompletableFuture<Optional<GetObjectResponse>>>
+      inFlightConditionalGets = new ConcurrentHashMap<>();
+  private final Counter getRequests;
+  private final Counter coalescedGets;
+
+  /**
+   * Exception thrown when a conditional write loses to a concurrent writer,
+   * i.e. the object no longer matches the ETag the write was conditional on.
+   */
+  public static class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message, Throwable cause) {
+      super(message, cause);
+    }
+  }
+
+  /**
+   * Checks whether a failure comes from object storage itself, such as an unreachable endpoint
+   * or a service error, rather than from what was sent to it, so that retrying may succeed.
+   *
+   * @param ex the failure
+   * @return true when the failure or one of its causes is an object storage error
+   */
+  public static boolean isStorageFailure(Throwable ex) {
+    for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+      if (cause instanceof SdkException || cause instanceof IOException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Identifies a read that concurrent callers can share.
+   *
+   * @param bucketName the name of the bucket
+   * @param keyName    the key of the object
+   * @param version    the ETag the read is conditional on, or null for an unconditional read
+   */
+  private record InFlightGetKey(String bucketName, String keyName, String version) {
+  }
 
   /**
    * Initializes the object storage client.
@@ -31,8 +89,15 @@ public class ObjectStorage {
   public ObjectStorage(
       @Value("${application.environment}") String appEnvironment,
       @Value("${aws.region}") String awsRegion,
-      @Value("${aws.s3.endpoint-override:#{null}}") String endpointOverride
+      @Value("${aws.s3.endpoint-override:#{null}}") String endpointOverride,
+      MeterRegistry meterRegistry
   ) {
+    this.getRequests = Counter.builder("object.storage.get.requests")
+        .description("GetObject requests issued to object storage")
+        .register(meterRegistry);
+    this.coalescedGets = Counter.builder("object.storage.get.coalesced")
+        .description("GetObject calls served by an identical request already in flight")
+        .register(meterRegistry);
     S3AsyncClientBuilder s3ClientBuilder = S3AsyncClient.builder().region(Region.of(awsRegion));
     if (List.of("test", "development").contains(appEnvironment)) {
       s3ClientBuilder = s3ClientBuilder
@@ -47,21 +112,105 @@ public class ObjectStorage {
 
   /**
    * Response object for get object operations.
+   * The content is returned as stored, so it is still compressed when the object has a
+   * content encoding.
+   *
+   * @param content         the content of the object
+   * @param etag            the ETag of the object
+   * @param metadata        the user metadata of the object
+   * @param contentEncoding the content encoding of the object, or null when it has none
+   */
+  public static record GetObjectResponse(byte[] content, String etag,
+                                         Map<String, String> metadata,
+                                         String contentEncoding) {
+    /**
+     * Creates a response for an object without user metadata or content encoding.
+     *
+     * @param content the content of the object
+     * @param etag    the ETag of the object
+     */
+    public GetObjectResponse(byte[] content, String etag) {
+      this(content, etag, Map.of());
+    }
+
+    /**
+     * Creates a response for an object without content encoding.
+     *
+     * @param content  the content of the object
+     * @param etag     the ETag of the object
+     * @param metadata the user metadata of the object
+     */
+    public GetObjectResponse(byte[] content, String etag, Map<String, String> metadata) {
+      this(content, etag, metadata, null);
+    }
+  }
+
+  /**
+   * Response object for head object operations.
    *
-   * @param content the content of the object
-   * @param etag    the ETag of the object
+   * @param etag          the ETag of the object
+   * @param lastModified  when the object was last modified
+   * @param contentLength the size of the object in bytes
+   * @param metadata      the user metadata of the object
    */
-  public static record GetObjectResponse(byte[] content, String etag) {
+  public static record HeadObjectResponse(String etag, Instant lastModified, long contentLength,
+                                          Map<String, String> metadata) {
+    /**
+     * Creates a response for an object without user metadata.
+     *
+     * @param etag          the ETag of the object
+     * @param lastModified  when the object was last modified
+     * @param contentLength the size of the object in bytes
+     */
+    public HeadObjectResponse(String etag, Instant lastModified, long contentLength) {
+      this(etag, lastModified, contentLength, Map.of());
+    }
+  }
+
+  /**
+   * Response object for put object operations.
+   *
+   * @param etag      the ETag of the written object
+   * @param versionId the version id of the written object, or null when the bucket is not
+   *                  versioned
+   */
+  public static record PutObjectResponse(String etag, String versionId) {
+  }
+
+  /**
+   * Retrieves the metadata of an object without downloading its content.
+   *
+   * @param bucketName the name of the bucket
+   * @param keyName    the key of the object
+   * @return a future that will complete with the object metadata
+   */
+  public CompletableFuture<HeadObjectResponse> headObject(String bucketName, String keyName) {
+    HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
+        .bucket(bucketName)
+        .key(keyName)
+        .build();
+
+    return s3Client.headObject(headObjectRequest)
+        .thenApply(headResponse -> new HeadObjectResponse(headResponse.eTag(),
+            headResponse.lastModified(), headResponse.contentLength(),
+            headResponse.metadata()));
   }
 
   /**
    * Retrieves an object from the storage.
+   * Callers asking for the same object while a request is in flight share its response,
+   * so the returned content must not be modified.
    *
    * @param bucketName the name of the bucket
    * @param keyName    the key of the object
    * @return a future that will complete with the object response
    */
   public CompletableFuture<GetObjectResponse> getObject(String bucketName, String keyName) {
+    return coalesce(this.inFlightGets, new InFlightGetKey(bucketName, keyName, null),
+        () -> fetchObject(bucketName, keyName));
+  }
+
+  private CompletableFuture<GetObjectResponse> fetchObject(String bucketName, String keyName) {
     GetObjectRequest objectRequest = GetObjectRequest.builder()
         .bucket(bucketName)
         .key(keyName)
@@ -71,10 +220,80 @@ public class ObjectStorage {
         .thenApply(objectResponse -> {
           byte[] content = objectResponse.asByteArray();
           String etag = objectResponse.response().eTag();
-          return new GetObjectResponse(content, etag);
+          return new GetObjectResponse(content, etag, objectResponse.response().metadata(),
+              objectResponse.response().contentEncoding());
         });
   }
 
+  /**
+   * Retrieves an object from the storage only when it no longer matches the given ETag.
+   * Callers revalidating the same version while a request is in flight share its response,
+   * so the returned content must not be modified.
+   *
+   * @param bucketName the name of the bucket
+   * @param keyName    the key of the object
+   * @param etag       the ETag of the copy the caller already holds
+   * @return a future that will complete with the object response, or empty when not modified
+   */
+  public CompletableFuture<Optional<GetObjectResponse>> getObjectIfNoneMatch(String bucketName,
+                                                                             String keyName,
+                                                                             String etag) {
+    return coalesce(this.inFlightConditionalGets, new InFlightGetKey(bucketName, keyName, etag),
+        () -> fetchObjectIfNoneMatch(bucketName, keyName, etag));
+  }
+
+  private CompletableFuture<Optional<GetObjectResponse>> fetchObjectIfNoneMatch(
+      String bucketName, String keyName, String etag) {
+    GetObjectRequest objectRequest = GetObjectRequest.builder()
+        .bucket(bucketName)
+        .key(keyName)
+        .ifNoneMatch(etag)
+        .build();
+
+    return s3Client.getObject(objectRequest, AsyncResponseTransformer.toBytes())
+        .thenApply(objectResponse -> Optional.of(new GetObjectResponse(
+            objectResponse.asByteArray(), objectResponse.response().eTag(),
+            objectResponse.response().metadata(),
+            objectResponse.response().contentEncoding())))
+        .exceptionally(ex -> {
+          Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+          if (cause instanceof S3Exception s3Exception && s3Exception.statusCode() == 304) {
+            return Optional.empty();
+          }
+          throw new CompletionException(cause);
+        });
+  }
+
+  /**
+   * Shares one in-flight request between all callers asking for the same key.
+   * The entry is removed once the request completes, so later callers issue a new request.
+   */
+  private <T> CompletableFuture<T> coalesce(
+      ConcurrentMap<InFlightGetKey, CompletableFuture<T>> inFlight, InFlightGetKey key,
+      Supplier<CompletableFuture<T>> request) {
+    CompletableFuture<T> shared = new CompletableFuture<>();
+    CompletableFuture<T> existing = inFlight.putIfAbsent(key, shared);
+    if (existing != null) {
+      this.coalescedGets.increment();
+      return existing.copy();
+    }
+    this.getRequests.increment();
+    try {
+      request.get().whenComplete((result, ex) -> {
+        inFlight.remove(key, shared);
+        if (ex != null) {
+          shared.completeExceptionally(ex);
+        } else {
+          shared.complete(result);
+        }
+      });
+    } catch (RuntimeException ex) {
+      inFlight.remove(key, shared);
+      shared.completeExceptionally(ex);
+    }
+    return shared.copy();
+  }
+
   /**
    * Copies an object within a bucket.
    *
@@ -99,16 +318,112 @@ public class ObjectStorage {
    * @param keyName    the key of the object to replace
    * @param content    the new content for the object
    * @param etag       the ETag of the object to ensure consistency
-   * @return a future that will complete when the replace operation is done
+   * @return a future that will complete with the ETag and version of the written object, or
+   *     fail with {@link PreconditionFailedException} when the object no longer matches the ETag
    */
-  public CompletableFuture<?> replaceObject(String bucketName, String keyName, byte[] content,
-                                            String etag) {
+  public CompletableFuture<PutObjectResponse> replaceObject(String bucketName, String keyName,
+                                                            byte[] content, String etag) {
+    return replaceObject(bucketName, keyName, content, etag, Map.of());
+  }
+
+  /**
+   * Replaces an object in the storage with new content and user metadata.
+   *
+   * @param bucketName the name of the bucket
+   * @param keyName    the key of the object to replace
+   * @param content    the new content for the object
+   * @param etag       the ETag of the object to ensure consistency
+   * @param metadata   the user metadata of the new object
+   * @return a future that will complete with the ETag and version of the written object, or
+   *     fail with {@link PreconditionFailedException} when the object no longer matches the ETag
+   */
+  public CompletableFuture<PutObjectResponse> replaceObject(String bucketName, String keyName,
+                                                            byte[] content, String etag,
+                                                            Map<String, String> metadata) {
+    return replaceObject(bucketName, keyName, content, etag, metadata, null);
+  }
+
+  /**
+   * Replaces an object in the storage with new content, user metadata and content encoding.
+   *
+   * @param bucketName      the name of the bucket
+   * @param keyName         the key of the object to replace
+   * @param content         the new content for the object, already encoded
+   * @param etag            the ETag of the object to ensure consistency
+   * @param metadata        the user metadata of the new object
+   * @param contentEncoding the content encoding of the new content, or null when it has none
+   * @return a future that will complete with the ETag and version of the written object, or
+   *     fail with {@link PreconditionFailedException} when the object no longer matches the ETag
+   */
+  public CompletableFuture<PutObjectResponse> replaceObject(String bucketName, String keyName,
+                                                            byte[] content, String etag,
+                                                            Map<String, String> metadata,
+                                                            String contentEncoding) {
     PutObjectRequest putObjectRequest = PutObjectRequest.builder()
         .bucket(bucketName).ifMatch(etag)
         .key(keyName)
+        .metadata(metadata)
+        .contentEncoding(contentEncoding)
+        .build();
+
+    return putObject(putObjectRequest, content);
+  }
+
+  /**
+   * Creates an object in the storage, unless an object already exists under its key.
+   *
+   * @param bucketName the name of the bucket
+   * @param keyName    the key of the object to create
+   * @param content    the content of the object
+   * @return a future that will complete with the ETag and version of the created object, or
+   *     fail with {@link PreconditionFailedException} when the key is already taken
+   */
+  public CompletableFuture<PutObjectResponse> createObject(String bucketName, String keyName,
+                                                           byte[] content) {
+    PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+        .bucket(bucketName).ifNoneMatch("*")
+        .key(keyName)
+        .build();
+
+    return putObject(putObjectRequest, content);
+  }
+
+  private CompletableFuture<PutObjectResponse> putObject(PutObjectRequest putObjectRequest,
+                                                         byte[] content) {
+    return s3Client.putObject(putObjectRequest, AsyncRequestBody.fromBytes(content))
+        .thenApply(putResponse -> new PutObjectResponse(putResponse.eTag(),
+            putResponse.versionId()))
+        .exceptionally(ex -> {
+          Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+          // 412 when another write already landed, 409 when one is landing concurrently.
+          if (cause instanceof S3Exception s3Exception
+              && (s3Exception.statusCode() == 412 || s3Exception.statusCode() == 409)) {
+            throw new PreconditionFailedException(s3Exception.getMessage(), s3Exception);
+          }
+          throw new CompletionException(cause);
+        });
+  }
+
+  /**
+   * Lists the keys of the objects under a prefix, in ascending key order.
+   *
+   * @param bucketName the name of the bucket
+   * @param prefix     the prefix of the keys to list
+   * @param startAfter the key to list after, or null to list from the start of the prefix
+   * @return a future that will complete with the keys
+   */
+  public CompletableFuture<List<String>> listObjects(String bucketName, String prefix,
+                                                     String startAfter) {
+    ListObjectsV2Request listObjectsRequest = ListObjectsV2Request.builder()
+        .bucket(bucketName)
+        .prefix(prefix)
+        .startAfter(startAfter)
         .build();
 
-    return s3Client.putObject(putObjectRequest, AsyncRequestBody.fromBytes(content));
+    List<String> keys = new ArrayList<>();
+    return s3Client.listObjectsV2Paginator(listObjectsRequest).contents()
+        .subscribe(object -> keys.add(object.key()))
+        .thenApply(ignored -> keys);
   }
 
   /**
@@ -0,0 +1,345 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import com.elsevier.technicalexercise.cloud.ObjectStorage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores the periodic table as a base document followed by a log of sequenced deltas.
+ * The base lives under {@code periodic-table.key} and records in its metadata the sequence of
+ * the last delta folded into it. Each write creates the next delta object under the delta
+ * prefix, holding only the rows it changed, with a create-if-absent put, so two writers can
+ * never both append the same sequence. The version token is the sequence of the last delta.
+ * Readers keep the folded table and only download the deltas appended since their last read.
+ * {@link PeriodicTableCompactor} periodically folds the log into a new base, which can be
+ * stored gzip-compressed like the whole document of {@link WholeObjectPeriodicTableStore}.
+ */
+@Component
+@ConditionalOnProperty(name = "periodic-table.storage.mode", havingValue = "delta-log")
+class DeltaLogPeriodicTableStore implements PeriodicTableStore {
+  /**
+   * User metadata of the base holding the sequence of the last delta folded into it.
+   */
+  static final String DELTA_SEQUENCE_METADATA = "delta-sequence";
+
+  private static final String DELTA_SUFFIX = ".json";
+
+  private final ObjectStorage objectStorage;
+  private final PeriodicTableJsonCodec jsonCodec;
+  private final String periodicTableBucket;
+  private final String periodicTableKeyPath;
+  private final String deltaPrefix;
+  private final String baseContentEncoding;
+  private final AtomicReference<FoldedTable> foldedTable = new AtomicReference<>();
+
+  /**
+   * The table as of a delta sequence.
+   */
+  private record FoldedTable(long sequence, List<Map<String, Object>> data) {
+    String etag() {
+      return versionToken(sequence);
+    }
+  }
+
+  /**
+   * Constructs a new DeltaLogPeriodicTableStore.
+   *
+   * @param objectStorage the object storage service
+   * @param jsonCodec     the readers and writers for the stored documents
+   * @param bucketName    the bucket of the base and the deltas
+   * @param objectKeyPath the key of the base
+   * @param deltaPrefix   the key prefix of the deltas
+   * @param gzipEnabled   whether compaction writes the base gzip-compressed
+   */
+  DeltaLogPeriodicTableStore(ObjectStorage objectStorage,
+                             PeriodicTableJsonCodec jsonCodec,
+                             @Value("${periodic-table.bucket}") String bucketName,
+                             @Value("${periodic-table.key}") String objectKeyPath,
+                             @Value("${periodic-table.storage.delta-log.prefix:"
+                                 + "${periodic-table.key}.deltas/}") String deltaPrefix,
+                             @Value("${periodic-table.storage.gzip.enabled:false}")
+                             boolean gzipEnabled) {
+    this.objectStorage = objectStorage;
+    this.jsonCodec = jsonCodec;
+    this.periodicTableBucket = bucketName;
+    this.periodicTableKeyPath = objectKeyPath;
+    this.deltaPrefix = deltaPrefix;
+    this.baseContentEncoding = gzipEnabled ? PeriodicTableJsonCodec.GZIP_ENCODING : null;
+  }
+
+  @Override
+  public CompletableFuture<PeriodicTableEntity> readDocument() {
+    return this.fold().thenApply(table -> new PeriodicTableEntity(table.data(), table.etag()));
+  }
+
+  @Override
+  public CompletableFuture<Optional<PeriodicTableSnapshot>> readSnapshotIfModified(
+      PeriodicTableSnapshot current) {
+    return this.fold().thenApply(table -> {
+      if (current != null && current.etag().equals(table.etag())) {
+        return Optional.empty();
+      }
+      return Optional.of(this.toSnapshot(table));
+    });
+  }
+
+  /**
+   * Reads the sequence of the last delta by listing the deltas after the folded table,
+   * without downloading them.
+   */
+  @Override
+  public CompletableFuture<String> readVersion() {
+    return this.objectStorage.headObject(this.periodicTableBucket, this.periodicTableKeyPath)
+        .thenCompose(head -> {
+          FoldedTable current = this.foldedTable.get();
+          long sequence = Math.max(baseSequence(head.metadata()),
+              current == null ? 0 : current.sequence());
+          return this.listDeltas(sequence)
+              .thenApply(keys -> versionToken(sequence + keys.size()));
+        });
+  }
+
+  /**
+   * Appends the rows that differ from the folded table as the next delta.
+   * The entity must be at the version of the folded table, which {@link #readDocument()}
+   * brings up to date right before a write. The written table is indexed before the delta is
+   * appended, so a table that cannot be indexed is not written.
+   */
+  @Override
+  public CompletableFuture<StoredWrite> writeDocument(PeriodicTableEntity periodicTableEntity) {
+    FoldedTable current = this.foldedTable.get();
+    if (current == null || !current.etag().equals(periodicTableEntity.etag())) {
+      return CompletableFuture.failedFuture(new ObjectStorage.PreconditionFailedException(
+          "Periodic table is no longer at version " + periodicTableEntity.etag(), null));
+    }
+    List<Map<String, Object>> changedRows =
+        changedRows(current.data(), periodicTableEntity.data());
+    if (changedRows.isEmpty()) {
+      return CompletableFuture.completedFuture(new StoredWrite(
+          new ObjectStorage.PutObjectResponse(current.etag(), null), this.toSnapshot(current)));
+    }
+    FoldedTable written = new FoldedTable(current.sequence() + 1, periodicTableEntity.data());
+    PeriodicTableSnapshot snapshot = new PeriodicTableSnapshot(written.etag(),
+        PeriodicTableStore.toWrittenElements(this.jsonCodec, written.data()));
+    byte[] content;
+    try {
+      content = this.jsonCodec.writeDocument(changedRows);
+    } catch (Exception e) {
+      throw new JsonMappingException(
+          "Error on mapping the object to JSON : " + e.getMessage(), e);
+    }
+    return this.objectStorage.createObject(this.periodicTableBucket,
+            this.deltaKey(written.sequence()), content)
+        .thenApply(resp -> {
+          this.install(written);
+          return new StoredWrite(
+              new ObjectStorage.PutObjectResponse(written.etag(), resp.versionId()), snapshot);
+        });
+  }
+
+  /**
+   * Folds the deltas into a new base when at least the given number were appended since the
+   * current base, then deletes the deltas already folded into the previous base.
+   * The base is replaced with a conditional put, so only one of several compacting
+   * instances wins. Deltas folded into the replaced base are kept until the next compaction,
+   * so a reader still folding from the replaced base finds every delta it needs.
+   *
+   * @param minDeltas the number of deltas since the base below which nothing is done
+   * @return a future that will complete with whether a new base was written
+   */
+  CompletableFuture<Boolean> compact(long minDeltas) {
+    return this.objectStorage.headObject(this.periodicTableBucket, this.periodicTableKeyPath)
+        .thenCompose(head -> this.fold().thenCompose(table -> {
+          long baseSequence = baseSequence(head.metadata());
+          long deltas = table.sequence() - baseSequence;
+          if (deltas == 0 || deltas < minDeltas) {
+            return CompletableFuture.completedFuture(false);
+          }
+          byte[] content;
+          try {
+            content = this.jsonCodec.writeDocument(table.data(), this.baseContentEncoding);
+          } catch (Exception e) {
+            throw new JsonMappingException(
+                "Error on mapping the object to JSON : " + e.getMessage(), e);
+          }
+          return this.objectStorage.replaceObject(this.periodicTableBucket,
+                  this.periodicTableKeyPath, content, head.etag(),
+                  Map.of(DELTA_SEQUENCE_METADATA, Long.toString(table.sequence())),
+                  this.baseContentEncoding)
+              .thenCompose(ignored -> this.deleteDeltas(baseSequence))
+              .thenApply(ignored -> true);
+        }));
+  }
+
+  /**
+   * Brings the folded table up to the last delta. The base is only downloaded when the table
+   * was never folded, or when the deltas it still needs may already have been compacted.
+   */
+  private CompletableFuture<FoldedTable> fold() {
+    return this.objectStorage.headObject(this.periodicTableBucket, this.periodicTableKeyPath)
+        .thenCompose(head -> {
+          FoldedTable current = this.foldedTable.get();
+          if (current != null && current.sequence() >= baseSequence(head.metadata())) {
+            return this.applyDeltas(current);
+          }
+          return this.objectStorage.getObject(this.periodicTableBucket,
+                  this.periodicTableKeyPath)
+              .thenCompose(resp -> this.applyDeltas(
+                  new FoldedTable(baseSequence(resp.metadata()), this.readRows(resp))));
+        })
+        .thenApply(this::install);
+  }
+
+  private CompletableFuture<FoldedTable> applyDeltas(FoldedTable table) {
+    return this.listDeltas(table.sequence()).thenCompose(keys -> {
+      if (keys.isEmpty()) {
+        return CompletableFuture.completedFuture(table);
+      }
+      List<CompletableFuture<ObjectStorage.GetObjectResponse>> deltas =
+          new ArrayList<>(keys.size());
+      for (String key : keys) {
+        deltas.add(this.objectStorage.getObject(this.periodicTableBucket, key));
+      }
+      return CompletableFuture.allOf(deltas.toArray(CompletableFuture[]::new))
+          .thenApply(ignored -> {
+            List<Map<String, Object>> data = table.data();
+            for (CompletableFuture<ObjectStorage.GetObjectResponse> delta : deltas) {
+              data = applyRows(data, this.readRows(delta.join()));
+            }
+            return new FoldedTable(table.sequence() + keys.size(), data);
+          });
+    });
+  }
+
+  /**
+   * Lists the keys of the consecutive deltas after the given sequence, in sequence order.
+   */
+  private CompletableFuture<List<String>> listDeltas(long afterSequence) {
+    return this.objectStorage.listObjects(this.periodicTableBucket, this.deltaPrefix,
+            this.deltaKey(afterSequence))
+        .thenApply(keys -> {
+          List<String> deltaKeys = new ArrayList<>();
+          long expected = afterSequence + 1;
+          for (String key : keys) {
+            if (!key.equals(this.deltaKey(expected))) {
+              break;
+            }
+            deltaKeys.add(key);
+            expected++;
+          }
+          return deltaKeys;
+        });
+  }
+
+  private CompletableFuture<Void> deleteDeltas(long upToSequence) {
+    return this.objectStorage.listObjects(this.periodicTableBucket, this.deltaPrefix, null)
+        .thenCompose(keys -> {
+          List<CompletableFuture<?>> deletes = new ArrayList<>();
+          for (String key : keys) {
+            Long sequence = this.parseSequence(key);
+            if (sequence != null && sequence <= upToSequence) {
+              deletes.add(this.objectStorage.deleteObject(this.periodicTableBucket, key));
+            }
+          }
+          return CompletableFuture.allOf(deletes.toArray(CompletableFuture[]::new));
+        });
+  }
+
+  private FoldedTable install(FoldedTable table) {
+    return this.foldedTable.accumulateAndGet(table,
+        (current, next) -> current == null || next.sequence() >= current.sequence()
+            ? next : current);
+  }
+
+  private PeriodicTableSnapshot toSnapshot(FoldedTable table) {
+    return new PeriodicTableSnapshot(table.etag(), this.jsonCodec.toElements(table.data()));
+  }
+
+  private List<Map<String, Object>> readRows(ObjectStorage.GetObjectResponse resp) {
+    try {
+      return this.jsonCodec.readDocument(resp.content(), resp.contentEncoding());
+    } catch (Exception e) {
+      throw new JsonMappingException(
+          "Error on mapping the object on ObjectStorage to JSON : " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Key of a delta. Sequences are zero-padded so keys list in sequence order.
+   */
+  private String deltaKey(long sequence) {
+    return this.deltaPrefix + String.format("%020d", sequence) + DELTA_SUFFIX;
+  }
+
+  private Long parseSequence(String key) {
+    if (!key.startsWith(this.deltaPrefix) || !key.endsWith(DELTA_SUFFIX)) {
+      return null;
+    }
+    try {
+      return Long.parseLong(
+          key.substring(this.deltaPrefix.length(), key.length() - DELTA_SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static String versionToken(long sequence) {
+    return "\"" + sequence + "\"";
+  }
+
+  private static long baseSequence(Map<String, String> metadata) {
+    String sequence = metadata.get(DELTA_SEQUENCE_METADATA);
+    return sequence == null ? 0 : Long.parseLong(sequence);
+  }
+
+  /**
+   * Finds the rows of the updated table that differ from the folded one.
+   */
+  private static List<Map<String, Object>> changedRows(List<Map<String, Object>> folded,
+                                                       List<Map<String, Object>> updated) {
+    Map<Object, Map<String, Object>> foldedRows = HashMap.newHashMap(folded.size());
+    for (Map<String, Object> row : folded) {
+      foldedRows.put(atomicNumber(row), row);
+    }
+    List<Map<String, Object>> changedRows = new ArrayList<>();
+    for (Map<String, Object> row : updated) {
+      if (!Objects.equals(foldedRows.get(atomicNumber(row)), row)) {
+        changedRows.add(row);
+      }
+    }
+    return changedRows;
+  }
+
+  /**
+   * Replaces the rows of the table that the delta holds, and appends the ones it does not.
+   */
+  private static List<Map<String, Object>> applyRows(List<Map<String, Object>> data,
+                                                     List<Map<String, Object>> delta) {
+    Map<Object, Map<String, Object>> deltaRows = LinkedHashMap.newLinkedHashMap(delta.size());
+    for (Map<String, Object> row : delta) {
+      deltaRows.put(atomicNumber(row), row);
+    }
+    List<Map<String, Object>> applied = new ArrayList<>(data.size());
+    for (Map<String, Object> row : data) {
+      Map<String, Object> replacement = deltaRows.remove(atomicNumber(row));
+      applied.add(replacement == null ? row : replacement);
+    }
+    applied.addAll(deltaRows.values());
+    return applied;
+  }
+
+  private static Object atomicNumber(Map<String, Object> row) {
+    Object value = row.get("atomic_number");
+    return value instanceof Number number ? number.longValue() : String.valueOf(value);
+  }
+}
@@ -0,0 +1,19 @@
+package com.elsevier.technicalexercise.periodictable;
+
+/**
+ * Data transfer object for one requested atomic number of a multi-get.
+ *
+ * @param atomicNumber the requested atomic number
+ * @param element      the element, or null when there is no element with that atomic number
+ * @param error        why the element is missing, or null when it was found
+ */
+public record ElementBatchItemDto(int atomicNumber, ElementDetailDto element, String error) {
+  static ElementBatchItemDto fromElement(int atomicNumber, ElementEntity element) {
+    if (element == null) {
+      return new ElementBatchItemDto(atomicNumber, null,
+          PeriodicTableService.ElementNotFoundException.forAtomicNumber(atomicNumber)
+              .getMessage());
+    }
+    return new ElementBatchItemDto(atomicNumber, ElementDetailDto.fromElement(element), null);
+  }
+}
@@ -0,0 +1,39 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import java.util.Set;
+
+/**
+ * Data transfer object for the result of one line of a bulk patch.
+ *
+ * @param line         the line number, starting at 1
+ * @param atomicNumber the atomic number the line patches, or null when it could not be read
+ * @param status       "updated", "unchanged" or "rejected"
+ * @param reason       the name of the error that rejected the line, or null
+ * @param message      the description of the error that rejected the line, or null
+ */
+public record ElementBulkPatchLineDto(int line, Integer atomicNumber, String status,
+                                     String reason, String message) {
+  static final String UPDATED = "updated";
+  static final String UNCHANGED = "unchanged";
+  static final String REJECTED = "rejected";
+
+  /**
+   * Builds the result of a line from the outcome of reading it and the elements the bulk patch
+   * changed.
+   *
+   * @param parsedLine           the outcome of reading the line
+   * @param changedAtomicNumbers the atomic numbers of the elements the bulk patch changed
+   * @return the result of the line
+   */
+  static ElementBulkPatchLineDto fromParsedLine(ElementPatchNdjsonReader.ParsedLine parsedLine,
+                                                Set<Integer> changedAtomicNumbers) {
+    if (!parsedLine.isAccepted()) {
+      return new ElementBulkPatchLineDto(parsedLine.line(), parsedLine.atomicNumber(), REJECTED,
+          parsedLine.reason(), parsedLine.message());
+    }
+    String status = changedAtomicNumbers.contains(parsedLine.atomicNumber())
+        ? UPDATED : UNCHANGED;
+    return new ElementBulkPatchLineDto(parsedLine.line(), parsedLine.atomicNumber(), status,
+        null, null);
+  }
+}
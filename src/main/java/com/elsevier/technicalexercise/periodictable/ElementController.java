@@ -4,12 +4,24 @@ import com.elsevier.technicalexercise.api.ErrorResponseDto;
 import com.elsevier.technicalexercise.api.SuccessResponseDto;
 import io.swagger.v3.oas.annotations.Parameter;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,6 +29,8 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
@@ -26,7 +40,13 @@ import org.springframework.web.bind.annotation.RestController;
  */
 @RestController
 class ElementController {
+  static final String CHANGED_ATOMIC_NUMBERS_HEADER = "X-Changed-Atomic-Numbers";
+  static final String VERSION_ID_HEADER = "X-Version-Id";
+
   private final PeriodicTableService periodicTableService;
+  private final ElementResponseCache elementResponseCache;
+  private final ElementPatchNdjsonReader elementPatchNdjsonReader;
+  private final String cacheControl;
 
   public static class PatchElementSizeException extends RuntimeException {
     public PatchElementSizeException(String s) {
@@ -34,49 +54,300 @@ class ElementController {
     }
   }
 
+  /**
+   * Exception thrown when a multi-get by atomic number is combined with listing filters.
+   */
+  public static class BatchGetFilterException extends RuntimeException {
+    public BatchGetFilterException(String s) {
+      super(s);
+    }
+  }
+
   /**
    * Constructs a new ElementController.
    *
-   * @param periodicTableService the service for periodic table data
+   * @param periodicTableService     the service for periodic table data
+   * @param elementResponseCache     the cache of serialized response bodies
+   * @param elementPatchNdjsonReader the reader of bulk patches
+   * @param maxAge                   how long clients and shared caches may reuse a response
+   * @param staleWhileRevalidate     how long a stale response may be served while revalidating
    */
-  public ElementController(PeriodicTableService periodicTableService) {
+  public ElementController(PeriodicTableService periodicTableService,
+                           ElementResponseCache elementResponseCache,
+                           ElementPatchNdjsonReader elementPatchNdjsonReader,
+                           @Value("${periodic-table.response.cache-control.max-age:60s}")
+                           Duration maxAge,
+                           @Value("${periodic-table.response.cache-control"
+                               + ".stale-while-revalidate:30s}")
+                           Duration staleWhileRevalidate) {
     this.periodicTableService = periodicTableService;
+    this.elementResponseCache = elementResponseCache;
+    this.elementPatchNdjsonReader = elementPatchNdjsonReader;
+    this.cacheControl = CacheControl.maxAge(maxAge)
+        .staleWhileRevalidate(staleWhileRevalidate)
+        .getHeaderValue();
   }
 
+  /**
+   * Lists elements, optionally filtered by group.
+   * The body is pre-serialized once per snapshot and written as is,
+   * or omitted with 304 Not Modified when the client already holds it.
+   * Combined filters, such as {@code period=4&block=d&phase=solid}, ranges on numeric
+   * properties, such as {@code boilingPoint.gt=1000}, a sort such as
+   * {@code sort=-boilingPoint} and a limit are answered from the indexes of the snapshot,
+   * and rendered for the request. Several elements can be fetched in one round trip with
+   * {@code atomicNumber=1,6,8}, which returns their details in request order, with an item
+   * error for each missing atomic number.
+   *
+   * @param elementListingRequestDto the listing filters
+   * @param acceptEncoding           the Accept-Encoding request header
+   * @param ifNoneMatch              the If-None-Match request header
+   * @return a future that will complete with the serialized listing
+   */
   @GetMapping("/elements")
   @ResponseBody
-  public CompletableFuture<SuccessResponseDto<SuccessResponseDto.Items<ElementDto>>> findElements(
+  public CompletableFuture<ResponseEntity<byte[]>> findElements(
       @ParameterObject
       @Valid @ModelAttribute
-      ElementListingRequestDto elementListingRequestDto) {
+      ElementListingRequestDto elementListingRequestDto,
+      @Parameter(hidden = true)
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+      String acceptEncoding,
+      @Parameter(hidden = true)
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+      String ifNoneMatch) {
+    if (elementListingRequestDto.hasAtomicNumbers()) {
+      if (elementListingRequestDto.hasQuery() || elementListingRequestDto.getGroup() != null) {
+        throw new BatchGetFilterException(
+            "Atomic numbers cannot be combined with other filters, a sort or a limit");
+      }
+      int[] atomicNumbers = elementListingRequestDto.toAtomicNumbers();
+      return this.periodicTableService.getSnapshot()
+          .thenApply(snapshot -> toResponseEntity(
+              this.elementResponseCache.batch(snapshot, atomicNumbers),
+              acceptEncoding, ifNoneMatch));
+    }
+
+    return this.periodicTableService.getSnapshot()
+        .thenApply(snapshot -> toResponseEntity(
+            elementListingRequestDto.hasQuery()
+                ? this.elementResponseCache.query(snapshot, elementListingRequestDto.toQuery())
+                : this.elementResponseCache.forSnapshot(snapshot)
+                    .listing(elementListingRequestDto.getGroup()),
+            acceptEncoding, ifNoneMatch));
+  }
 
-    return this.periodicTableService.findElements(elementListingRequestDto)
-        .thenApply(resp -> SuccessResponseDto.fromListOfItems(
-            resp.stream()
-                .map(ElementDto::fromElement)
-                .toList()));
+  /**
+   * Searches elements by the start or the spelling of their name, symbol or alternative names,
+   * for type-ahead. Exact matches come first, then prefix matches, symbols before names and
+   * shorter terms before longer ones, then similar spellings. Matches are read from the trie
+   * and trigram index of the snapshot, without scanning the elements.
+   *
+   * @param q              the text typed so far
+   * @param limit          the largest number of matches to return
+   * @param acceptEncoding the Accept-Encoding request header
+   * @param ifNoneMatch    the If-None-Match request header
+   * @return a future that will complete with the serialized matches
+   */
+  @GetMapping("/elements/search")
+  @ResponseBody
+  public CompletableFuture<ResponseEntity<byte[]>> searchElements(
+      @RequestParam @NotBlank(message = "Query must not be blank")
+      @Size(max = 64, message = "Query must be at most 64 characters")
+      String q,
+      @RequestParam(defaultValue = "10")
+      @Positive(message = "Limit must be a positive integer")
+      @Max(value = 50, message = "Limit must be at most 50")
+      int limit,
+      @Parameter(hidden = true)
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+      String acceptEncoding,
+      @Parameter(hidden = true)
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+      String ifNoneMatch) {
+    return this.periodicTableService.getSnapshot()
+        .thenApply(snapshot -> toResponseEntity(
+            this.elementResponseCache.search(snapshot, q, limit), acceptEncoding, ifNoneMatch));
   }
 
   /**
    * Gets an element by atomic number.
+   * The body is pre-serialized once per snapshot and written as is,
+   * or omitted with 304 Not Modified when the client already holds it.
    *
-   * @param atomicNumber the atomic number of the element
+   * @param atomicNumber   the atomic number of the element
+   * @param acceptEncoding the Accept-Encoding request header
+   * @param ifNoneMatch    the If-None-Match request header
    * @return a future that will complete with the response containing the element
    */
   @GetMapping("/elements/{atomicNumber}")
   @ResponseBody
-  public CompletableFuture<SuccessResponseDto<ElementDetailDto>> getElement(
-      @PathVariable int atomicNumber) {
-    return this.periodicTableService.getElement(atomicNumber)
-        .thenApply(ElementDetailDto::fromElement)
-        .thenApply(SuccessResponseDto::fromSingleItem);
+  public CompletableFuture<ResponseEntity<byte[]>> getElement(
+      @PathVariable int atomicNumber,
+      @Parameter(hidden = true)
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+      String acceptEncoding,
+      @Parameter(hidden = true)
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+      String ifNoneMatch) {
+    return this.periodicTableService.getSnapshot()
+        .thenApply(snapshot -> {
+          ElementResponseCache.RenderedBody body =
+              this.elementResponseCache.forSnapshot(snapshot).element(atomicNumber);
+          if (body == null) {
+            throw PeriodicTableService.ElementNotFoundException.forAtomicNumber(atomicNumber);
+          }
+          return toResponseEntity(body, acceptEncoding, ifNoneMatch);
+        });
   }
 
+  /**
+   * Gets an element by symbol, ignoring case, from a collision-free index of the snapshot.
+   * The body is the pre-serialized body of the element, as for a lookup by atomic number.
+   *
+   * @param symbol         the symbol of the element, e.g. "Fe"
+   * @param acceptEncoding the Accept-Encoding request header
+   * @param ifNoneMatch    the If-None-Match request header
+   * @return a future that will complete with the response containing the element
+   */
+  @GetMapping("/elements/by-symbol/{symbol}")
+  @ResponseBody
+  public CompletableFuture<ResponseEntity<byte[]>> getElementBySymbol(
+      @PathVariable String symbol,
+      @Parameter(hidden = true)
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+      String acceptEncoding,
+      @Parameter(hidden = true)
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+      String ifNoneMatch) {
+    return this.periodicTableService.getSnapshot()
+        .thenApply(snapshot -> {
+          ElementEntity element = snapshot.getElementBySymbol(symbol);
+          if (element == null) {
+            throw PeriodicTableService.ElementNotFoundException.forSymbol(symbol);
+          }
+          return toResponseEntity(
+              this.elementResponseCache.forSnapshot(snapshot).element(element.atomicNumber()),
+              acceptEncoding, ifNoneMatch);
+        });
+  }
+
+  /**
+   * Gets an element by name, ignoring case, from a collision-free index of the snapshot.
+   * The body is the pre-serialized body of the element, as for a lookup by atomic number.
+   *
+   * @param name           the name of the element, e.g. "Iron"
+   * @param acceptEncoding the Accept-Encoding request header
+   * @param ifNoneMatch    the If-None-Match request header
+   * @return a future that will complete with the response containing the element
+   */
+  @GetMapping("/elements/by-name/{name}")
+  @ResponseBody
+  public CompletableFuture<ResponseEntity<byte[]>> getElementByName(
+      @PathVariable String name,
+      @Parameter(hidden = true)
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+      String acceptEncoding,
+      @Parameter(hidden = true)
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+      String ifNoneMatch) {
+    return this.periodicTableService.getSnapshot()
+        .thenApply(snapshot -> {
+          ElementEntity element = snapshot.getElementByName(name);
+          if (element == null) {
+            throw PeriodicTableService.ElementNotFoundException.forName(name);
+          }
+          return toResponseEntity(
+              this.elementResponseCache.forSnapshot(snapshot).element(element.atomicNumber()),
+              acceptEncoding, ifNoneMatch);
+        });
+  }
+
+  private ResponseEntity<byte[]> toResponseEntity(ElementResponseCache.RenderedBody body,
+                                                  String acceptEncoding, String ifNoneMatch) {
+    boolean gzip = body.gzip() != null && acceptsGzip(acceptEncoding);
+    String etag = gzip ? body.gzipEtag() : body.identityEtag();
+    HttpHeaders headers = new HttpHeaders();
+    headers.setETag(etag);
+    headers.setCacheControl(this.cacheControl);
+    if (body.gzip() != null) {
+      headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    }
+    if (matchesIfNoneMatch(ifNoneMatch, etag)) {
+      return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+    }
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    if (gzip) {
+      headers.add(HttpHeaders.CONTENT_ENCODING, "gzip");
+      return new ResponseEntity<>(body.gzip(), headers, HttpStatus.OK);
+    }
+    return new ResponseEntity<>(body.identity(), headers, HttpStatus.OK);
+  }
+
+  /**
+   * Checks an If-None-Match header with the weak comparison required for GET requests.
+   */
+  private static boolean matchesIfNoneMatch(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String value = candidate.strip();
+      if (value.equals("*")) {
+        return true;
+      }
+      if (value.startsWith("W/")) {
+        value = value.substring(2);
+      }
+      if (value.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parameters = coding.split(";");
+      if (!"gzip".equalsIgnoreCase(parameters[0].strip())) {
+        continue;
+      }
+      for (int i = 1; i < parameters.length; i++) {
+        String parameter = parameters[i].strip().replace(" ", "");
+        if (parameter.matches("(?i)q=0(\\.0{0,3})?")) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Patches a batch of elements, at most one patch per atomic number.
+   * The ETag response header is the ETag of the table after the write, the X-Version-Id
+   * header its version id when the bucket is versioned, and the atomic numbers of the
+   * elements whose values changed are listed in the X-Changed-Atomic-Numbers header.
+   * With an If-Match header holding the ETag of a previous update, the patches are only
+   * applied to the table at that ETag, and fail with 412 Precondition Failed otherwise.
+   * In write-behind mode, patches without If-Match are acknowledged with 202 Accepted once
+   * journaled, with the pending operation as body and its status resource as Location.
+   *
+   * @param patchElements the patches to apply
+   * @param ifMatch       the If-Match request header
+   * @return a future that will complete with an empty response, or the accepted operation
+   */
   @PatchMapping("/elements")
   @ResponseBody
   public CompletableFuture<ResponseEntity<?>> updatePeriodicTable(
       @RequestBody @Size(min = 1, message = "At least one element is required")
-      @Valid List<ElementPatchRequestDto> patchElements) {
+      @Valid List<ElementPatchRequestDto> patchElements,
+      @Parameter(description = "ETag returned by a previous update of the periodic table")
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+      String ifMatch) {
     List<ElementPatchRequestDto> validElements = patchElements.stream().filter(
         (element) -> !element.isEmpty()
     ).toList();
@@ -85,11 +356,104 @@ class ElementController {
           "Validation failed, Element must minimum 1 field to update"
       );
     }
-    return this.periodicTableService.updatePeriodicTable(validElements).thenApply((resp) -> {
-      HttpHeaders headers = new HttpHeaders();
-      headers.add("ETag", resp.etag());
-      return new ResponseEntity<>(null, headers, HttpStatus.NO_CONTENT);
-    });
+    if (this.periodicTableService.isWriteBehind() && matchesAnyVersion(ifMatch)) {
+      return this.periodicTableService.acceptPeriodicTableUpdate(validElements)
+          .thenApply(operation -> {
+            HttpHeaders headers = new HttpHeaders();
+            // Relative to /v1/elements, so it resolves to /v1/operations/{id}.
+            headers.setLocation(URI.create("operations/" + operation.id()));
+            headers.add(CHANGED_ATOMIC_NUMBERS_HEADER, operation.changedAtomicNumbers().stream()
+                .map(String::valueOf).collect(Collectors.joining(",")));
+            return new ResponseEntity<>(
+                SuccessResponseDto.fromSingleItem(OperationDto.fromOperation(operation)),
+                headers, HttpStatus.ACCEPTED);
+          });
+    }
+    CompletableFuture<PeriodicTableUpdate> update = matchesAnyVersion(ifMatch)
+        ? this.periodicTableService.updatePeriodicTable(validElements)
+        : this.periodicTableService.updatePeriodicTable(validElements, ifMatch.strip());
+    return update.thenApply((resp) ->
+        new ResponseEntity<>(null, updateHeaders(resp), HttpStatus.NO_CONTENT));
+  }
+
+  /**
+   * Patches elements from a newline-delimited JSON body, one element patch per line.
+   * The body is read and validated line by line as it arrives, and the accepted lines are
+   * written together with one conditional put. A line that is malformed, invalid, or patches
+   * an unknown element is rejected without failing the others. The response lists the outcome
+   * of every line, with the same headers as a single PATCH when anything was written.
+   *
+   * @param requestBody the newline-delimited element patches
+   * @param ifMatch     the If-Match request header
+   * @return a future that will complete with the outcome of every line
+   * @throws IOException if the request body cannot be read
+   */
+  @PatchMapping(value = "/elements", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+  @ResponseBody
+  public CompletableFuture<ResponseEntity<?>> bulkUpdatePeriodicTable(
+      @Parameter(hidden = true)
+      InputStream requestBody,
+      @Parameter(description = "ETag returned by a previous update of the periodic table")
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+      String ifMatch) throws IOException {
+    List<ElementPatchNdjsonReader.ParsedLine> lines =
+        this.elementPatchNdjsonReader.read(requestBody);
+    if (lines.isEmpty()) {
+      throw new PatchElementSizeException(
+          "Validation failed, bulk patch must have at least 1 line");
+    }
+    return this.periodicTableService.bulkUpdatePeriodicTable(lines,
+            matchesAnyVersion(ifMatch) ? null : ifMatch.strip())
+        .thenApply(bulkUpdate -> {
+          Set<Integer> changedAtomicNumbers = bulkUpdate.update() == null
+              ? Set.of() : Set.copyOf(bulkUpdate.update().changedAtomicNumbers());
+          return new ResponseEntity<>(
+              SuccessResponseDto.fromListOfItems(bulkUpdate.lines().stream()
+                  .map(line -> ElementBulkPatchLineDto.fromParsedLine(line, changedAtomicNumbers))
+                  .toList()),
+              bulkUpdate.update() == null ? new HttpHeaders() : updateHeaders(bulkUpdate.update()),
+              HttpStatus.OK);
+        });
+  }
+
+  /**
+   * Gets the state of a patch accepted in write-behind mode: pending until it is written to
+   * object storage, then durable with the ETag of the write, or failed with its error.
+   *
+   * @param id the operation id, from the Location header of the accepted patch
+   * @return the operation
+   */
+  @GetMapping("/operations/{id}")
+  @ResponseBody
+  public SuccessResponseDto<OperationDto> getOperation(@PathVariable String id) {
+    return SuccessResponseDto.fromSingleItem(
+        OperationDto.fromOperation(this.periodicTableService.getOperation(id)));
+  }
+
+  private static HttpHeaders updateHeaders(PeriodicTableUpdate update) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.add("ETag", update.periodicTable().etag());
+    if (update.versionId() != null) {
+      headers.add(VERSION_ID_HEADER, update.versionId());
+    }
+    headers.add(CHANGED_ATOMIC_NUMBERS_HEADER, update.changedAtomicNumbers().stream()
+        .map(String::valueOf).collect(Collectors.joining(",")));
+    return headers;
+  }
+
+  /**
+   * Checks whether an If-Match header lets a patch apply to whatever version is stored.
+   */
+  private static boolean matchesAnyVersion(String ifMatch) {
+    return ifMatch == null || ifMatch.isBlank() || ifMatch.strip().equals("*");
+  }
+
+  @ExceptionHandler(BatchGetFilterException.class)
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  @ResponseBody
+  public ErrorResponseDto handleBatchGetFilterException(BatchGetFilterException ex) {
+    return ErrorResponseDto.fromException(HttpStatus.BAD_REQUEST,
+        ex);
   }
 
   @ExceptionHandler(PatchElementSizeException.class)
@@ -100,6 +464,42 @@ class ElementController {
         ex);
   }
 
+  @ExceptionHandler(ElementPatchMerger.DuplicateAtomicNumberException.class)
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  @ResponseBody
+  public ErrorResponseDto handleDuplicateAtomicNumberException(
+      ElementPatchMerger.DuplicateAtomicNumberException ex) {
+    return ErrorResponseDto.fromException(HttpStatus.BAD_REQUEST,
+        ex);
+  }
+
+  @ExceptionHandler(PeriodicTableService.ElementConflictException.class)
+  @ResponseStatus(HttpStatus.CONFLICT)
+  @ResponseBody
+  public ErrorResponseDto handleElementConflictException(
+      PeriodicTableService.ElementConflictException ex) {
+    return ErrorResponseDto.fromException(HttpStatus.CONFLICT,
+        ex);
+  }
+
+  @ExceptionHandler(PeriodicTableService.PeriodicTableVersionMismatchException.class)
+  @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+  @ResponseBody
+  public ErrorResponseDto handlePeriodicTableVersionMismatchException(
+      PeriodicTableService.PeriodicTableVersionMismatchException ex) {
+    return ErrorResponseDto.fromException(HttpStatus.PRECONDITION_FAILED,
+        ex);
+  }
+
+  @ExceptionHandler(PeriodicTableService.PeriodicTableContentionException.class)
+  @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+  @ResponseBody
+  public ErrorResponseDto handlePeriodicTableContentionException(
+      PeriodicTableService.PeriodicTableContentionException ex) {
+    return ErrorResponseDto.fromException(HttpStatus.SERVICE_UNAVAILABLE,
+        ex);
+  }
+
   @ExceptionHandler(PeriodicTableService.ElementNotFoundException.class)
   @ResponseStatus(HttpStatus.NOT_FOUND)
   @ResponseBody
@@ -108,4 +508,13 @@ class ElementController {
     return ErrorResponseDto.fromException(HttpStatus.NOT_FOUND,
         ex);
   }
+
+  @ExceptionHandler(PeriodicTableService.OperationNotFoundException.class)
+  @ResponseStatus(HttpStatus.NOT_FOUND)
+  @ResponseBody
+  public ErrorResponseDto handleOperationNotFoundException(
+      PeriodicTableService.OperationNotFoundException ex) {
+    return ErrorResponseDto.fromException(HttpStatus.NOT_FOUND,
+        ex);
+  }
 }
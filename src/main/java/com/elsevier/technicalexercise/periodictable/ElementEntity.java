@@ -2,10 +2,36 @@ package com.elsevier.technicalexercise.periodictable;
 
 /**
  * Entity representing a chemical element in the periodic table.
+ * Numeric properties are kept as stored, since the document mixes numbers with text such as
+ * {@code "n/a"} or values with units; {@link ElementPropertyColumns} normalizes them.
+ * Categorical attributes are kept as stored as well, and normalized by {@link ElementFacet}.
  */
 public record ElementEntity(
-    String name, 
-    int atomicNumber, 
-    String alternativeName, 
-    String groupBlock) {
+    String name,
+    int atomicNumber,
+    String alternativeName,
+    String groupBlock,
+    String atomicWeight,
+    String boilingPoint,
+    String meltingPoint,
+    String densityAtStp,
+    String period,
+    String elementCategory,
+    String phase,
+    String symbol,
+    String alternativeNames) {
+
+  /**
+   * Constructs an element with only the attributes of its listing and detail.
+   *
+   * @param name            the element name
+   * @param atomicNumber    the atomic number
+   * @param alternativeName the alternative name, or "n/a"
+   * @param groupBlock      the group and block, e.g. "group 1, s-block"
+   */
+  public ElementEntity(String name, int atomicNumber, String alternativeName,
+                       String groupBlock) {
+    this(name, atomicNumber, alternativeName, groupBlock, null, null, null, null, null, null,
+        null, null, null);
+  }
 }
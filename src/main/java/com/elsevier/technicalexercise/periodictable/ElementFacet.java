@@ -0,0 +1,162 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A categorical attribute of the elements that listings can be filtered on.
+ * Each facet reduces an element to at most one normalized value, and normalizes filter values
+ * the same way, so a filter is a lookup of the elements holding that value.
+ * The enum is public because {@link ValidFacet} refers to it: annotation proxies are defined
+ * outside this package and cannot load a package-private attribute type.
+ */
+public enum ElementFacet {
+  GROUP("group", element -> GroupBlock.parse(element.groupBlock())
+      .map(groupBlock -> groupBlock.group() == null ? "n/a" : groupBlock.group().toString())
+      .orElse(null)) {
+    @Override
+    Optional<String> normalize(String value) {
+      String candidate = value.strip();
+      if (!ValidGroup.GroupValidator.validateGroup(candidate)) {
+        return Optional.empty();
+      }
+      Integer group = GroupBlock.parseGroup(candidate);
+      return Optional.of(group == null ? "n/a" : group.toString());
+    }
+  },
+  PERIOD("period", element -> element.period() == null ? null : element.period().strip()) {
+    @Override
+    Optional<String> normalize(String value) {
+      try {
+        int period = Integer.parseInt(value.strip());
+        return period >= 1 && period <= MAX_PERIOD
+            ? Optional.of(Integer.toString(period)) : Optional.empty();
+      } catch (NumberFormatException ex) {
+        return Optional.empty();
+      }
+    }
+  },
+  BLOCK("block", element -> GroupBlock.parse(element.groupBlock())
+      .map(groupBlock -> String.valueOf(groupBlock.block()))
+      .orElse(null)) {
+    @Override
+    Optional<String> normalize(String value) {
+      String block = value.strip().toLowerCase(Locale.ROOT);
+      if (block.endsWith("-block")) {
+        block = block.substring(0, block.length() - "-block".length());
+      }
+      return BLOCKS.contains(block) ? Optional.of(block) : Optional.empty();
+    }
+  },
+  CATEGORY("category", element -> primaryCategory(element.elementCategory())) {
+    @Override
+    Optional<String> normalize(String value) {
+      String category = value.strip().toLowerCase(Locale.ROOT);
+      return CATEGORIES.contains(category) ? Optional.of(category) : Optional.empty();
+    }
+  },
+  PHASE("phase", element -> primaryPhase(element.phase())) {
+    @Override
+    Optional<String> normalize(String value) {
+      String phase = value.strip().toLowerCase(Locale.ROOT);
+      return PHASES.contains(phase) ? Optional.of(phase) : Optional.empty();
+    }
+  };
+
+  /**
+   * Number of periods of the periodic table.
+   */
+  static final int MAX_PERIOD = 7;
+
+  /**
+   * Blocks accepted by the block filter.
+   */
+  static final Set<String> BLOCKS = Set.of("s", "p", "d", "f", "g");
+
+  /**
+   * Categories accepted by the category filter. An element is in the category its
+   * {@code element_category} starts with, so "transition metal, alternatively considered a
+   * post-transition metal" is a transition metal and "unknown, but probably a transition metal"
+   * is unknown.
+   */
+  static final List<String> CATEGORIES = List.of("alkali metal", "alkaline earth metal",
+      "transition metal", "post-transition metal", "metalloid", "polyatomic nonmetal",
+      "diatomic nonmetal", "noble gas", "lanthanide", "actinide", "unknown");
+
+  /**
+   * Phases accepted by the phase filter. Predicted phases count as the phase itself.
+   */
+  static final List<String> PHASES = List.of("solid", "liquid", "gas");
+
+  private final String parameterName;
+  private final Function<ElementEntity, String> elementValue;
+
+  ElementFacet(String parameterName, Function<ElementEntity, String> elementValue) {
+    this.parameterName = parameterName;
+    this.elementValue = elementValue;
+  }
+
+  /**
+   * Gets the name of the facet in query parameters.
+   *
+   * @return the name, e.g. "period"
+   */
+  String parameterName() {
+    return parameterName;
+  }
+
+  /**
+   * Gets the normalized value of an element.
+   *
+   * @param element the element
+   * @return the value, or null when the element has none
+   */
+  String valueOf(ElementEntity element) {
+    return elementValue.apply(element);
+  }
+
+  /**
+   * Normalizes a filter value.
+   *
+   * @param value the value as given in the query
+   * @return the normalized value, or empty when the value is not valid for this facet
+   */
+  abstract Optional<String> normalize(String value);
+
+  /**
+   * Splits a filter parameter holding one or more comma-separated values, as bound from
+   * either {@code period=4,5} or {@code period=4&period=5}.
+   *
+   * @param parameter the parameter value
+   * @return the values, without blanks
+   */
+  static List<String> splitValues(String parameter) {
+    return Arrays.stream(parameter.split(","))
+        .map(String::strip)
+        .filter(value -> !value.isEmpty())
+        .toList();
+  }
+
+  private static String primaryCategory(String elementCategory) {
+    if (elementCategory == null) {
+      return null;
+    }
+    String category = elementCategory.split(",")[0].strip().toLowerCase(Locale.ROOT);
+    if (category.endsWith("metals")) {
+      category = category.substring(0, category.length() - 1);
+    }
+    return CATEGORIES.contains(category) ? category : null;
+  }
+
+  private static String primaryPhase(String phase) {
+    if (phase == null) {
+      return null;
+    }
+    String primary = phase.strip().toLowerCase(Locale.ROOT).split("[ (]")[0];
+    return PHASES.contains(primary) ? primary : null;
+  }
+}
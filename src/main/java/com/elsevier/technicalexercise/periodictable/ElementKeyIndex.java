@@ -0,0 +1,163 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Case-insensitive, collision-free lookup of elements by a text key such as their symbol or
+ * name, built with two-level perfect hashing.
+ * Keys are spread over one bucket per key; each bucket then gets its own table, sized to the
+ * square of its keys, and a seed picked so that its keys land in distinct slots. A lookup
+ * hashes the key twice and compares a single slot, without probing or allocating.
+ */
+final class ElementKeyIndex {
+  /**
+   * Seed of the first-level hash.
+   */
+  private static final int BUCKET_SEED = 0x9e3779b9;
+
+  private final int[] bucketOffsets;
+  private final int[] bucketSizes;
+  private final int[] bucketSeeds;
+  private final String[] slotKeys;
+  private final ElementEntity[] slotElements;
+
+  /**
+   * Builds the index of the elements by a key. Elements without a key, or whose key is
+   * {@code "n/a"}, are not indexed; the first element wins for a duplicated key, as with a
+   * linear scan.
+   *
+   * @param elements the elements, in snapshot order
+   * @param key      the key of an element
+   */
+  ElementKeyIndex(List<ElementEntity> elements, Function<ElementEntity, String> key) {
+    List<String> keys = new ArrayList<>(elements.size());
+    List<ElementEntity> keyed = new ArrayList<>(elements.size());
+    Set<String> foldedKeys = new HashSet<>();
+    for (ElementEntity element : elements) {
+      String value = key.apply(element);
+      if (value == null || value.isBlank() || value.equalsIgnoreCase("n/a")) {
+        continue;
+      }
+      String stripped = value.strip();
+      if (foldedKeys.add(fold(stripped))) {
+        keys.add(stripped);
+        keyed.add(element);
+      }
+    }
+
+    int bucketCount = Math.max(1, keys.size());
+    List<List<Integer>> buckets = new ArrayList<>(bucketCount);
+    for (int bucket = 0; bucket < bucketCount; bucket++) {
+      buckets.add(new ArrayList<>());
+    }
+    for (int index = 0; index < keys.size(); index++) {
+      buckets.get(slot(hash(keys.get(index), BUCKET_SEED), bucketCount)).add(index);
+    }
+
+    this.bucketOffsets = new int[bucketCount];
+    this.bucketSizes = new int[bucketCount];
+    this.bucketSeeds = new int[bucketCount];
+    int slotCount = 0;
+    for (int bucket = 0; bucket < bucketCount; bucket++) {
+      int size = buckets.get(bucket).size();
+      this.bucketOffsets[bucket] = slotCount;
+      this.bucketSizes[bucket] = size * size;
+      slotCount += size * size;
+    }
+    this.slotKeys = new String[slotCount];
+    this.slotElements = new ElementEntity[slotCount];
+    for (int bucket = 0; bucket < bucketCount; bucket++) {
+      List<Integer> members = buckets.get(bucket);
+      if (!members.isEmpty()) {
+        this.bucketSeeds[bucket] = this.place(bucket, members, keys, keyed);
+      }
+    }
+  }
+
+  /**
+   * Tries seeds until the keys of a bucket land in distinct slots of its table, and fills
+   * the slots. With a table of the square of its keys, a seed works more often than not.
+   */
+  private int place(int bucket, List<Integer> members, List<String> keys,
+                    List<ElementEntity> keyed) {
+    int offset = this.bucketOffsets[bucket];
+    int size = this.bucketSizes[bucket];
+    for (int seed = 1; ; seed++) {
+      boolean collides = false;
+      for (int member : members) {
+        int slot = offset + slot(hash(keys.get(member), seed), size);
+        if (this.slotKeys[slot] != null) {
+          collides = true;
+          break;
+        }
+        this.slotKeys[slot] = keys.get(member);
+        this.slotElements[slot] = keyed.get(member);
+      }
+      if (!collides) {
+        return seed;
+      }
+      for (int slot = offset; slot < offset + size; slot++) {
+        this.slotKeys[slot] = null;
+        this.slotElements[slot] = null;
+      }
+    }
+  }
+
+  /**
+   * Looks up an element by key, ignoring case and surrounding whitespace as the index does.
+   *
+   * @param key the key, e.g. "fe" or "IRON"
+   * @return the element, or null when no element has that key
+   */
+  ElementEntity find(String key) {
+    if (key == null || this.slotKeys.length == 0) {
+      return null;
+    }
+    String stripped = key.strip();
+    int bucket = slot(hash(stripped, BUCKET_SEED), this.bucketOffsets.length);
+    int size = this.bucketSizes[bucket];
+    if (size == 0) {
+      return null;
+    }
+    int slot = this.bucketOffsets[bucket] + slot(hash(stripped, this.bucketSeeds[bucket]), size);
+    return stripped.equalsIgnoreCase(this.slotKeys[slot]) ? this.slotElements[slot] : null;
+  }
+
+  /**
+   * Hashes a key so that keys equal ignoring case have equal hashes, with the same folding
+   * as {@link String#equalsIgnoreCase(String)}.
+   */
+  private static int hash(String key, int seed) {
+    int hash = seed;
+    for (int index = 0; index < key.length(); index++) {
+      hash = (hash ^ fold(key.charAt(index))) * 0x01000193;
+    }
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    return hash ^ (hash >>> 13);
+  }
+
+  /**
+   * Folds a key character by character, so that keys equal ignoring case, which would always
+   * share a slot, are recognized as duplicates.
+   */
+  private static String fold(String key) {
+    StringBuilder folded = new StringBuilder(key.length());
+    for (int index = 0; index < key.length(); index++) {
+      folded.append(fold(key.charAt(index)));
+    }
+    return folded.toString();
+  }
+
+  private static char fold(char character) {
+    return Character.toLowerCase(Character.toUpperCase(character));
+  }
+
+  private static int slot(int hash, int size) {
+    return Math.floorMod(hash, size);
+  }
+}
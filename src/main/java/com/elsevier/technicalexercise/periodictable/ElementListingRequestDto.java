@@ -2,6 +2,13 @@ package com.elsevier.technicalexercise.periodictable;
 
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Data Transfer Object for element listing requests.
@@ -9,13 +16,88 @@ import io.swagger.v3.oas.annotations.media.Schema;
  */
 @Schema(description = "Data Transfer Object for element listing requests")
 public class ElementListingRequestDto {
+  /**
+   * Largest number of atomic numbers of a multi-get.
+   */
+  static final int MAX_ATOMIC_NUMBERS = 200;
+
+  @Schema(description = "Atomic numbers to get, comma-separated, at most "
+      + MAX_ATOMIC_NUMBERS + ". Returns the details of each element in request order, with an "
+      + "error for the missing ones, and cannot be combined with other filters.",
+      example = "1,6,8"
+  )
+  @Pattern(regexp = "\\s*\\d{1,9}\\s*(,\\s*\\d{1,9}\\s*){0," + (MAX_ATOMIC_NUMBERS - 1) + "}",
+      message = "Atomic number must be a comma-separated list of at most "
+          + MAX_ATOMIC_NUMBERS + " atomic numbers")
+  private String atomicNumber;
+
   @Schema(description = "The periodic table group to filter by. "
-      + "Valid values are 1 to 18 (inclusive) or 'n/a'.",
+      + "Valid values are 1 to 18 (inclusive) or 'n/a', comma-separated to accept several.",
       example = "2"
   )
   @ValidGroup
   private String group;
 
+  @Schema(description = "The periods to filter by, from 1 to 7, comma-separated.",
+      example = "4"
+  )
+  @ValidFacet(value = ElementFacet.PERIOD, message = "Invalid period")
+  private String period;
+
+  @Schema(description = "The blocks to filter by, among s, p, d, f and g, comma-separated.",
+      example = "d"
+  )
+  @ValidFacet(value = ElementFacet.BLOCK, message = "Invalid block")
+  private String block;
+
+  @Schema(description = "The element categories to filter by, comma-separated: alkali metal, "
+      + "alkaline earth metal, transition metal, post-transition metal, metalloid, "
+      + "polyatomic nonmetal, diatomic nonmetal, noble gas, lanthanide, actinide or unknown.",
+      example = "transition metal"
+  )
+  @ValidFacet(value = ElementFacet.CATEGORY, message = "Invalid element category")
+  private String category;
+
+  @Schema(description = "The phases to filter by, among solid, liquid and gas, "
+      + "comma-separated. Predicted phases count as the phase itself.",
+      example = "solid"
+  )
+  @ValidFacet(value = ElementFacet.PHASE, message = "Invalid phase")
+  private String phase;
+
+  @Schema(description = "Bounds on the atomic weight, e.g. atomicWeight.lt=20")
+  private RangeFilter atomicWeight;
+
+  @Schema(description = "Bounds on the boiling point in kelvin, e.g. boilingPoint.gt=1000")
+  private RangeFilter boilingPoint;
+
+  @Schema(description = "Bounds on the melting point in kelvin, e.g. meltingPoint.lte=300")
+  private RangeFilter meltingPoint;
+
+  @Schema(description = "Bounds on the density at STP in g/L, e.g. densityAtStp.gte=1")
+  private RangeFilter densityAtStp;
+
+  @Schema(description = "The numeric property to sort by, prefixed with '-' for descending "
+      + "order. Elements without a value come last.",
+      example = "-boilingPoint"
+  )
+  @Pattern(regexp = "-?(atomicWeight|boilingPoint|meltingPoint|densityAtStp)",
+      message = "Sort must be one of atomicWeight, boilingPoint, meltingPoint or densityAtStp, "
+          + "optionally prefixed with '-'")
+  private String sort;
+
+  @Schema(description = "The largest number of elements to return", example = "5")
+  @Positive(message = "Limit must be a positive integer")
+  private Integer limit;
+
+  public String getAtomicNumber() {
+    return atomicNumber;
+  }
+
+  public void setAtomicNumber(String atomicNumber) {
+    this.atomicNumber = atomicNumber;
+  }
+
   public String getGroup() {
     return group;
   }
@@ -24,5 +106,164 @@ public class ElementListingRequestDto {
     this.group = group;
   }
 
+  public String getPeriod() {
+    return period;
+  }
+
+  public void setPeriod(String period) {
+    this.period = period;
+  }
+
+  public String getBlock() {
+    return block;
+  }
+
+  public void setBlock(String block) {
+    this.block = block;
+  }
+
+  public String getCategory() {
+    return category;
+  }
+
+  public void setCategory(String category) {
+    this.category = category;
+  }
+
+  public String getPhase() {
+    return phase;
+  }
+
+  public void setPhase(String phase) {
+    this.phase = phase;
+  }
+
+  public RangeFilter getAtomicWeight() {
+    return atomicWeight;
+  }
+
+  public void setAtomicWeight(RangeFilter atomicWeight) {
+    this.atomicWeight = atomicWeight;
+  }
+
+  public RangeFilter getBoilingPoint() {
+    return boilingPoint;
+  }
+
+  public void setBoilingPoint(RangeFilter boilingPoint) {
+    this.boilingPoint = boilingPoint;
+  }
+
+  public RangeFilter getMeltingPoint() {
+    return meltingPoint;
+  }
 
+  public void setMeltingPoint(RangeFilter meltingPoint) {
+    this.meltingPoint = meltingPoint;
+  }
+
+  public RangeFilter getDensityAtStp() {
+    return densityAtStp;
+  }
+
+  public void setDensityAtStp(RangeFilter densityAtStp) {
+    this.densityAtStp = densityAtStp;
+  }
+
+  public String getSort() {
+    return sort;
+  }
+
+  public void setSort(String sort) {
+    this.sort = sort;
+  }
+
+  public Integer getLimit() {
+    return limit;
+  }
+
+  public void setLimit(Integer limit) {
+    this.limit = limit;
+  }
+
+  /**
+   * Checks whether the request gets elements by atomic number rather than listing them.
+   *
+   * @return true when atomic numbers are requested
+   */
+  boolean hasAtomicNumbers() {
+    return atomicNumber != null;
+  }
+
+  /**
+   * Gets the requested atomic numbers, in request order and with duplicates.
+   *
+   * @return the atomic numbers
+   */
+  int[] toAtomicNumbers() {
+    return ElementFacet.splitValues(atomicNumber).stream()
+        .mapToInt(Integer::parseInt)
+        .toArray();
+  }
+
+  /**
+   * Checks whether the request needs more than the precomputed listings of a single group.
+   *
+   * @return true when several groups, another filter, a range, a sort or a limit is requested
+   */
+  boolean hasQuery() {
+    return (group != null && !ElementFacet.splitValues(group).equals(List.of(group)))
+        || period != null || block != null || category != null || phase != null
+        || sort != null || limit != null || !this.ranges().isEmpty();
+  }
+
+  /**
+   * Builds the query described by the request.
+   *
+   * @return the query
+   */
+  ElementQuery toQuery() {
+    Map<ElementFacet, Set<String>> facets = new EnumMap<>(ElementFacet.class);
+    putIfFiltered(facets, ElementFacet.GROUP, group);
+    putIfFiltered(facets, ElementFacet.PERIOD, period);
+    putIfFiltered(facets, ElementFacet.BLOCK, block);
+    putIfFiltered(facets, ElementFacet.CATEGORY, category);
+    putIfFiltered(facets, ElementFacet.PHASE, phase);
+    boolean descending = sort != null && sort.startsWith("-");
+    ElementPropertyColumns.NumericProperty sortProperty = sort == null ? null
+        : ElementPropertyColumns.NumericProperty
+            .fromParameterName(descending ? sort.substring(1) : sort)
+            .orElseThrow();
+    return new ElementQuery(facets, this.ranges(), sortProperty, descending, limit);
+  }
+
+  private static void putIfFiltered(Map<ElementFacet, Set<String>> facets, ElementFacet facet,
+                                    String parameter) {
+    if (parameter == null) {
+      return;
+    }
+    Set<String> values = new HashSet<>();
+    for (String value : ElementFacet.splitValues(parameter)) {
+      facet.normalize(value).ifPresent(values::add);
+    }
+    facets.put(facet, values);
+  }
+
+  private Map<ElementPropertyColumns.NumericProperty, RangeFilter> ranges() {
+    Map<ElementPropertyColumns.NumericProperty, RangeFilter> ranges =
+        new EnumMap<>(ElementPropertyColumns.NumericProperty.class);
+    putIfBounded(ranges, ElementPropertyColumns.NumericProperty.ATOMIC_WEIGHT, atomicWeight);
+    putIfBounded(ranges, ElementPropertyColumns.NumericProperty.BOILING_POINT, boilingPoint);
+    putIfBounded(ranges, ElementPropertyColumns.NumericProperty.MELTING_POINT, meltingPoint);
+    putIfBounded(ranges, ElementPropertyColumns.NumericProperty.DENSITY_AT_STP, densityAtStp);
+    return ranges;
+  }
+
+  private static void putIfBounded(
+      Map<ElementPropertyColumns.NumericProperty, RangeFilter> ranges,
+      ElementPropertyColumns.NumericProperty property, RangeFilter range) {
+    if (range != null && range.hasBounds()) {
+      ranges.put(property, range);
+    }
+  }
 }
@@ -0,0 +1,184 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import com.elsevier.technicalexercise.utils.Validator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Applies a batch of element patches to the stored periodic table document.
+ * Patches are indexed by atomic number once, so merging is a single pass over the document
+ * whatever the size of the batch, and only the rows whose values actually change are copied.
+ */
+final class ElementPatchMerger {
+  private final Map<Integer, ElementPatchRequestDto> patchesByAtomicNumber;
+
+  /**
+   * Exception thrown when a batch patches the same element more than once.
+   */
+  public static class DuplicateAtomicNumberException extends RuntimeException {
+    public DuplicateAtomicNumberException(String message) {
+      super(message);
+    }
+  }
+
+  /**
+   * Result of merging a batch into the document.
+   *
+   * @param data                 the merged document
+   * @param changedAtomicNumbers the atomic numbers of the rows whose values changed, in
+   *                             document order
+   */
+  record MergedDocument(List<Map<String, Object>> data, List<Integer> changedAtomicNumbers) {
+  }
+
+  /**
+   * Indexes a batch of patches by atomic number.
+   *
+   * @param patches the patches to apply
+   * @throws DuplicateAtomicNumberException if two patches target the same atomic number
+   */
+  ElementPatchMerger(List<ElementPatchRequestDto> patches) {
+    this.patchesByAtomicNumber = HashMap.newHashMap(patches.size());
+    TreeSet<Integer> duplicates = new TreeSet<>();
+    for (ElementPatchRequestDto patch : patches) {
+      if (this.patchesByAtomicNumber.putIfAbsent(patch.getAtomicNumber(), patch) != null) {
+        duplicates.add(patch.getAtomicNumber());
+      }
+    }
+    if (!duplicates.isEmpty()) {
+      throw new DuplicateAtomicNumberException(
+          "Each element can only be patched once per request, duplicated atomic numbers : "
+              + duplicates);
+    }
+  }
+
+  /**
+   * Applies the patches to the document in a single pass.
+   *
+   * @param document the stored periodic table document
+   * @return the merged document and the atomic numbers of the rows that changed
+   * @throws PeriodicTableService.ElementNotFoundException if a patch targets an atomic number
+   *                                                       that is not in the document
+   */
+  MergedDocument merge(List<Map<String, Object>> document) {
+    List<Map<String, Object>> merged = new ArrayList<>(document.size());
+    List<Integer> changedAtomicNumbers = new ArrayList<>();
+    Set<Integer> matchedAtomicNumbers = HashSet.newHashSet(this.patchesByAtomicNumber.size());
+    for (Map<String, Object> existingElement : document) {
+      int atomicNumber = toAtomicNumber(existingElement.get("atomic_number"));
+      ElementPatchRequestDto patch = this.patchesByAtomicNumber.get(atomicNumber);
+      if (patch == null) {
+        merged.add(existingElement);
+        continue;
+      }
+      matchedAtomicNumbers.add(atomicNumber);
+      Map<String, Object> mergedElement = apply(existingElement, patch);
+      if (mergedElement != existingElement) {
+        changedAtomicNumbers.add(atomicNumber);
+      }
+      merged.add(mergedElement);
+    }
+    if (matchedAtomicNumbers.size() < this.patchesByAtomicNumber.size()) {
+      throw unknownAtomicNumbers(matchedAtomicNumbers);
+    }
+    return new MergedDocument(merged, changedAtomicNumbers);
+  }
+
+  /**
+   * Finds the elements where a concurrent writer changed a field this batch also patches,
+   * to a value other than the one this batch sets. Patches that do not overlap with the
+   * concurrent write, or agree with it, can be re-applied to the current document safely.
+   *
+   * @param base    the document the batch was first merged into
+   * @param current the document as the concurrent writer left it
+   * @return the atomic numbers of the conflicting elements, in ascending order
+   */
+  List<Integer> findConflicts(List<Map<String, Object>> base,
+                              List<Map<String, Object>> current) {
+    Map<Integer, Map<String, Object>> baseElements =
+        HashMap.newHashMap(this.patchesByAtomicNumber.size());
+    for (Map<String, Object> baseElement : base) {
+      int atomicNumber = toAtomicNumber(baseElement.get("atomic_number"));
+      if (this.patchesByAtomicNumber.containsKey(atomicNumber)) {
+        baseElements.put(atomicNumber, baseElement);
+      }
+    }
+    TreeSet<Integer> conflicts = new TreeSet<>();
+    for (Map<String, Object> currentElement : current) {
+      int atomicNumber = toAtomicNumber(currentElement.get("atomic_number"));
+      ElementPatchRequestDto patch = this.patchesByAtomicNumber.get(atomicNumber);
+      Map<String, Object> baseElement = baseElements.get(atomicNumber);
+      if (patch == null || baseElement == null) {
+        continue;
+      }
+      if (conflicts(baseElement, currentElement, "name", patch.getName())
+          || conflicts(baseElement, currentElement, "alternative_name",
+          patch.getAlternativeName())
+          || conflicts(baseElement, currentElement, "group_block", patch.getGroupBlock())) {
+        conflicts.add(atomicNumber);
+      }
+    }
+    return List.copyOf(conflicts);
+  }
+
+  private static boolean conflicts(Map<String, Object> baseElement,
+                                   Map<String, Object> currentElement, String field,
+                                   String value) {
+    if (Validator.isNullOrBlank(value)) {
+      return false;
+    }
+    Object baseValue = baseElement.get(field);
+    Object currentValue = currentElement.get(field);
+    return !Objects.equals(baseValue, currentValue) && !Objects.equals(value, currentValue);
+  }
+
+  /**
+   * Applies one patch to a row, copying the row only when a value changes.
+   *
+   * @return the existing row when the patch changes nothing, otherwise a patched copy
+   */
+  private static Map<String, Object> apply(Map<String, Object> existingElement,
+                                           ElementPatchRequestDto patch) {
+    Map<String, Object> mergedElement = existingElement;
+    mergedElement = put(existingElement, mergedElement, "name", patch.getName());
+    mergedElement = put(existingElement, mergedElement, "alternative_name",
+        patch.getAlternativeName());
+    mergedElement = put(existingElement, mergedElement, "group_block", patch.getGroupBlock());
+    return mergedElement;
+  }
+
+  private static Map<String, Object> put(Map<String, Object> existingElement,
+                                         Map<String, Object> mergedElement, String field,
+                                         String value) {
+    if (Validator.isNullOrBlank(value) || Objects.equals(value, existingElement.get(field))) {
+      return mergedElement;
+    }
+    if (mergedElement == existingElement) {
+      mergedElement = new LinkedHashMap<>(existingElement);
+    }
+    mergedElement.put(field, value);
+    return mergedElement;
+  }
+
+  private PeriodicTableService.ElementNotFoundException unknownAtomicNumbers(
+      Set<Integer> matchedAtomicNumbers) {
+    TreeSet<Integer> unknown = new TreeSet<>(this.patchesByAtomicNumber.keySet());
+    unknown.removeAll(matchedAtomicNumbers);
+    return new PeriodicTableService.ElementNotFoundException(
+        "Element not found for atomic numbers: " + unknown);
+  }
+
+  private static int toAtomicNumber(Object value) {
+    if (value instanceof Number number) {
+      return number.intValue();
+    }
+    return Integer.parseInt(String.valueOf(value));
+  }
+}
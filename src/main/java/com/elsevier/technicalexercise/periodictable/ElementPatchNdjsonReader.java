@@ -0,0 +1,183 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads a bulk patch sent as newline-delimited JSON, one element patch per line.
+ * Lines are parsed and validated one at a time from the request stream, and the outcome of
+ * every line is kept until the whole body is read, since the patches are merged together and
+ * the response reports every line. Memory is therefore bounded by the maximum number of lines
+ * and not by the size of the payload: the raw bytes of a line are dropped once it is parsed,
+ * and a line longer than the configured limit is skipped without being buffered. A line that
+ * cannot be applied is rejected on its own, with the reason kept for the per-line result.
+ */
+@Component
+class ElementPatchNdjsonReader {
+  private final ObjectReader patchReader;
+  private final Validator validator;
+  private final int maxLines;
+  private final int maxLineBytes;
+
+  /**
+   * Outcome of reading one line of the bulk patch.
+   *
+   * @param line    the line number, starting at 1
+   * @param patch   the parsed patch, or null when the line could not be parsed
+   * @param reason  the name of the error that rejected the line, or null when it is accepted
+   * @param message the description of the error, or null when the line is accepted
+   */
+  record ParsedLine(int line, ElementPatchRequestDto patch, String reason, String message) {
+    static ParsedLine accepted(int line, ElementPatchRequestDto patch) {
+      return new ParsedLine(line, patch, null, null);
+    }
+
+    static ParsedLine rejected(int line, ElementPatchRequestDto patch, Exception ex) {
+      return new ParsedLine(line, patch, ex.getClass().getSimpleName(), ex.getMessage());
+    }
+
+    boolean isAccepted() {
+      return this.reason == null;
+    }
+
+    /**
+     * Gets the atomic number the line patches.
+     *
+     * @return the atomic number, or null when the line has none
+     */
+    Integer atomicNumber() {
+      return this.patch == null ? null : this.patch.getAtomicNumber();
+    }
+  }
+
+  /**
+   * Constructs a new ElementPatchNdjsonReader.
+   *
+   * @param objectMapper the mapper configured for request bodies
+   * @param validator    the validator of request bodies
+   * @param maxLines     how many patches a bulk patch may hold at most
+   * @param maxLineBytes how long a single line may be, in bytes
+   */
+  ElementPatchNdjsonReader(ObjectMapper objectMapper,
+                           Validator validator,
+                           @Value("${periodic-table.write.bulk.max-lines:10000}")
+                           int maxLines,
+                           @Value("${periodic-table.write.bulk.max-line-bytes:4096}")
+                           int maxLineBytes) {
+    this.patchReader = objectMapper.readerFor(ElementPatchRequestDto.class)
+        .with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+    this.validator = validator;
+    this.maxLines = maxLines;
+    this.maxLineBytes = maxLineBytes;
+  }
+
+  /**
+   * Reads and validates every line of a bulk patch. Blank lines are skipped.
+   *
+   * @param body the request body
+   * @return the outcome of every non-blank line, in order
+   * @throws IOException if the request body cannot be read
+   * @throws ElementController.PatchElementSizeException if the body holds more lines than
+   *                                                     allowed
+   */
+  List<ParsedLine> read(InputStream body) throws IOException {
+    InputStream input = new BufferedInputStream(body);
+    List<ParsedLine> lines = new ArrayList<>();
+    Set<Integer> atomicNumbers = new HashSet<>();
+    byte[] buffer = new byte[this.maxLineBytes];
+    int length = 0;
+    boolean truncated = false;
+    int lineNumber = 0;
+    int next;
+    do {
+      next = input.read();
+      if (next != '\n' && next != -1) {
+        if (length < buffer.length) {
+          buffer[length++] = (byte) next;
+        } else {
+          truncated = true;
+        }
+        continue;
+      }
+      lineNumber++;
+      if (truncated || !isBlank(buffer, length)) {
+        if (lines.size() == this.maxLines) {
+          throw new ElementController.PatchElementSizeException(
+              "Validation failed, bulk patch must have at most " + this.maxLines + " lines");
+        }
+        lines.add(truncated
+            ? ParsedLine.rejected(lineNumber, null, new ElementController.PatchElementSizeException(
+                "Line must be at most " + this.maxLineBytes + " bytes"))
+            : this.parseLine(lineNumber, buffer, length, atomicNumbers));
+      }
+      length = 0;
+      truncated = false;
+    } while (next != -1);
+    return lines;
+  }
+
+  private ParsedLine parseLine(int lineNumber, byte[] buffer, int length,
+                               Set<Integer> atomicNumbers) {
+    ElementPatchRequestDto patch;
+    try {
+      patch = this.patchReader.readValue(buffer, 0, length);
+    } catch (JsonProcessingException e) {
+      return new ParsedLine(lineNumber, null, e.getClass().getSimpleName(),
+          e.getOriginalMessage());
+    } catch (IOException e) {
+      return ParsedLine.rejected(lineNumber, null, e);
+    }
+    if (patch == null) {
+      return ParsedLine.rejected(lineNumber, null,
+          new ElementController.PatchElementSizeException("Line must hold an element patch"));
+    }
+    Set<ConstraintViolation<ElementPatchRequestDto>> violations = this.validator.validate(patch);
+    if (!violations.isEmpty()) {
+      return new ParsedLine(lineNumber, patch,
+          ConstraintViolationException.class.getSimpleName(), describe(violations));
+    }
+    if (patch.isEmpty()) {
+      return ParsedLine.rejected(lineNumber, patch, new ElementController.PatchElementSizeException(
+          "Validation failed, Element must minimum 1 field to update"));
+    }
+    if (!atomicNumbers.add(patch.getAtomicNumber())) {
+      return ParsedLine.rejected(lineNumber, patch,
+          new ElementPatchMerger.DuplicateAtomicNumberException(
+              "Each element can only be patched once per request, duplicated atomic number : "
+                  + patch.getAtomicNumber()));
+    }
+    return ParsedLine.accepted(lineNumber, patch);
+  }
+
+  private static String describe(Set<ConstraintViolation<ElementPatchRequestDto>> violations) {
+    return violations.stream()
+        .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+        .collect(Collectors.joining(", "));
+  }
+
+  private static boolean isBlank(byte[] buffer, int length) {
+    for (int i = 0; i < length; i++) {
+      if (!Character.isWhitespace(buffer[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
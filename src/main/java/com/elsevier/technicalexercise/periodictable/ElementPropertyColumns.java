@@ -0,0 +1,332 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Numeric properties of the elements of a snapshot, normalized into primitive columns.
+ * Each property is held as a {@code double[]} indexed by the position of the element in the
+ * snapshot, with a bitmap of the positions that have a value, and a permutation of those
+ * positions sorted by value. A range filter is two binary searches over the sorted values, and
+ * a top-k is a scan of the permutation, so queries never parse or box the stored values.
+ * Sets of positions are bitmaps of {@code long} words, position {@code p} being bit
+ * {@code p % 64} of word {@code p / 64}.
+ */
+final class ElementPropertyColumns {
+  /**
+   * Leading figure of a stored value, and the end of the range when it is one such as
+   * {@code "623–823 K"}, which is read as its midpoint. Qualifiers before it, such as
+   * {@code "~"}, {@code "?"} or {@code "beta:"}, and uncertainties or other units after it are
+   * ignored.
+   */
+  private static final Pattern LEADING_FIGURE = Pattern.compile(
+      "^[^0-9]*?(\\d+(?:\\.\\d+)?(?:[eE][-+]?\\d+)?)(?:\\s*[\\u2013-]\\s*(\\d+(?:\\.\\d+)?))?");
+
+  private final int size;
+  private final double[][] values;
+  private final long[][] present;
+  private final int[][] sortedPositions;
+  private final double[][] sortedValues;
+
+  /**
+   * A numeric property that can be filtered and sorted on.
+   */
+  enum NumericProperty {
+    ATOMIC_WEIGHT("atomicWeight", ElementEntity::atomicWeight),
+    BOILING_POINT("boilingPoint", ElementEntity::boilingPoint),
+    MELTING_POINT("meltingPoint", ElementEntity::meltingPoint),
+    DENSITY_AT_STP("densityAtStp", ElementEntity::densityAtStp);
+
+    private final String parameterName;
+    private final Function<ElementEntity, String> storedValue;
+
+    NumericProperty(String parameterName, Function<ElementEntity, String> storedValue) {
+      this.parameterName = parameterName;
+      this.storedValue = storedValue;
+    }
+
+    /**
+     * Gets the name of the property in query parameters.
+     *
+     * @return the name, e.g. "boilingPoint"
+     */
+    String parameterName() {
+      return parameterName;
+    }
+
+    /**
+     * Finds a property by its name in query parameters.
+     *
+     * @param parameterName the name, e.g. "boilingPoint"
+     * @return the property, or empty when there is none with that name
+     */
+    static Optional<NumericProperty> fromParameterName(String parameterName) {
+      return Arrays.stream(values())
+          .filter(property -> property.parameterName.equals(parameterName))
+          .findFirst();
+    }
+  }
+
+  /**
+   * Normalizes the numeric properties of elements.
+   *
+   * @param elements the elements, in snapshot order
+   */
+  ElementPropertyColumns(List<ElementEntity> elements) {
+    this.size = elements.size();
+    int propertyCount = NumericProperty.values().length;
+    this.values = new double[propertyCount][];
+    this.present = new long[propertyCount][];
+    this.sortedPositions = new int[propertyCount][];
+    this.sortedValues = new double[propertyCount][];
+    for (NumericProperty property : NumericProperty.values()) {
+      int column = property.ordinal();
+      double[] columnValues = new double[this.size];
+      long[] columnPresent = new long[words(this.size)];
+      List<Integer> positions = new ArrayList<>(this.size);
+      for (int position = 0; position < this.size; position++) {
+        Double value = parse(property.storedValue.apply(elements.get(position)));
+        if (value != null) {
+          columnValues[position] = value;
+          set(columnPresent, position);
+          positions.add(position);
+        }
+      }
+      // The sort is stable, so equal values keep the snapshot order.
+      positions.sort((left, right) ->
+          Double.compare(columnValues[left], columnValues[right]));
+      this.values[column] = columnValues;
+      this.present[column] = columnPresent;
+      this.sortedPositions[column] = positions.stream().mapToInt(Integer::intValue).toArray();
+      this.sortedValues[column] = Arrays.stream(this.sortedPositions[column])
+          .mapToDouble(position -> columnValues[position])
+          .toArray();
+    }
+  }
+
+  /**
+   * Normalizes a stored value into a number.
+   * Numbers are read as is. Text is read from its leading figure, so {@code "? 950 K"} is 950
+   * and {@code "912±3 K"} is 912; a range such as {@code "623–823 K"} is read as its midpoint.
+   *
+   * @param storedValue the stored value
+   * @return the number, or null when the value is missing, "n/a" or has no figure
+   */
+  static Double parse(String storedValue) {
+    if (storedValue == null) {
+      return null;
+    }
+    Matcher matcher = LEADING_FIGURE.matcher(storedValue.strip());
+    if (!matcher.find()) {
+      return null;
+    }
+    double value = Double.parseDouble(matcher.group(1));
+    if (matcher.group(2) != null) {
+      value = (value + Double.parseDouble(matcher.group(2))) / 2;
+    }
+    return value;
+  }
+
+  /**
+   * Gets the normalized value of a property.
+   *
+   * @param property the property
+   * @param position the position of the element in the snapshot
+   * @return the value, or null when the element has none
+   */
+  Double value(NumericProperty property, int position) {
+    if (!isSet(this.present[property.ordinal()], position)) {
+      return null;
+    }
+    return this.values[property.ordinal()][position];
+  }
+
+  /**
+   * Gets the positions of every element.
+   *
+   * @return a new bitmap with every position set
+   */
+  long[] all() {
+    long[] positions = new long[words(this.size)];
+    for (int position = 0; position < this.size; position++) {
+      set(positions, position);
+    }
+    return positions;
+  }
+
+  /**
+   * Gets the positions of the elements whose value of a property is within bounds.
+   * Elements without a value are never within bounds.
+   *
+   * @param property the property
+   * @param range    the bounds; a null bound is not checked
+   * @return a new bitmap of the matching positions
+   */
+  long[] range(NumericProperty property, RangeFilter range) {
+    double[] sorted = this.sortedValues[property.ordinal()];
+    int from = 0;
+    int to = sorted.length;
+    if (range.getGt() != null) {
+      from = Math.max(from, upperBound(sorted, range.getGt()));
+    }
+    if (range.getGte() != null) {
+      from = Math.max(from, lowerBound(sorted, range.getGte()));
+    }
+    if (range.getLt() != null) {
+      to = Math.min(to, lowerBound(sorted, range.getLt()));
+    }
+    if (range.getLte() != null) {
+      to = Math.min(to, upperBound(sorted, range.getLte()));
+    }
+    long[] positions = new long[words(this.size)];
+    int[] permutation = this.sortedPositions[property.ordinal()];
+    for (int index = from; index < to; index++) {
+      set(positions, permutation[index]);
+    }
+    return positions;
+  }
+
+  /**
+   * Lists the positions of a bitmap in snapshot order.
+   *
+   * @param positions the bitmap
+   * @param limit     the largest number of positions to list
+   * @return the positions
+   */
+  int[] inOrder(long[] positions, int limit) {
+    int[] result = new int[Math.min(limit, cardinality(positions))];
+    int count = 0;
+    for (int word = 0; word < positions.length && count < result.length; word++) {
+      long bits = positions[word];
+      while (bits != 0 && count < result.length) {
+        result[count++] = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+        bits &= bits - 1;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Lists the positions of a bitmap ordered by the value of a property, elements with equal
+   * values and elements without a value, which come last, in snapshot order.
+   *
+   * @param positions  the bitmap
+   * @param property   the property to sort on
+   * @param descending whether the largest values come first
+   * @param limit      the largest number of positions to list
+   * @return the first positions in that order
+   */
+  int[] sortedBy(long[] positions, NumericProperty property, boolean descending, int limit) {
+    int[] result = new int[Math.min(limit, cardinality(positions))];
+    int count = 0;
+    int[] permutation = this.sortedPositions[property.ordinal()];
+    double[] sorted = this.sortedValues[property.ordinal()];
+    // Descending, the runs of equal values are taken from the end, each run from its start.
+    int end = permutation.length;
+    while (end > 0 && count < result.length) {
+      int start = 0;
+      if (descending) {
+        start = end - 1;
+        while (start > 0 && Double.compare(sorted[start - 1], sorted[end - 1]) == 0) {
+          start--;
+        }
+      }
+      for (int index = start; index < end && count < result.length; index++) {
+        if (isSet(positions, permutation[index])) {
+          result[count++] = permutation[index];
+        }
+      }
+      end = start;
+    }
+    long[] withValue = this.present[property.ordinal()];
+    for (int position = 0; position < this.size && count < result.length; position++) {
+      if (isSet(positions, position) && !isSet(withValue, position)) {
+        result[count++] = position;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Keeps in a bitmap only the positions that are also set in another.
+   *
+   * @param positions the bitmap to update
+   * @param other     the positions to keep
+   */
+  static void retainAll(long[] positions, long[] other) {
+    for (int word = 0; word < positions.length; word++) {
+      positions[word] &= other[word];
+    }
+  }
+
+  /**
+   * Adds to a bitmap the positions set in another.
+   *
+   * @param positions the bitmap to update
+   * @param other     the positions to add
+   */
+  static void addAll(long[] positions, long[] other) {
+    for (int word = 0; word < positions.length; word++) {
+      positions[word] |= other[word];
+    }
+  }
+
+  static int words(int size) {
+    return (size + Long.SIZE - 1) / Long.SIZE;
+  }
+
+  static void set(long[] positions, int position) {
+    positions[position / Long.SIZE] |= 1L << position;
+  }
+
+  static boolean isSet(long[] positions, int position) {
+    return (positions[position / Long.SIZE] & (1L << position)) != 0;
+  }
+
+  static int cardinality(long[] positions) {
+    int count = 0;
+    for (long word : positions) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+  /**
+   * Finds the first index whose value is not below the key.
+   */
+  private static int lowerBound(double[] sorted, double key) {
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (sorted[middle] < key) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Finds the first index whose value is above the key.
+   */
+  private static int upperBound(double[] sorted, double key) {
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (sorted[middle] <= key) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,43 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Query over the elements of a snapshot, answered from its indexes.
+ *
+ * @param facets     the normalized values accepted for each filtered facet; an element must
+ *                   hold one of the values of every facet
+ * @param ranges     the bounds on numeric properties that must all hold
+ * @param sort       the property to sort on, or null to keep the snapshot order
+ * @param descending whether the largest values of the sort property come first
+ * @param limit      the largest number of elements to return, or null for all of them
+ */
+record ElementQuery(
+    Map<ElementFacet, Set<String>> facets,
+    Map<ElementPropertyColumns.NumericProperty, RangeFilter> ranges,
+    ElementPropertyColumns.NumericProperty sort,
+    boolean descending,
+    Integer limit) {
+
+  /**
+   * Describes the query, so that equal queries have equal keys whatever the order of their
+   * parameters.
+   *
+   * @return the key of the query
+   */
+  String cacheKey() {
+    return facets.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .map(facet -> facet.getKey().parameterName() + "=" + new TreeSet<>(facet.getValue()))
+            .collect(Collectors.joining(";"))
+        + ";" + ranges.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .map(range -> range.getKey().parameterName() + "(" + range.getValue() + ")")
+            .collect(Collectors.joining(";"))
+        + ";sort=" + (sort == null ? null : (descending ? "-" : "") + sort.parameterName())
+        + ";limit=" + limit;
+  }
+}
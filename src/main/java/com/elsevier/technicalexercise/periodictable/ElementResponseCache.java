@@ -0,0 +1,265 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import com.elsevier.technicalexercise.api.SuccessResponseDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache of the serialized response bodies of the element GET endpoints.
+ * The bodies are fully determined by a snapshot, so they are rendered once per snapshot
+ * and replaced when the snapshot changes.
+ */
+@Component
+class ElementResponseCache {
+  /**
+   * Number of periodic table groups; group "n/a" is rendered at slot 0.
+   */
+  private static final int GROUP_COUNT = 18;
+
+  private final ObjectMapper objectMapper;
+  private final boolean gzipEnabled;
+  private volatile RenderedSnapshot renderedSnapshot;
+
+  /**
+   * A serialized response body and its optional gzip-compressed variant, each with a strong
+   * entity tag derived from the storage ETag and the query shape.
+   *
+   * @param identity     the serialized body
+   * @param identityEtag the entity tag of the serialized body
+   * @param gzip         the gzip-compressed body, or null when compression is disabled
+   * @param gzipEtag     the entity tag of the gzip-compressed body, or null
+   */
+  record RenderedBody(byte[] identity, String identityEtag, byte[] gzip, String gzipEtag) {
+  }
+
+  /**
+   * Response bodies rendered for one snapshot.
+   */
+  static final class RenderedSnapshot {
+    private final PeriodicTableSnapshot snapshot;
+    private final RenderedBody allElements;
+    private final List<RenderedBody> elementsByGroup;
+    private final Map<ElementEntity, RenderedBody> elementDetails;
+
+    private RenderedSnapshot(PeriodicTableSnapshot snapshot, RenderedBody allElements,
+                             List<RenderedBody> elementsByGroup,
+                             Map<ElementEntity, RenderedBody> elementDetails) {
+      this.snapshot = snapshot;
+      this.allElements = allElements;
+      this.elementsByGroup = elementsByGroup;
+      this.elementDetails = elementDetails;
+    }
+
+    /**
+     * Gets the body of the element listing.
+     *
+     * @param group the group filter (1-18 or "n/a"), or null for all elements
+     * @return the rendered listing
+     */
+    RenderedBody listing(String group) {
+      if (group == null) {
+        return allElements;
+      }
+      Integer groupNumber = GroupBlock.parseGroup(group);
+      return elementsByGroup.get(groupNumber == null ? 0 : groupNumber);
+    }
+
+    /**
+     * Gets the body of an element detail.
+     *
+     * @param atomicNumber the atomic number of the element
+     * @return the rendered detail, or null when there is no such element
+     */
+    RenderedBody element(int atomicNumber) {
+      ElementEntity element = snapshot.getElement(atomicNumber);
+      return element == null ? null : elementDetails.get(element);
+    }
+  }
+
+  /**
+   * Constructs a new ElementResponseCache.
+   *
+   * @param objectMapper the object mapper used for HTTP responses
+   * @param gzipEnabled  whether gzip-compressed variants are rendered as well
+   */
+  ElementResponseCache(ObjectMapper objectMapper,
+                       @Value("${periodic-table.response.gzip.enabled:true}")
+                       boolean gzipEnabled) {
+    this.objectMapper = objectMapper;
+    this.gzipEnabled = gzipEnabled;
+  }
+
+  /**
+   * Gets the response bodies for a snapshot, rendering them when the snapshot changed.
+   *
+   * @param snapshot the current snapshot
+   * @return the rendered response bodies
+   */
+  RenderedSnapshot forSnapshot(PeriodicTableSnapshot snapshot) {
+    RenderedSnapshot current = this.renderedSnapshot;
+    if (current != null && current.snapshot == snapshot) {
+      return current;
+    }
+    synchronized (this) {
+      current = this.renderedSnapshot;
+      if (current == null || current.snapshot != snapshot) {
+        current = render(snapshot);
+        this.renderedSnapshot = current;
+      }
+      return current;
+    }
+  }
+
+  /**
+   * Renders the body of an element listing with ranges, a sort or a limit.
+   * There are too many such queries to render them ahead, so the body is rendered for each
+   * request, without a gzip-compressed variant. Its entity tag is derived from the storage
+   * ETag and the query, so equal queries on the same snapshot can still be revalidated.
+   *
+   * @param snapshot the current snapshot
+   * @param query    the query
+   * @return the rendered listing
+   */
+  RenderedBody query(PeriodicTableSnapshot snapshot, ElementQuery query) {
+    String entityTag = entityTagVersion(snapshot.etag()) + "-elements-query-"
+        + UUID.nameUUIDFromBytes(query.cacheKey().getBytes(StandardCharsets.UTF_8));
+    try {
+      byte[] identity = this.objectMapper.writeValueAsBytes(SuccessResponseDto.fromListOfItems(
+          snapshot.query(query).stream()
+              .map(ElementDto::fromElement)
+              .toList()));
+      return new RenderedBody(identity, quote(entityTag), null, null);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Renders the matches of a type-ahead search. Searches are not cached, since their
+   * queries are many and short-lived, but the entity tag is derived from the storage ETag and
+   * the normalized query, so a repeated search on the same snapshot can still be revalidated.
+   *
+   * @param snapshot the current snapshot
+   * @param query    the text typed so far
+   * @param limit    the largest number of matches to return
+   * @return the rendered matches
+   */
+  RenderedBody search(PeriodicTableSnapshot snapshot, String query, int limit) {
+    String entityTag = entityTagVersion(snapshot.etag()) + "-elements-search-"
+        + UUID.nameUUIDFromBytes((ElementSearchIndex.normalize(query) + ";limit=" + limit)
+            .getBytes(StandardCharsets.UTF_8));
+    try {
+      byte[] identity = this.objectMapper.writeValueAsBytes(SuccessResponseDto.fromListOfItems(
+          snapshot.search(query, limit).stream()
+              .map(match -> ElementSearchResultDto.fromMatch(
+                  snapshot.elements().get(match.position()), match))
+              .toList()));
+      return new RenderedBody(identity, quote(entityTag), null, null);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Renders the details of several elements, resolved against the atomic number index of the
+   * snapshot in one pass. Elements are listed in request order, and a missing atomic number
+   * gets an item with an error instead of failing the whole response.
+   *
+   * @param snapshot      the current snapshot
+   * @param atomicNumbers the requested atomic numbers
+   * @return the rendered items
+   */
+  RenderedBody batch(PeriodicTableSnapshot snapshot, int[] atomicNumbers) {
+    StringBuilder key = new StringBuilder();
+    List<ElementBatchItemDto> items = new ArrayList<>(atomicNumbers.length);
+    for (int atomicNumber : atomicNumbers) {
+      key.append(atomicNumber).append(',');
+      items.add(ElementBatchItemDto.fromElement(atomicNumber, snapshot.getElement(atomicNumber)));
+    }
+    String entityTag = entityTagVersion(snapshot.etag()) + "-elements-batch-"
+        + UUID.nameUUIDFromBytes(key.toString().getBytes(StandardCharsets.UTF_8));
+    try {
+      byte[] identity = this.objectMapper.writeValueAsBytes(
+          SuccessResponseDto.fromListOfItems(items));
+      return new RenderedBody(identity, quote(entityTag), null, null);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private RenderedSnapshot render(PeriodicTableSnapshot snapshot) {
+    String version = entityTagVersion(snapshot.etag());
+    RenderedBody allElements = renderListing(snapshot.elements(), version + "-elements");
+    List<RenderedBody> elementsByGroup = new ArrayList<>(GROUP_COUNT + 1);
+    elementsByGroup.add(renderListing(snapshot.findElementsByGroup(null),
+        version + "-elements-group-na"));
+    for (int group = 1; group <= GROUP_COUNT; group++) {
+      elementsByGroup.add(renderListing(snapshot.findElementsByGroup(group),
+          version + "-elements-group-" + group));
+    }
+    Map<ElementEntity, RenderedBody> elementDetails = new IdentityHashMap<>();
+    for (ElementEntity element : snapshot.elements()) {
+      elementDetails.put(element,
+          renderBody(SuccessResponseDto.fromSingleItem(ElementDetailDto.fromElement(element)),
+              version + "-element-" + element.atomicNumber()));
+    }
+    return new RenderedSnapshot(snapshot, allElements, List.copyOf(elementsByGroup),
+        elementDetails);
+  }
+
+  private RenderedBody renderListing(List<ElementEntity> elements, String entityTag) {
+    return renderBody(SuccessResponseDto.fromListOfItems(
+        elements.stream()
+            .map(ElementDto::fromElement)
+            .toList()), entityTag);
+  }
+
+  private RenderedBody renderBody(Object body, String entityTag) {
+    try {
+      byte[] identity = this.objectMapper.writeValueAsBytes(body);
+      if (!this.gzipEnabled) {
+        return new RenderedBody(identity, quote(entityTag), null, null);
+      }
+      return new RenderedBody(identity, quote(entityTag), gzip(identity),
+          quote(entityTag + "-gzip"));
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Gets the storage ETag without quotes, so it can be embedded in other entity tags.
+   */
+  private static String entityTagVersion(String storageEtag) {
+    if (storageEtag == null) {
+      return "unversioned";
+    }
+    return storageEtag.replace("\"", "");
+  }
+
+  private static String quote(String entityTag) {
+    return "\"" + entityTag + "\"";
+  }
+
+  private static byte[] gzip(byte[] content) {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 4);
+    try (GZIPOutputStream gzipStream = new GZIPOutputStream(compressed)) {
+      gzipStream.write(content);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return compressed.toByteArray();
+  }
+}
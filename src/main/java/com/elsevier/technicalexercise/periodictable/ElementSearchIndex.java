@@ -0,0 +1,309 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Type-ahead index over the names and symbols of the elements of a snapshot.
+ * Every searchable term is inserted in a trie whose nodes hold, ranked ahead, the matches of
+ * the terms below them, so a prefix search is a walk down the query and a copy of the first
+ * matches. When prefixes do not fill the result, a trigram index of the terms finds similar
+ * spellings by merging the posting lists of the trigrams of the query, without scanning the
+ * elements.
+ */
+final class ElementSearchIndex {
+  /**
+   * Smallest share of trigrams, as a Dice coefficient, for a term to be a fuzzy match.
+   */
+  private static final double MIN_SIMILARITY = 0.4;
+
+  /**
+   * Shortest query looked up by spelling; shorter queries share too few trigrams with any
+   * term to tell a misspelling from noise.
+   */
+  private static final int MIN_FUZZY_LENGTH = 3;
+
+  private static final int[] NO_TERMS = new int[0];
+  private static final Pattern REMARK = Pattern.compile("\\([^)]*\\)");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private final List<Term> terms;
+  private final Node root;
+  private final Map<String, int[]> termsByTrigram;
+  private final int[] trigramCounts;
+
+  /**
+   * Attribute a term comes from, in ranking order.
+   */
+  enum Field {
+    SYMBOL,
+    NAME,
+    ALTERNATIVE_NAME,
+    ALTERNATIVE_NAMES,
+    WORD
+  }
+
+  /**
+   * How a match was found.
+   */
+  enum MatchType {
+    EXACT,
+    PREFIX,
+    FUZZY
+  }
+
+  /**
+   * A searchable term of an element.
+   *
+   * @param text     the normalized term
+   * @param position the position of the element in the snapshot
+   * @param field    the attribute the term comes from
+   */
+  private record Term(String text, int position, Field field) {
+  }
+
+  /**
+   * A search result.
+   *
+   * @param position the position of the element in the snapshot
+   * @param term     the normalized term that matched
+   * @param type     how the term matched
+   */
+  record Match(int position, String term, MatchType type) {
+  }
+
+  /**
+   * Node of the trie. Children are kept sorted by character and searched by bisection.
+   * Terms ending at the node and terms below it are both kept as term ids, in ranking order
+   * and with one term per element.
+   */
+  private static final class Node {
+    private char[] labels = new char[0];
+    private Node[] children = new Node[0];
+    private final List<Integer> endingTermIds = new ArrayList<>();
+    private int[] ranked;
+    private int[] rankedEnding;
+
+    private Node child(char label) {
+      int index = Arrays.binarySearch(labels, label);
+      return index < 0 ? null : children[index];
+    }
+
+    private Node childOrNew(char label) {
+      int index = Arrays.binarySearch(labels, label);
+      if (index >= 0) {
+        return children[index];
+      }
+      int insertion = -index - 1;
+      Node child = new Node();
+      char[] newLabels = new char[labels.length + 1];
+      Node[] newChildren = new Node[children.length + 1];
+      System.arraycopy(labels, 0, newLabels, 0, insertion);
+      System.arraycopy(children, 0, newChildren, 0, insertion);
+      newLabels[insertion] = label;
+      newChildren[insertion] = child;
+      System.arraycopy(labels, insertion, newLabels, insertion + 1, labels.length - insertion);
+      System.arraycopy(children, insertion, newChildren, insertion + 1,
+          children.length - insertion);
+      labels = newLabels;
+      children = newChildren;
+      return child;
+    }
+  }
+
+  /**
+   * Builds the trie and the trigram index of the elements.
+   *
+   * @param elements the elements, in snapshot order
+   */
+  ElementSearchIndex(List<ElementEntity> elements) {
+    this.terms = new ArrayList<>();
+    for (int position = 0; position < elements.size(); position++) {
+      addTerms(this.terms, elements.get(position), position);
+    }
+    Comparator<Integer> ranking = Comparator
+        .<Integer>comparingInt(id -> this.terms.get(id).field().ordinal())
+        .thenComparingInt(id -> this.terms.get(id).text().length())
+        .thenComparingInt(id -> this.terms.get(id).position());
+
+    this.root = new Node();
+    for (int id = 0; id < this.terms.size(); id++) {
+      Node node = this.root;
+      for (char label : this.terms.get(id).text().toCharArray()) {
+        node = node.childOrNew(label);
+      }
+      node.endingTermIds.add(id);
+    }
+    rank(this.root, ranking);
+
+    Map<String, List<Integer>> trigrams = new HashMap<>();
+    this.trigramCounts = new int[this.terms.size()];
+    for (int id = 0; id < this.terms.size(); id++) {
+      Set<String> termTrigrams = trigrams(this.terms.get(id).text());
+      this.trigramCounts[id] = termTrigrams.size();
+      for (String trigram : termTrigrams) {
+        trigrams.computeIfAbsent(trigram, ignored -> new ArrayList<>()).add(id);
+      }
+    }
+    Map<String, int[]> postings = new HashMap<>();
+    trigrams.forEach((trigram, ids) ->
+        postings.put(trigram, ids.stream().mapToInt(Integer::intValue).toArray()));
+    this.termsByTrigram = Map.copyOf(postings);
+  }
+
+  /**
+   * Finds the elements whose terms start with the query, then those spelled like it.
+   * Exact matches come first, then prefix matches by field, term length and snapshot order,
+   * then, for queries of three characters or more, fuzzy matches by similarity.
+   *
+   * @param query the text typed so far
+   * @param limit the largest number of matches to return
+   * @return the matches, at most one per element
+   */
+  List<Match> search(String query, int limit) {
+    String text = normalize(query);
+    List<Match> matches = new ArrayList<>(Math.min(limit, 16));
+    if (text.isEmpty() || limit <= 0) {
+      return matches;
+    }
+    Set<Integer> seen = new LinkedHashSet<>();
+    Node node = this.root;
+    for (int index = 0; index < text.length() && node != null; index++) {
+      node = node.child(text.charAt(index));
+    }
+    if (node != null) {
+      collect(node.rankedEnding, MatchType.EXACT, matches, seen, limit);
+      collect(node.ranked, MatchType.PREFIX, matches, seen, limit);
+    }
+    if (matches.size() < limit && text.length() >= MIN_FUZZY_LENGTH) {
+      this.collectFuzzy(text, matches, seen, limit);
+    }
+    return matches;
+  }
+
+  private void collect(int[] termIds, MatchType type, List<Match> matches, Set<Integer> seen,
+                       int limit) {
+    for (int index = 0; index < termIds.length && matches.size() < limit; index++) {
+      Term term = this.terms.get(termIds[index]);
+      if (seen.add(term.position())) {
+        matches.add(new Match(term.position(), term.text(), type));
+      }
+    }
+  }
+
+  private void collectFuzzy(String text, List<Match> matches, Set<Integer> seen, int limit) {
+    Set<String> queryTrigrams = trigrams(text);
+    Map<Integer, Integer> sharedByTermId = new HashMap<>();
+    for (String trigram : queryTrigrams) {
+      for (int id : this.termsByTrigram.getOrDefault(trigram, NO_TERMS)) {
+        sharedByTermId.merge(id, 1, Integer::sum);
+      }
+    }
+    TreeMap<Double, List<Integer>> termIdsBySimilarity =
+        new TreeMap<>(Comparator.reverseOrder());
+    sharedByTermId.forEach((id, shared) -> {
+      double similarity = 2.0 * shared / (queryTrigrams.size() + this.trigramCounts[id]);
+      if (similarity >= MIN_SIMILARITY) {
+        termIdsBySimilarity.computeIfAbsent(similarity, ignored -> new ArrayList<>()).add(id);
+      }
+    });
+    for (List<Integer> ids : termIdsBySimilarity.values()) {
+      ids.sort(Integer::compare);
+      collect(ids.stream().mapToInt(Integer::intValue).toArray(), MatchType.FUZZY, matches, seen,
+          limit);
+    }
+  }
+
+  /**
+   * Ranks the terms ending at and below every node, keeping the best term of each element.
+   */
+  private int[] rank(Node node, Comparator<Integer> ranking) {
+    List<Integer> ending = new ArrayList<>(node.endingTermIds);
+    ending.sort(ranking);
+    node.rankedEnding = bestPerElement(ending);
+    List<Integer> below = new ArrayList<>(ending);
+    for (Node child : node.children) {
+      for (int id : rank(child, ranking)) {
+        below.add(id);
+      }
+    }
+    below.sort(ranking);
+    node.ranked = bestPerElement(below);
+    return node.ranked;
+  }
+
+  private int[] bestPerElement(List<Integer> rankedTermIds) {
+    Set<Integer> positions = new LinkedHashSet<>();
+    List<Integer> best = new ArrayList<>(rankedTermIds.size());
+    for (int id : rankedTermIds) {
+      if (positions.add(this.terms.get(id).position())) {
+        best.add(id);
+      }
+    }
+    return best.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  private static void addTerms(List<Term> terms, ElementEntity element, int position) {
+    Set<String> added = new LinkedHashSet<>();
+    addTerm(terms, added, element.symbol(), position, Field.SYMBOL);
+    addTerm(terms, added, element.name(), position, Field.NAME);
+    addTerm(terms, added, element.alternativeName(), position, Field.ALTERNATIVE_NAME);
+    if (element.alternativeNames() != null) {
+      for (String alternativeName : element.alternativeNames().split(",")) {
+        addTerm(terms, added, alternativeName, position, Field.ALTERNATIVE_NAMES);
+      }
+    }
+    // Later words of a term, so "thallium" finds "eka-thallium".
+    for (String term : List.copyOf(added)) {
+      String[] words = term.split("[ -]");
+      for (int index = 1; index < words.length; index++) {
+        addTerm(terms, added, words[index], position, Field.WORD);
+      }
+    }
+  }
+
+  private static void addTerm(List<Term> terms, Set<String> added, String value, int position,
+                              Field field) {
+    if (value == null || value.strip().equalsIgnoreCase("n/a")) {
+      return;
+    }
+    String text = normalize(value);
+    if (!text.isEmpty() && added.add(text)) {
+      terms.add(new Term(text, position, field));
+    }
+  }
+
+  /**
+   * Normalizes a term or a query: lower case, without parenthesized remarks such as
+   * "(US)", and with single spaces.
+   *
+   * @param value the term or query
+   * @return the normalized text
+   */
+  static String normalize(String value) {
+    String text = REMARK.matcher(value.toLowerCase(Locale.ROOT)).replaceAll(" ");
+    return WHITESPACE.matcher(text).replaceAll(" ").strip();
+  }
+
+  /**
+   * Gets the trigrams of a text padded with two leading and one trailing space, so that short
+   * texts and word starts have trigrams of their own.
+   */
+  private static Set<String> trigrams(String text) {
+    String padded = "  " + text + " ";
+    Set<String> trigrams = new LinkedHashSet<>();
+    for (int index = 0; index + 3 <= padded.length(); index++) {
+      trigrams.add(padded.substring(index, index + 3));
+    }
+    return trigrams;
+  }
+}
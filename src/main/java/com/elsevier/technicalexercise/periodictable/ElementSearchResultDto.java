@@ -0,0 +1,21 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import java.util.Locale;
+
+/**
+ * Data transfer object for an element found by a type-ahead search.
+ *
+ * @param name         the element name
+ * @param atomicNumber the atomic number
+ * @param symbol       the element symbol
+ * @param matchedTerm  the name, symbol or alternative name that matched, normalized
+ * @param match        how the term matched: exact, prefix or fuzzy
+ */
+public record ElementSearchResultDto(String name, int atomicNumber, String symbol,
+                                     String matchedTerm, String match) {
+  static ElementSearchResultDto fromMatch(ElementEntity element,
+                                          ElementSearchIndex.Match match) {
+    return new ElementSearchResultDto(element.name(), element.atomicNumber(), element.symbol(),
+        match.term(), match.type().name().toLowerCase(Locale.ROOT));
+  }
+}
@@ -0,0 +1,60 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Structured form of the {@code group_block} attribute of an element,
+ * e.g. "group 18 (noble gases), p-block".
+ *
+ * @param group the group number (1-18), or null when the group is "n/a"
+ * @param label the optional group label, e.g. "noble gases", or null
+ * @param block the block letter, one of 's', 'p', 'd', 'f' or 'g'
+ */
+record GroupBlock(Integer group, String label, char block) {
+  private static final Pattern GROUP_PATTERN =
+      Pattern.compile("^group (n/a|[0-9]{1,2})(?: \\(([a-zA-Z ]+)\\))?$", Pattern.CASE_INSENSITIVE);
+  private static final Pattern BLOCK_PATTERN =
+      Pattern.compile("^([spdfg])-block$", Pattern.CASE_INSENSITIVE);
+
+  /**
+   * Parses a group block string in the format "group X, Y-block".
+   *
+   * @param value the group block to parse
+   * @return the parsed group block, or empty when the value is malformed
+   */
+  static Optional<GroupBlock> parse(String value) {
+    if (value == null) {
+      return Optional.empty();
+    }
+    String[] parts = value.split(",");
+    if (parts.length != 2) {
+      return Optional.empty();
+    }
+
+    Matcher groupMatcher = GROUP_PATTERN.matcher(parts[0].trim());
+    Matcher blockMatcher = BLOCK_PATTERN.matcher(parts[1].trim());
+    if (!groupMatcher.matches() || !blockMatcher.matches()) {
+      return Optional.empty();
+    }
+    String groupNum = groupMatcher.group(1);
+    if (!ValidGroup.GroupValidator.validateGroup(groupNum)) {
+      return Optional.empty();
+    }
+    Integer group = "n/a".equalsIgnoreCase(groupNum) ? null : Integer.parseInt(groupNum);
+    return Optional.of(new GroupBlock(group, groupMatcher.group(2),
+        Character.toLowerCase(blockMatcher.group(1).charAt(0))));
+  }
+
+  /**
+   * Parses a group filter value, as accepted by {@link ValidGroup}.
+   *
+   * @param value the group number (1-18) or "n/a"
+   * @return the group number, or null for "n/a"
+   * @throws NumberFormatException when the value is neither a number nor "n/a"
+   */
+  static Integer parseGroup(String value) {
+    return "n/a".equalsIgnoreCase(value) ? null : Integer.parseInt(value);
+  }
+}
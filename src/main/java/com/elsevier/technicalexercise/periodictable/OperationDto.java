@@ -0,0 +1,17 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Data transfer object for the state of a patch accepted by the write-behind mode.
+ */
+public record OperationDto(String id, String status, List<Integer> changedAtomicNumbers,
+                           String etag, String versionId, String errorReason,
+                           String errorMessage) {
+  static OperationDto fromOperation(PeriodicTableOperation operation) {
+    return new OperationDto(operation.id(), operation.status().name().toLowerCase(Locale.ROOT),
+        operation.changedAtomicNumbers(), operation.etag(), operation.versionId(),
+        operation.errorReason(), operation.errorMessage());
+  }
+}
@@ -0,0 +1,13 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk patch of the periodic table.
+ * Contains the update made with the accepted lines, or null when no line was accepted and
+ * nothing was written, and the outcome of reading every line.
+ */
+record PeriodicTableBulkUpdate(
+    PeriodicTableUpdate update,
+    List<ElementPatchNdjsonReader.ParsedLine> lines) {
+}
@@ -0,0 +1,99 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Folds the delta log into a new base in the background, so readers starting cold download
+ * one base and a short tail of deltas instead of the whole log.
+ * Every instance compacts, at a randomly jittered interval; the conditional put of the base
+ * lets only one of them win each round.
+ */
+@Component
+@ConditionalOnProperty(name = "periodic-table.storage.mode", havingValue = "delta-log")
+class PeriodicTableCompactor implements ApplicationRunner, DisposableBean {
+  private static final Logger logger = LoggerFactory.getLogger(PeriodicTableCompactor.class);
+
+  private static final double JITTER = 0.25;
+
+  private final DeltaLogPeriodicTableStore periodicTableStore;
+  private final boolean enabled;
+  private final Duration interval;
+  private final long minDeltas;
+  private volatile boolean stopped;
+
+  /**
+   * Constructs a new PeriodicTableCompactor.
+   *
+   * @param periodicTableStore the delta log store
+   * @param enabled            whether the delta log is compacted in the background
+   * @param interval           the time between two compactions
+   * @param minDeltas          the number of deltas since the base below which nothing is done
+   */
+  PeriodicTableCompactor(DeltaLogPeriodicTableStore periodicTableStore,
+                         @Value("${periodic-table.storage.delta-log.compaction.enabled:true}")
+                         boolean enabled,
+                         @Value("${periodic-table.storage.delta-log.compaction.interval:5m}")
+                         Duration interval,
+                         @Value("${periodic-table.storage.delta-log.compaction.min-deltas:20}")
+                         long minDeltas) {
+    this.periodicTableStore = periodicTableStore;
+    this.enabled = enabled;
+    this.interval = interval;
+    this.minDeltas = minDeltas;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (this.enabled) {
+      this.schedule();
+    }
+  }
+
+  @Override
+  public void destroy() {
+    this.stopped = true;
+  }
+
+  /**
+   * Compacts the delta log once if enough deltas were appended since the base.
+   * A compaction lost to another instance, or failing, is left to the next round.
+   *
+   * @return a future that will complete once the compaction is done
+   */
+  CompletableFuture<Void> compact() {
+    return this.periodicTableStore.compact(this.minDeltas)
+        .thenAccept(compacted -> {
+          if (compacted) {
+            logger.info("Periodic table delta log compacted into a new base");
+          }
+        })
+        .exceptionally(ex -> {
+          logger.warn("Periodic table compaction failed: {}", ex.getMessage());
+          return null;
+        });
+  }
+
+  private void schedule() {
+    if (this.stopped) {
+      return;
+    }
+    double spread = (ThreadLocalRandom.current().nextDouble() * 2 - 1) * JITTER;
+    long delayMillis = Math.max(0, Math.round(this.interval.toMillis() * (1 + spread)));
+    CompletableFuture.runAsync(() -> {
+      if (!this.stopped) {
+        this.compact().whenComplete((ignored, ex) -> this.schedule());
+      }
+    }, CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS));
+  }
+}
@@ -0,0 +1,45 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Health of the periodic table snapshot.
+ * Reports out of service until the startup warm-up has loaded the snapshot, so the readiness
+ * probe keeps traffic away from a pod whose hot path is still cold.
+ * Also reports when the background refresher last confirmed the snapshot and its ETag.
+ */
+@Component
+class PeriodicTableHealthIndicator implements HealthIndicator {
+  private final PeriodicTableWarmup periodicTableWarmup;
+  private final PeriodicTableRefresher periodicTableRefresher;
+
+  /**
+   * Constructs a new PeriodicTableHealthIndicator.
+   *
+   * @param periodicTableWarmup    the startup warm-up of the snapshot
+   * @param periodicTableRefresher the background refresher of the snapshot
+   */
+  PeriodicTableHealthIndicator(PeriodicTableWarmup periodicTableWarmup,
+                               PeriodicTableRefresher periodicTableRefresher) {
+    this.periodicTableWarmup = periodicTableWarmup;
+    this.periodicTableRefresher = periodicTableRefresher;
+  }
+
+  @Override
+  public Health health() {
+    Health.Builder builder = this.periodicTableWarmup.isWarm()
+        ? Health.up().withDetail("snapshot", "loaded")
+        : Health.outOfService().withDetail("snapshot", "loading");
+    // A failing refresh keeps serving the last snapshot, so it does not affect the status.
+    if (this.periodicTableRefresher.getLastRefreshAt() != null) {
+      builder.withDetail("lastRefreshAt", this.periodicTableRefresher.getLastRefreshAt())
+          .withDetail("etag", this.periodicTableRefresher.getLastRefreshEtag());
+    }
+    return builder
+        .withDetail("consecutiveRefreshFailures",
+            this.periodicTableRefresher.getConsecutiveFailures())
+        .build();
+  }
+}
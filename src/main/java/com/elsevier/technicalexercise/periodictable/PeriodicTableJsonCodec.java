@@ -0,0 +1,343 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.stereotype.Component;
+
+/**
+ * Readers and writers for the stored periodic table document.
+ * They are configured once and shared, so Jackson's serializer and deserializer caches
+ * survive across requests. Jackson readers and writers are immutable and thread-safe.
+ * Elements are read with a streaming projection that only materializes the requested
+ * attributes and skips the others, including large text attributes such as {@code iso}.
+ * Documents stored with the {@code gzip} content encoding are decompressed while they are
+ * parsed, without materializing the decompressed document.
+ */
+@Component
+class PeriodicTableJsonCodec {
+  /**
+   * Attributes materialized for an {@link ElementEntity}, in projection order.
+   */
+  static final List<String> ELEMENT_FIELDS =
+      List.of("name", "atomic_number", "alternative_name", "group_block", "atomic_weight",
+          "boiling_point", "melting_point", "density_at_stp", "period", "element_category",
+          "phase", "symbol", "alternative_names");
+
+  /**
+   * Content encoding of documents stored gzip-compressed.
+   */
+  static final String GZIP_ENCODING = "gzip";
+
+  private final ObjectMapper documentMapper;
+  private final JsonFactory jsonFactory;
+  private final ObjectReader documentReader;
+  private final ObjectWriter documentWriter;
+  private final ObjectReader rowReader;
+  private final ObjectWriter rowWriter;
+
+  /**
+   * Constructs a new PeriodicTableJsonCodec.
+   */
+  PeriodicTableJsonCodec() {
+    this.documentMapper = new ObjectMapper();
+    this.jsonFactory = this.documentMapper.getFactory();
+    this.documentReader =
+        this.documentMapper.readerFor(new TypeReference<List<Map<String, Object>>>() {
+        });
+    this.documentWriter =
+        this.documentMapper.writerFor(new TypeReference<List<Map<String, Object>>>() {
+        });
+    this.rowReader = this.documentMapper.readerFor(new TypeReference<Map<String, Object>>() {
+    });
+    this.rowWriter = this.documentMapper.writerFor(new TypeReference<Map<String, Object>>() {
+    });
+  }
+
+  /**
+   * Reads the full document, keeping every attribute of every element.
+   *
+   * @param content the stored document
+   * @return the elements as attribute maps
+   * @throws IOException when the content is not a valid document
+   */
+  List<Map<String, Object>> readDocument(byte[] content) throws IOException {
+    return this.readDocument(content, null);
+  }
+
+  /**
+   * Reads the full document stored with the given content encoding.
+   *
+   * @param content         the stored document
+   * @param contentEncoding the content encoding of the stored document, or null when it has none
+   * @return the elements as attribute maps
+   * @throws IOException when the content is not a valid document
+   */
+  List<Map<String, Object>> readDocument(byte[] content, String contentEncoding)
+      throws IOException {
+    if (!isGzip(contentEncoding)) {
+      return this.documentReader.readValue(content);
+    }
+    try (InputStream input = gunzip(content)) {
+      return this.documentReader.readValue(input);
+    }
+  }
+
+  /**
+   * Reads the elements of the document.
+   *
+   * @param content the stored document
+   * @return the elements
+   * @throws IOException when the content is not a valid document
+   */
+  List<ElementEntity> readElements(byte[] content) throws IOException {
+    return this.readElements(content, null);
+  }
+
+  /**
+   * Reads the elements of the document stored with the given content encoding.
+   *
+   * @param content         the stored document
+   * @param contentEncoding the content encoding of the stored document, or null when it has none
+   * @return the elements
+   * @throws IOException when the content is not a valid document
+   */
+  List<ElementEntity> readElements(byte[] content, String contentEncoding) throws IOException {
+    List<Object[]> rows = this.readProjection(content, contentEncoding, ELEMENT_FIELDS);
+    List<ElementEntity> elements = new ArrayList<>(rows.size());
+    for (Object[] row : rows) {
+      elements.add(new ElementEntity(
+          toText(row[0]),
+          toInt(row[1]),
+          toText(row[2]),
+          toText(row[3]),
+          toText(row[4]),
+          toText(row[5]),
+          toText(row[6]),
+          toText(row[7]),
+          toText(row[8]),
+          toText(row[9]),
+          toText(row[10]),
+          toText(row[11]),
+          toText(row[12])));
+    }
+    return elements;
+  }
+
+  /**
+   * Projects elements already read as attribute maps, the same way {@link #readElements} does.
+   *
+   * @param data the elements as attribute maps
+   * @return the elements
+   */
+  List<ElementEntity> toElements(List<Map<String, Object>> data) {
+    List<ElementEntity> elements = new ArrayList<>(data.size());
+    for (Map<String, Object> element : data) {
+      elements.add(new ElementEntity(
+          toText(element.get("name")),
+          toInt(element.get("atomic_number")),
+          toText(element.get("alternative_name")),
+          toText(element.get("group_block")),
+          toText(element.get("atomic_weight")),
+          toText(element.get("boiling_point")),
+          toText(element.get("melting_point")),
+          toText(element.get("density_at_stp")),
+          toText(element.get("period")),
+          toText(element.get("element_category")),
+          toText(element.get("phase")),
+          toText(element.get("symbol")),
+          toText(element.get("alternative_names"))));
+    }
+    return elements;
+  }
+
+  /**
+   * Turns an element back into the attribute map it was projected from. Only the projected
+   * attributes are kept; numeric properties and the period are written back as text.
+   *
+   * @param element the element
+   * @return the element as an attribute map
+   */
+  Map<String, Object> toRow(ElementEntity element) {
+    Map<String, Object> row = new LinkedHashMap<>();
+    row.put("name", element.name());
+    row.put("atomic_number", element.atomicNumber());
+    row.put("alternative_name", element.alternativeName());
+    row.put("group_block", element.groupBlock());
+    row.put("atomic_weight", element.atomicWeight());
+    row.put("boiling_point", element.boilingPoint());
+    row.put("melting_point", element.meltingPoint());
+    row.put("density_at_stp", element.densityAtStp());
+    row.put("period", element.period());
+    row.put("element_category", element.elementCategory());
+    row.put("phase", element.phase());
+    row.put("symbol", element.symbol());
+    row.put("alternative_names", element.alternativeNames());
+    return row;
+  }
+
+  /**
+   * Reads the requested attributes of every element with a streaming parser.
+   * Attributes that are not requested are skipped without being materialized.
+   *
+   * @param content the stored document
+   * @param fields  the attributes to read
+   * @return one row per element, holding the values of the fields in the given order;
+   *     a missing attribute is null
+   * @throws IOException when the content is not a valid document
+   */
+  List<Object[]> readProjection(byte[] content, List<String> fields) throws IOException {
+    return this.readProjection(content, null, fields);
+  }
+
+  private List<Object[]> readProjection(byte[] content, String contentEncoding,
+                                        List<String> fields) throws IOException {
+    Map<String, Integer> fieldPositions = new HashMap<>();
+    for (int position = 0; position < fields.size(); position++) {
+      fieldPositions.put(fields.get(position), position);
+    }
+
+    List<Object[]> rows = new ArrayList<>();
+    try (JsonParser parser = isGzip(contentEncoding)
+        ? this.jsonFactory.createParser(gunzip(content))
+        : this.jsonFactory.createParser(content)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw MismatchedInputException.from(parser, List.class,
+            "Expected an array of elements");
+      }
+      while (parser.nextToken() == JsonToken.START_OBJECT) {
+        Object[] row = new Object[fields.size()];
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          Integer position = fieldPositions.get(parser.currentName());
+          JsonToken valueToken = parser.nextToken();
+          if (position == null) {
+            parser.skipChildren();
+          } else {
+            row[position] = readValue(parser, valueToken);
+          }
+        }
+        rows.add(row);
+      }
+      if (parser.currentToken() != JsonToken.END_ARRAY) {
+        throw MismatchedInputException.from(parser, Map.class,
+            "Expected an element object");
+      }
+    }
+    return rows;
+  }
+
+  private Object readValue(JsonParser parser, JsonToken valueToken) throws IOException {
+    return switch (valueToken) {
+      case VALUE_STRING -> parser.getText();
+      case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getNumberValue();
+      case VALUE_TRUE -> Boolean.TRUE;
+      case VALUE_FALSE -> Boolean.FALSE;
+      case VALUE_NULL -> null;
+      default -> this.documentMapper.readValue(parser, Object.class);
+    };
+  }
+
+  private static String toText(Object value) {
+    return value == null ? null : value.toString();
+  }
+
+  private static int toInt(Object value) {
+    if (value instanceof Number number) {
+      return number.intValue();
+    }
+    if (value instanceof String text) {
+      return Integer.parseInt(text.strip());
+    }
+    return 0;
+  }
+
+  /**
+   * Writes the full document.
+   *
+   * @param data the elements as attribute maps
+   * @return the serialized document
+   * @throws IOException when the data cannot be serialized
+   */
+  byte[] writeDocument(List<Map<String, Object>> data) throws IOException {
+    return this.documentWriter.writeValueAsBytes(data);
+  }
+
+  /**
+   * Writes the full document with the given content encoding.
+   *
+   * @param data            the elements as attribute maps
+   * @param contentEncoding the content encoding to write, or null to write plain JSON
+   * @return the serialized and encoded document
+   * @throws IOException when the data cannot be serialized
+   */
+  byte[] writeDocument(List<Map<String, Object>> data, String contentEncoding)
+      throws IOException {
+    if (!isGzip(contentEncoding)) {
+      return this.writeDocument(data);
+    }
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+      this.documentWriter.writeValue(gzip, data);
+    }
+    return output.toByteArray();
+  }
+
+  private static InputStream gunzip(byte[] content) throws IOException {
+    return new GZIPInputStream(new ByteArrayInputStream(content));
+  }
+
+  /**
+   * Checks whether a content encoding is gzip. Objects without a content encoding, or with
+   * the identity encoding, are plain JSON.
+   *
+   * @throws IOException when the content encoding is neither gzip nor plain
+   */
+  private static boolean isGzip(String contentEncoding) throws IOException {
+    if (contentEncoding == null || contentEncoding.isBlank()
+        || contentEncoding.equalsIgnoreCase("identity")) {
+      return false;
+    }
+    if (contentEncoding.equalsIgnoreCase(GZIP_ENCODING)) {
+      return true;
+    }
+    throw new IOException("Unsupported content encoding : " + contentEncoding);
+  }
+
+  /**
+   * Reads a single element, keeping every attribute.
+   *
+   * @param content the stored element
+   * @return the element as an attribute map
+   * @throws IOException when the content is not a valid element
+   */
+  Map<String, Object> readRow(byte[] content) throws IOException {
+    return this.rowReader.readValue(content);
+  }
+
+  /**
+   * Writes a single element.
+   *
+   * @param row the element as an attribute map
+   * @return the serialized element
+   * @throws IOException when the element cannot be serialized
+   */
+  byte[] writeRow(Map<String, Object> row) throws IOException {
+    return this.rowWriter.writeValueAsBytes(row);
+  }
+}
@@ -0,0 +1,52 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import java.util.List;
+
+/**
+ * State of a patch accepted by the write-behind mode.
+ * A patch is pending until it is written to object storage, then either durable, with the
+ * ETag and version of the write that contains it, or failed, with the error that rejected it.
+ *
+ * @param id                   the operation id
+ * @param status               the state of the operation
+ * @param changedAtomicNumbers the atomic numbers of the elements the patch changes
+ * @param etag                 the ETag of the table containing the patch, once durable
+ * @param versionId            the version of the table containing the patch, once durable and
+ *                             when the bucket is versioned
+ * @param errorReason          the name of the error that rejected the patch, once failed
+ * @param errorMessage         the description of the error that rejected the patch, once failed
+ */
+record PeriodicTableOperation(
+    String id,
+    Status status,
+    List<Integer> changedAtomicNumbers,
+    String etag,
+    String versionId,
+    String errorReason,
+    String errorMessage) {
+
+  /**
+   * State of an operation.
+   */
+  enum Status {
+    PENDING,
+    DURABLE,
+    FAILED
+  }
+
+  static PeriodicTableOperation pending(String id, List<Integer> changedAtomicNumbers) {
+    return new PeriodicTableOperation(id, Status.PENDING, changedAtomicNumbers, null, null, null,
+        null);
+  }
+
+  static PeriodicTableOperation durable(String id, PeriodicTableUpdate update) {
+    return new PeriodicTableOperation(id, Status.DURABLE, update.changedAtomicNumbers(),
+        update.periodicTable().etag(), update.versionId(), null, null);
+  }
+
+  static PeriodicTableOperation failed(String id, List<Integer> changedAtomicNumbers,
+                                       Throwable error) {
+    return new PeriodicTableOperation(id, Status.FAILED, changedAtomicNumbers, null, null,
+        error.getClass().getSimpleName(), error.getMessage());
+  }
+}
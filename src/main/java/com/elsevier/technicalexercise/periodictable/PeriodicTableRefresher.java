@@ -0,0 +1,153 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Polls object storage in the background for changes to the periodic table, so requests are
+ * served from a snapshot that is already revalidated.
+ * Each poll is a HeadObject call; the table is only downloaded and parsed when its ETag
+ * changes. Polls are spread by a random jitter so a fleet of instances does not hit object
+ * storage in lockstep, and back off exponentially while object storage is failing.
+ */
+@Component
+class PeriodicTableRefresher implements ApplicationRunner, DisposableBean {
+  private static final Logger logger = LoggerFactory.getLogger(PeriodicTableRefresher.class);
+
+  private final PeriodicTableService periodicTableService;
+  private final ElementResponseCache elementResponseCache;
+  private final boolean enabled;
+  private final Duration interval;
+  private final double jitter;
+  private final Duration maxBackoff;
+  private volatile boolean stopped;
+  private volatile int consecutiveFailures;
+  private volatile Instant lastRefreshAt;
+  private volatile String lastRefreshEtag;
+
+  /**
+   * Constructs a new PeriodicTableRefresher.
+   *
+   * @param periodicTableService the service for periodic table data
+   * @param elementResponseCache the cache of serialized response bodies
+   * @param enabled              whether object storage is polled for changes
+   * @param interval             the time between two polls
+   * @param jitter               the fraction of the interval each poll is randomly moved by
+   * @param maxBackoff           the longest time between two polls while they are failing
+   */
+  PeriodicTableRefresher(PeriodicTableService periodicTableService,
+                         ElementResponseCache elementResponseCache,
+                         @Value("${periodic-table.refresh.enabled:true}") boolean enabled,
+                         @Value("${periodic-table.refresh.interval:20s}") Duration interval,
+                         @Value("${periodic-table.refresh.jitter:0.25}") double jitter,
+                         @Value("${periodic-table.refresh.max-backoff:5m}") Duration maxBackoff) {
+    if (jitter < 0 || jitter > 1) {
+      throw new IllegalArgumentException("periodic-table.refresh.jitter must be between 0 and 1");
+    }
+    this.periodicTableService = periodicTableService;
+    this.elementResponseCache = elementResponseCache;
+    this.enabled = enabled;
+    this.interval = interval;
+    this.jitter = jitter;
+    this.maxBackoff = maxBackoff;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (!this.enabled) {
+      return;
+    }
+    // Instances started together by a deploy are spread over the first interval.
+    this.schedule(ThreadLocalRandom.current().nextLong(this.interval.toMillis() + 1));
+  }
+
+  @Override
+  public void destroy() {
+    this.stopped = true;
+  }
+
+  /**
+   * Gets the time of the last successful poll.
+   *
+   * @return the time of the last successful poll, or null before the first one
+   */
+  Instant getLastRefreshAt() {
+    return this.lastRefreshAt;
+  }
+
+  /**
+   * Gets the ETag of the snapshot confirmed by the last successful poll.
+   *
+   * @return the ETag of the current snapshot, or null before the first poll
+   */
+  String getLastRefreshEtag() {
+    return this.lastRefreshEtag;
+  }
+
+  /**
+   * Gets the number of polls that failed since the last successful one.
+   *
+   * @return the number of consecutive failed polls
+   */
+  int getConsecutiveFailures() {
+    return this.consecutiveFailures;
+  }
+
+  /**
+   * Polls object storage once and renders the response bodies of a changed snapshot.
+   *
+   * @return a future that will complete once the poll is done
+   */
+  CompletableFuture<Void> refresh() {
+    return this.periodicTableService.refreshSnapshotIfModified()
+        .thenAccept(snapshot -> {
+          this.elementResponseCache.forSnapshot(snapshot);
+          this.lastRefreshEtag = snapshot.etag();
+          this.lastRefreshAt = Instant.now();
+          this.consecutiveFailures = 0;
+        })
+        .exceptionally(ex -> {
+          this.consecutiveFailures++;
+          logger.warn("Periodic table refresh failed {} time(s) in a row: {}",
+              this.consecutiveFailures, ex.getMessage());
+          return null;
+        });
+  }
+
+  /**
+   * Computes the delay before the next poll: the interval, doubled for every consecutive
+   * failure up to the maximum backoff, and moved randomly by up to the jitter fraction.
+   *
+   * @return the delay in milliseconds
+   */
+  long nextDelayMillis() {
+    long baseMillis = this.interval.toMillis();
+    int failures = Math.min(this.consecutiveFailures, 30);
+    if (failures > 0) {
+      baseMillis = Math.min(baseMillis << failures, this.maxBackoff.toMillis());
+    }
+    double spread = (ThreadLocalRandom.current().nextDouble() * 2 - 1) * this.jitter;
+    return Math.max(0, Math.round(baseMillis * (1 + spread)));
+  }
+
+  private void schedule(long delayMillis) {
+    if (this.stopped) {
+      return;
+    }
+    CompletableFuture.runAsync(() -> {
+      if (!this.stopped) {
+        this.refresh().whenComplete((ignored, ex) -> this.schedule(this.nextDelayMillis()));
+      }
+    }, CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS));
+  }
+}
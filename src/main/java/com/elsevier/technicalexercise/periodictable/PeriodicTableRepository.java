@@ -1,136 +1,204 @@
 package com.elsevier.technicalexercise.periodictable;
 
 import com.elsevier.technicalexercise.cloud.ObjectStorage;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 /**
  * Repository for accessing periodic table element data.
+ * Reads are served from an in-memory snapshot that is revalidated against object storage
+ * with the stored ETag once it is older than the configured maximum age. How the table is laid
+ * out in object storage is up to the {@link PeriodicTableStore}.
  */
 @Repository
 class PeriodicTableRepository {
-  private final String periodicTableBucket;
-  private final String periodicTableKeyPath;
-  private final ObjectStorage objectStorage;
+  private static final Logger logger = LoggerFactory.getLogger(PeriodicTableRepository.class);
 
-  /**
-   * Exception thrown when JSON mapping fails.
-   */
-  private static class JsonMappingException extends RuntimeException {
-    public JsonMappingException(String message, Throwable cause) {
-      super(message, cause);
-    }
-  }
+  private final PeriodicTableStore periodicTableStore;
+  private final Duration snapshotMaxAge;
+  private final boolean staleWhileRevalidate;
+  private final Counter backgroundRefreshFailures;
+  private final AtomicReference<CachedSnapshot> cachedSnapshot = new AtomicReference<>();
+  private final AtomicReference<CompletableFuture<CachedSnapshot>> inFlightRefresh =
+      new AtomicReference<>();
+  private final AtomicReference<PeriodicTableEntity> cachedDocument = new AtomicReference<>();
 
   /**
-   * Exception thrown when group block parsing fails.
+   * Snapshot together with the time it was last confirmed against object storage.
    */
-  private static class InvalidGroupBlockException extends RuntimeException {
-    public InvalidGroupBlockException(String message, Throwable cause) {
-      super(message, cause);
+  private record CachedSnapshot(PeriodicTableSnapshot snapshot, long validatedAtNanos) {
+    boolean isFresh(Duration maxAge) {
+      return System.nanoTime() - validatedAtNanos < maxAge.toNanos();
     }
   }
 
   /**
    * Constructs a new PeriodicTableRepository.
    *
-   * @param objectStorage the object storage service
+   * @param periodicTableStore   the layout of the periodic table in object storage
+   * @param meterRegistry        the registry of the background refresh failure counter
+   * @param snapshotMaxAge       how long a snapshot is served before it is revalidated
+   * @param staleWhileRevalidate whether a stale snapshot is served while it is revalidated
    */
   @Autowired
-  public PeriodicTableRepository(ObjectStorage objectStorage,
-                                 @Value("${periodic-table.bucket}") String bucketName,
-                                 @Value("${periodic-table.key}") String objectKeyPath
+  public PeriodicTableRepository(PeriodicTableStore periodicTableStore,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${periodic-table.cache.max-age:30s}")
+                                 Duration snapshotMaxAge,
+                                 @Value("${periodic-table.cache.stale-while-revalidate:true}")
+                                 boolean staleWhileRevalidate
   ) {
-    this.objectStorage = objectStorage;
-    this.periodicTableBucket = bucketName;
-    this.periodicTableKeyPath = objectKeyPath;
+    this.periodicTableStore = periodicTableStore;
+    this.snapshotMaxAge = snapshotMaxAge;
+    this.staleWhileRevalidate = staleWhileRevalidate;
+    this.backgroundRefreshFailures =
+        Counter.builder("periodic.table.snapshot.background.refresh.failures")
+            .description("Snapshot refreshes that failed while a stale snapshot was served")
+            .register(meterRegistry);
   }
 
+  /**
+   * Reads the whole periodic table from object storage, and keeps it as the table this node
+   * last saw for {@link #getCachedPeriodicTable(String)}.
+   *
+   * @return a future that will complete with the periodic table and its ETag
+   */
   public CompletableFuture<PeriodicTableEntity> getPeriodicTable() {
-    return this.objectStorage.getObject(this.periodicTableBucket, this.periodicTableKeyPath)
-        .thenApply(resp -> {
-          ObjectMapper mapper = new ObjectMapper();
-          try {
-            List<Map<String, Object>> list = mapper.readValue(
-                resp.content(),
-                new TypeReference<>() {
-                }
-            );
-            return new PeriodicTableEntity(list, resp.etag());
-          } catch (Exception e) {
-            throw new JsonMappingException(
-                "Error on mapping the object on ObjectStorage to JSON : " + e.getMessage(), e);
-          }
+    return this.periodicTableStore.readDocument()
+        .thenApply(periodicTableEntity -> {
+          this.cachedDocument.set(periodicTableEntity);
+          return periodicTableEntity;
         });
   }
 
-  public CompletableFuture<?> updatePeriodicTable(
-      PeriodicTableEntity periodicTableEntity) {
-    ObjectMapper mapper = new ObjectMapper();
-    try {
-      byte[] content = mapper.writeValueAsBytes(periodicTableEntity.data());
-      return this.objectStorage.replaceObject(this.periodicTableBucket, this.periodicTableKeyPath,
-          content, periodicTableEntity.etag());
-    } catch (Exception e) {
-      throw new JsonMappingException(
-          "Error on mapping the object to JSON : " + e.getMessage(), e);
+  /**
+   * Gets the whole periodic table this node last read or wrote, without reading object storage,
+   * if it is at the given ETag. The table may have changed in object storage since, which a
+   * write conditional on that ETag finds out.
+   *
+   * @param etag the ETag the table is expected at
+   * @return the table at that ETag, or empty when this node last saw another version
+   */
+  public Optional<PeriodicTableEntity> getCachedPeriodicTable(String etag) {
+    PeriodicTableEntity periodicTableEntity = this.cachedDocument.get();
+    if (periodicTableEntity == null || !periodicTableEntity.etag().equals(etag)) {
+      return Optional.empty();
     }
+    return Optional.of(periodicTableEntity);
+  }
 
+  /**
+   * Writes the periodic table if it still matches the entity's ETag, and installs the written
+   * table as the snapshot, so reads on this node see the write without downloading it again.
+   *
+   * @param periodicTableEntity the table to write, with the ETag it was read at
+   * @return a future that will complete with the ETag and version of the written table
+   */
+  public CompletableFuture<ObjectStorage.PutObjectResponse> updatePeriodicTable(
+      PeriodicTableEntity periodicTableEntity) {
+    return this.periodicTableStore.writeDocument(periodicTableEntity)
+        .thenApply(written -> {
+          this.cachedSnapshot.set(new CachedSnapshot(written.snapshot(), System.nanoTime()));
+          this.cachedDocument.set(new PeriodicTableEntity(periodicTableEntity.data(),
+              written.response().etag()));
+          return written.response();
+        });
+  }
 
+  /**
+   * Gets the current snapshot of the periodic table.
+   * A fresh snapshot is returned without leaving the JVM. A stale one is either returned
+   * immediately while a refresh runs in the background, or revalidated before returning,
+   * depending on the stale-while-revalidate mode. A background refresh that fails is logged
+   * and counted, and the next read after it tries again.
+   *
+   * @return a future that will complete with the snapshot
+   */
+  public CompletableFuture<PeriodicTableSnapshot> getSnapshot() {
+    CachedSnapshot current = this.cachedSnapshot.get();
+    if (current != null && current.isFresh(this.snapshotMaxAge)) {
+      return CompletableFuture.completedFuture(current.snapshot());
+    }
+    if (current != null && this.staleWhileRevalidate) {
+      this.refreshSnapshot().whenComplete((ignored, ex) -> {
+        if (ex != null) {
+          this.backgroundRefreshFailures.increment();
+          logger.warn("Periodic table snapshot could not be refreshed in the background: {}",
+              ex.getMessage());
+        }
+      });
+      return CompletableFuture.completedFuture(current.snapshot());
+    }
+    return this.refreshSnapshot().thenApply(CachedSnapshot::snapshot);
   }
 
   /**
-   * Finds all elements in the periodic table.
+   * Checks the version the table currently has in object storage without downloading it, and
+   * only downloads and parses the periodic table when it differs from the snapshot's.
+   * An unchanged version renews the snapshot, so the request path does not revalidate it.
    *
-   * @return a future that will complete with the list of elements
+   * @return a future that will complete with the current snapshot
    */
-  public CompletableFuture<List<ElementEntity>> findElements() {
-    return this.objectStorage.getObject(
-            this.periodicTableBucket, this.periodicTableKeyPath)
-        .thenApply(resp -> {
-          ObjectMapper mapper = new ObjectMapper();
-          mapper.setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
-          mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-          try {
-            return mapper.readValue(
-                resp.content(), new TypeReference<>() {
-                });
-          } catch (Exception e) {
-            throw new JsonMappingException(
-                "Error on mapping the object on ObjectStorage to JSON : " + e.getMessage(), e);
+  public CompletableFuture<PeriodicTableSnapshot> refreshSnapshotIfModified() {
+    return this.periodicTableStore.readVersion()
+        .thenCompose(etag -> {
+          CachedSnapshot current = this.cachedSnapshot.get();
+          if (current != null && current.snapshot().etag().equals(etag)) {
+            this.cachedSnapshot.compareAndSet(current,
+                new CachedSnapshot(current.snapshot(), System.nanoTime()));
+            return CompletableFuture.completedFuture(current.snapshot());
           }
+          return this.refreshSnapshot().thenApply(CachedSnapshot::snapshot);
         });
   }
 
+  private CompletableFuture<CachedSnapshot> refreshSnapshot() {
+    CompletableFuture<CachedSnapshot> refresh = new CompletableFuture<>();
+    CompletableFuture<CachedSnapshot> existingRefresh =
+        this.inFlightRefresh.compareAndExchange(null, refresh);
+    if (existingRefresh != null) {
+      return existingRefresh;
+    }
+    CachedSnapshot current = this.cachedSnapshot.get();
+    this.revalidateSnapshot(current).whenComplete((snapshot, ex) -> {
+      if (ex == null) {
+        // A write that invalidated the snapshot meanwhile wins over this refresh.
+        this.cachedSnapshot.compareAndSet(current, snapshot);
+      }
+      this.inFlightRefresh.set(null);
+      if (ex != null) {
+        refresh.completeExceptionally(ex);
+      } else {
+        refresh.complete(snapshot);
+      }
+    });
+    return refresh;
+  }
+
+  private CompletableFuture<CachedSnapshot> revalidateSnapshot(CachedSnapshot current) {
+    return this.periodicTableStore.readSnapshotIfModified(
+            current == null ? null : current.snapshot())
+        .thenApply(snapshot -> new CachedSnapshot(
+            snapshot.orElseGet(() -> current.snapshot()), System.nanoTime()));
+  }
+
   /**
-   * Finds elements by group.
+   * Finds all elements in the periodic table.
    *
-   * @param group the group to filter by
-   * @return a future that will complete with the filtered list of elements
+   * @return a future that will complete with the list of elements
    */
-  public CompletableFuture<List<ElementEntity>> findElements(String group) {
-    return this.findElements()
-        .thenApply(elements -> elements.stream()
-            .filter(element -> {
-              try {
-                String[] groups = element.groupBlock().split(",");
-                String groupBlockNumber = groups[0].strip().split(" ")[1];
-                return groupBlockNumber.equals(group);
-              } catch (Exception e) {
-                throw new InvalidGroupBlockException(
-                    "Invalid group block : " + e.getMessage(), e);
-              }
-            })
-            .toList());
+  public CompletableFuture<List<ElementEntity>> findElements() {
+    return this.getSnapshot().thenApply(PeriodicTableSnapshot::elements);
   }
 
   /**
@@ -140,10 +208,7 @@ class PeriodicTableRepository {
    * @return a future that will complete with the element
    */
   public CompletableFuture<Optional<ElementEntity>> getElement(int atomicNumber) {
-    return this.findElements()
-        .thenApply(elements -> elements.stream()
-            .filter(element -> element.atomicNumber() == atomicNumber)
-            .findFirst()
-        );
+    return this.getSnapshot()
+        .thenApply(snapshot -> Optional.ofNullable(snapshot.getElement(atomicNumber)));
   }
 }
@@ -1,9 +1,7 @@
 package com.elsevier.technicalexercise.periodictable;
 
-import com.elsevier.technicalexercise.utils.Validator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -14,77 +12,197 @@ import org.springframework.stereotype.Service;
 @Service
 class PeriodicTableService {
   private final PeriodicTableRepository periodicTableRepository;
+  private final PeriodicTableWriteCoordinator writeCoordinator;
+  private final Optional<PeriodicTableWriteBehind> writeBehind;
 
   public static class ElementNotFoundException extends RuntimeException {
     public ElementNotFoundException(String message) {
       super(message);
     }
+
+    static ElementNotFoundException forAtomicNumber(int atomicNumber) {
+      return new ElementNotFoundException("Element not found for atomic number: " + atomicNumber);
+    }
+
+    static ElementNotFoundException forSymbol(String symbol) {
+      return new ElementNotFoundException("Element not found for symbol: " + symbol);
+    }
+
+    static ElementNotFoundException forName(String name) {
+      return new ElementNotFoundException("Element not found for name: " + name);
+    }
+  }
+
+  /**
+   * Exception thrown when another update changed a field that a patch also changes.
+   */
+  public static class ElementConflictException extends RuntimeException {
+    public ElementConflictException(String message) {
+      super(message);
+    }
+  }
+
+  /**
+   * Exception thrown when a patch kept losing to concurrent updates until it ran out of
+   * attempts.
+   */
+  public static class PeriodicTableContentionException extends RuntimeException {
+    public PeriodicTableContentionException(String message) {
+      super(message);
+    }
+  }
+
+  /**
+   * Exception thrown when a patch was made against a version of the periodic table that is no
+   * longer the stored one.
+   */
+  public static class PeriodicTableVersionMismatchException extends RuntimeException {
+    public PeriodicTableVersionMismatchException(String message) {
+      super(message);
+    }
+  }
+
+  /**
+   * Exception thrown when an operation id is unknown, or the operation completed too long ago
+   * to be kept.
+   */
+  public static class OperationNotFoundException extends RuntimeException {
+    public OperationNotFoundException(String message) {
+      super(message);
+    }
   }
 
   /**
    * Constructs a new PeriodicTableService.
    *
    * @param periodicTableRepository the repository for periodic table data
+   * @param writeCoordinator        the group commit of patches
+   * @param writeBehind             the write-behind mode, present when it is enabled
    */
   @Autowired
-  public PeriodicTableService(PeriodicTableRepository periodicTableRepository) {
+  public PeriodicTableService(PeriodicTableRepository periodicTableRepository,
+                              PeriodicTableWriteCoordinator writeCoordinator,
+                              Optional<PeriodicTableWriteBehind> writeBehind) {
     this.periodicTableRepository = periodicTableRepository;
+    this.writeCoordinator = writeCoordinator;
+    this.writeBehind = writeBehind;
   }
 
-  public CompletableFuture<List<ElementEntity>> findElements(
-      ElementListingRequestDto elementListingRequestDto) {
-    if (elementListingRequestDto.getGroup() == null) {
-      return periodicTableRepository.findElements();
-    }
-    return periodicTableRepository.findElements(elementListingRequestDto.getGroup());
+  /**
+   * Gets the current snapshot of the periodic table.
+   * In write-behind mode, the snapshot shows the accepted patches not yet written to object
+   * storage.
+   *
+   * @return a future that will complete with the snapshot
+   */
+  public CompletableFuture<PeriodicTableSnapshot> getSnapshot() {
+    return writeBehind.map(PeriodicTableWriteBehind::getSnapshot)
+        .orElseGet(periodicTableRepository::getSnapshot);
   }
 
   /**
-   * Gets an element by atomic number.
+   * Refreshes the snapshot if the stored periodic table has changed since it was loaded.
    *
-   * @param atomicNumber the atomic number of the element
-   * @return a future that will complete with the element
+   * @return a future that will complete with the current snapshot
    */
-  public CompletableFuture<ElementEntity> getElement(int atomicNumber) {
-    return periodicTableRepository.getElement(atomicNumber).thenApply(
-        elementEntity -> elementEntity.orElseThrow(
-            () -> new ElementNotFoundException(
-                "Element not found for atomic number: " + atomicNumber))
-    );
+  public CompletableFuture<PeriodicTableSnapshot> refreshSnapshotIfModified() {
+    return periodicTableRepository.refreshSnapshotIfModified();
   }
 
-  public CompletableFuture<PeriodicTableEntity> updatePeriodicTable(
+  /**
+   * Applies a batch of patches to the periodic table.
+   * The batch is checked for duplicated atomic numbers before object storage is read, then
+   * written together with the patches of concurrent requests by the write coordinator.
+   *
+   * @param patchElements the patches to apply, at most one per atomic number
+   * @return a future that will complete with the stored periodic table and the changed rows
+   */
+  public CompletableFuture<PeriodicTableUpdate> updatePeriodicTable(
       List<ElementPatchRequestDto> patchElements) {
-    return periodicTableRepository.getPeriodicTable()
-        .thenApply(
-            periodicTableEntity -> new PeriodicTableEntity(
-                periodicTableEntity.data().stream().map(existingElement -> {
-                  ElementPatchRequestDto newElementHaveToUpdate =
-                      patchElements.stream().filter(newElement -> {
-                        return newElement.getAtomicNumber()
-                            ==
-                            Integer.parseInt(String.valueOf(existingElement.get("atomic_number")));
-                      }).findFirst().orElse(null);
-                  if (newElementHaveToUpdate == null) {
-                    return existingElement;
-                  }
-                  Map<String, Object> mergeElement = new HashMap<>(existingElement);
-                  if (Validator.isNotNullOrBlank(newElementHaveToUpdate.getName())) {
-                    mergeElement.put("name", newElementHaveToUpdate.getName());
-                  }
-                  if (Validator.isNotNullOrBlank(newElementHaveToUpdate.getAlternativeName())) {
-                    mergeElement.put("alternative_name",
-                        newElementHaveToUpdate.getAlternativeName());
-                  }
-                  if (Validator.isNotNullOrBlank(newElementHaveToUpdate.getGroupBlock())) {
-                    mergeElement.put("group_block", newElementHaveToUpdate.getGroupBlock());
-                  }
-                  return mergeElement;
-                }).toList(), periodicTableEntity.etag())
-        )
-        .thenCompose((periodicTableEntity) -> {
-          return periodicTableRepository.updatePeriodicTable(periodicTableEntity)
-              .thenApply((ignored) -> periodicTableEntity);
-        });
+    return writeCoordinator.submit(new ElementPatchMerger(patchElements));
+  }
+
+  /**
+   * Applies a batch of patches to the periodic table only if it is still at the given ETag.
+   * When this node last read or wrote the table at that ETag, the patches are merged into it
+   * without reading object storage first.
+   *
+   * @param patchElements the patches to apply, at most one per atomic number
+   * @param ifMatch       the ETag of the table the patches were made against
+   * @return a future that will complete with the stored periodic table and the changed rows,
+   *     or fail with {@link PeriodicTableVersionMismatchException} when the table is at another
+   *     ETag
+   */
+  public CompletableFuture<PeriodicTableUpdate> updatePeriodicTable(
+      List<ElementPatchRequestDto> patchElements, String ifMatch) {
+    return writeCoordinator.submit(new ElementPatchMerger(patchElements), ifMatch);
+  }
+
+  /**
+   * Applies the accepted lines of a bulk patch to the periodic table with one conditional put.
+   * Accepted lines patching an element that is not in the table are rejected on their own.
+   * The remaining lines are written like the patches of a single request, and only to the
+   * table at the given ETag when there is one.
+   *
+   * @param lines   the lines read from the bulk patch
+   * @param ifMatch the ETag of the table the patches were made against, or null
+   * @return a future that will complete with the update and the outcome of every line
+   */
+  public CompletableFuture<PeriodicTableBulkUpdate> bulkUpdatePeriodicTable(
+      List<ElementPatchNdjsonReader.ParsedLine> lines, String ifMatch) {
+    return this.getSnapshot().thenCompose(snapshot -> {
+      List<ElementPatchNdjsonReader.ParsedLine> checkedLines = lines.stream()
+          .map(line -> line.isAccepted() && snapshot.getElement(line.atomicNumber()) == null
+              ? ElementPatchNdjsonReader.ParsedLine.rejected(line.line(), line.patch(),
+                  ElementNotFoundException.forAtomicNumber(line.atomicNumber()))
+              : line)
+          .toList();
+      List<ElementPatchRequestDto> patches = checkedLines.stream()
+          .filter(ElementPatchNdjsonReader.ParsedLine::isAccepted)
+          .map(ElementPatchNdjsonReader.ParsedLine::patch)
+          .toList();
+      if (patches.isEmpty()) {
+        return CompletableFuture.completedFuture(
+            new PeriodicTableBulkUpdate(null, checkedLines));
+      }
+      return writeCoordinator.submit(new ElementPatchMerger(patches), ifMatch)
+          .thenApply(update -> new PeriodicTableBulkUpdate(update, checkedLines));
+    });
+  }
+
+  /**
+   * Checks whether patches are acknowledged before they are written to object storage.
+   *
+   * @return true when the write-behind mode is enabled
+   */
+  public boolean isWriteBehind() {
+    return writeBehind.isPresent();
+  }
+
+  /**
+   * Accepts a batch of patches in write-behind mode: the patches are journaled and shown by
+   * the snapshot at once, and written to object storage in the background.
+   *
+   * @param patchElements the patches to apply, at most one per atomic number
+   * @return a future that will complete with the pending operation
+   * @throws IllegalStateException if the write-behind mode is not enabled
+   */
+  public CompletableFuture<PeriodicTableOperation> acceptPeriodicTableUpdate(
+      List<ElementPatchRequestDto> patchElements) {
+    return writeBehind.orElseThrow(
+            () -> new IllegalStateException("Write-behind mode is not enabled"))
+        .submit(patchElements);
+  }
+
+  /**
+   * Gets the state of an operation accepted in write-behind mode.
+   *
+   * @param id the operation id
+   * @return the operation
+   * @throws OperationNotFoundException if the operation is unknown
+   */
+  public PeriodicTableOperation getOperation(String id) {
+    return writeBehind.flatMap(behind -> behind.getOperation(id))
+        .orElseThrow(() -> new OperationNotFoundException("Operation not found: " + id));
   }
 }
@@ -0,0 +1,103 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import com.elsevier.technicalexercise.cloud.ObjectStorage;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Command that splits the whole periodic table object into the sharded layout read by
+ * {@link ShardedPeriodicTableStore}, then exits the application.
+ * It runs when the application is started with {@code --migrate-to-shards}, whatever the
+ * configured storage mode, so the sharded layout can be created before switching to it; the
+ * application then starts without the web server and the background jobs, see
+ * {@link com.elsevier.technicalexercise.TechnicalExerciseApplication#main(String[])}.
+ * The whole object is left in place, and an existing manifest is never overwritten.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+class PeriodicTableShardMigration implements ApplicationRunner {
+  static final String MIGRATE_OPTION = "migrate-to-shards";
+
+  private static final Logger logger =
+      LoggerFactory.getLogger(PeriodicTableShardMigration.class);
+
+  private final ObjectStorage objectStorage;
+  private final PeriodicTableJsonCodec jsonCodec;
+  private final ApplicationContext applicationContext;
+  private final String periodicTableBucket;
+  private final String periodicTableKeyPath;
+  private final String shardPrefix;
+
+  /**
+   * Constructs a new PeriodicTableShardMigration.
+   *
+   * @param objectStorage      the object storage service
+   * @param jsonCodec          the readers and writers for the stored documents
+   * @param applicationContext the context closed once the migration is done
+   * @param bucketName         the bucket of the whole object and the shards
+   * @param objectKeyPath      the key of the whole object
+   * @param shardPrefix        the key prefix of the manifest and the shards
+   */
+  PeriodicTableShardMigration(ObjectStorage objectStorage,
+                              PeriodicTableJsonCodec jsonCodec,
+                              ApplicationContext applicationContext,
+                              @Value("${periodic-table.bucket}") String bucketName,
+                              @Value("${periodic-table.key}") String objectKeyPath,
+                              @Value("${periodic-table.storage.sharded.prefix:"
+                                  + "${periodic-table.key}.shards/}") String shardPrefix) {
+    this.objectStorage = objectStorage;
+    this.jsonCodec = jsonCodec;
+    this.applicationContext = applicationContext;
+    this.periodicTableBucket = bucketName;
+    this.periodicTableKeyPath = objectKeyPath;
+    this.shardPrefix = shardPrefix;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (!args.containsOption(MIGRATE_OPTION)) {
+      return;
+    }
+    int exitCode;
+    try {
+      ObjectStorage.PutObjectResponse manifest = this.migrate();
+      logger.info("Periodic table split into shards, manifest ETag {}", manifest.etag());
+      exitCode = 0;
+    } catch (RuntimeException e) {
+      logger.error("Periodic table migration to shards failed: {}", e.getMessage(), e);
+      exitCode = 1;
+    }
+    int status = exitCode;
+    System.exit(SpringApplication.exit(this.applicationContext, () -> status));
+  }
+
+  /**
+   * Reads the whole object and writes its elements as shards listed by a new manifest.
+   *
+   * @return the ETag and version of the created manifest
+   */
+  ObjectStorage.PutObjectResponse migrate() {
+    ObjectStorage.GetObjectResponse wholeObject =
+        this.objectStorage.getObject(this.periodicTableBucket, this.periodicTableKeyPath).join();
+    List<Map<String, Object>> data;
+    try {
+      data = this.jsonCodec.readDocument(wholeObject.content(), wholeObject.contentEncoding());
+    } catch (Exception e) {
+      throw new PeriodicTableStore.JsonMappingException(
+          "Error on mapping the object on ObjectStorage to JSON : " + e.getMessage(), e);
+    }
+    return new ShardedPeriodicTableStore(this.objectStorage, this.jsonCodec,
+        this.periodicTableBucket, this.shardPrefix, Duration.ZERO).importDocument(data).join();
+  }
+}
@@ -0,0 +1,280 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Immutable, parsed view of the periodic table as stored in object storage.
+ * A snapshot is never mutated; a newer version replaces it as a whole.
+ * Elements are indexed by atomic number, group and block when the snapshot is built, so a
+ * lookup is a single array access and a filter returns a precomputed list. Numeric properties
+ * are normalized into {@link ElementPropertyColumns}, and every value of an
+ * {@link ElementFacet} gets a bitmap of the elements holding it, so queries are answered from
+ * sorted columns and word-wide bitmap operations. Names and symbols are indexed for type-ahead
+ * search by an {@link ElementSearchIndex}, and for exact, case-insensitive lookups by an
+ * {@link ElementKeyIndex} each.
+ * An element whose group block is malformed is logged when the snapshot is built and left out
+ * of the group and block indexes only, so it can still be looked up, searched and listed.
+ */
+final class PeriodicTableSnapshot {
+  private static final Logger logger = LoggerFactory.getLogger(PeriodicTableSnapshot.class);
+
+  /**
+   * Number of periodic table groups; group "n/a" is indexed at slot 0.
+   */
+  private static final int GROUP_COUNT = 18;
+
+  /**
+   * Smallest dense index that is always allowed, whatever the number of elements.
+   */
+  private static final int MIN_DENSE_INDEX_SIZE = 256;
+
+  /**
+   * How many slots per element a dense index may use before falling back to a sparse one.
+   */
+  private static final int MAX_DENSE_SLOTS_PER_ELEMENT = 4;
+
+  private final String etag;
+  private final List<ElementEntity> elements;
+  private final ElementEntity[] elementsByAtomicNumber;
+  private final int[] sparseAtomicNumbers;
+  private final ElementEntity[] sparseElements;
+  private final List<List<ElementEntity>> elementsByGroup;
+  private final Map<Character, List<ElementEntity>> elementsByBlock;
+  private final Map<ElementFacet, Map<String, long[]>> positionsByFacet;
+  private final ElementPropertyColumns propertyColumns;
+  private final ElementSearchIndex searchIndex;
+  private final ElementKeyIndex elementsBySymbol;
+  private final ElementKeyIndex elementsByName;
+
+  /**
+   * Builds a snapshot and its indexes.
+   *
+   * @param etag     the ETag of the object the snapshot was parsed from
+   * @param elements the elements of the periodic table
+   */
+  PeriodicTableSnapshot(String etag, List<ElementEntity> elements) {
+    this.etag = etag;
+    this.elements = List.copyOf(elements);
+
+    int maxAtomicNumber = 0;
+    for (ElementEntity element : this.elements) {
+      maxAtomicNumber = Math.max(maxAtomicNumber, element.atomicNumber());
+    }
+    int denseLimit = Math.max(MIN_DENSE_INDEX_SIZE,
+        this.elements.size() * MAX_DENSE_SLOTS_PER_ELEMENT);
+    if (maxAtomicNumber < denseLimit) {
+      this.elementsByAtomicNumber = buildDenseIndex(this.elements, maxAtomicNumber);
+      this.sparseAtomicNumbers = null;
+      this.sparseElements = null;
+    } else {
+      // A few very large atomic numbers would make a dense array mostly empty;
+      // fall back to a sorted index searched in O(log n).
+      this.elementsByAtomicNumber = null;
+      ElementEntity[] sorted = this.elements.stream()
+          .filter(element -> element.atomicNumber() > 0)
+          .sorted((left, right) -> Integer.compare(left.atomicNumber(), right.atomicNumber()))
+          .toArray(ElementEntity[]::new);
+      this.sparseElements = dropDuplicateAtomicNumbers(sorted);
+      this.sparseAtomicNumbers = Arrays.stream(this.sparseElements)
+          .mapToInt(ElementEntity::atomicNumber)
+          .toArray();
+    }
+
+    List<List<ElementEntity>> groups = new ArrayList<>(GROUP_COUNT + 1);
+    for (int group = 0; group <= GROUP_COUNT; group++) {
+      groups.add(new ArrayList<>());
+    }
+    Map<Character, List<ElementEntity>> blocks = new HashMap<>();
+    List<Integer> malformedAtomicNumbers = new ArrayList<>();
+    for (ElementEntity element : this.elements) {
+      Optional<GroupBlock> groupBlock = GroupBlock.parse(element.groupBlock());
+      if (groupBlock.isEmpty()) {
+        malformedAtomicNumbers.add(element.atomicNumber());
+        continue;
+      }
+      Integer group = groupBlock.get().group();
+      groups.get(group == null ? 0 : group).add(element);
+      blocks.computeIfAbsent(groupBlock.get().block(), block -> new ArrayList<>()).add(element);
+    }
+    if (!malformedAtomicNumbers.isEmpty()) {
+      logger.warn("Periodic table {} has an invalid group block for atomic numbers {}; they are "
+          + "left out of the group and block filters", etag, malformedAtomicNumbers);
+    }
+    this.elementsByGroup = groups.stream().map(List::copyOf).toList();
+    Map<Character, List<ElementEntity>> immutableBlocks = new HashMap<>();
+    blocks.forEach((block, members) -> immutableBlocks.put(block, List.copyOf(members)));
+    this.elementsByBlock = Map.copyOf(immutableBlocks);
+    this.positionsByFacet = buildFacetIndex(this.elements);
+    this.propertyColumns = new ElementPropertyColumns(this.elements);
+    this.searchIndex = new ElementSearchIndex(this.elements);
+    this.elementsBySymbol = new ElementKeyIndex(this.elements, ElementEntity::symbol);
+    this.elementsByName = new ElementKeyIndex(this.elements, ElementEntity::name);
+  }
+
+  /**
+   * Builds one bitmap of positions per value of every facet.
+   */
+  private static Map<ElementFacet, Map<String, long[]>> buildFacetIndex(
+      List<ElementEntity> elements) {
+    Map<ElementFacet, Map<String, long[]>> index = new EnumMap<>(ElementFacet.class);
+    int words = ElementPropertyColumns.words(elements.size());
+    for (ElementFacet facet : ElementFacet.values()) {
+      Map<String, long[]> positionsByValue = new HashMap<>();
+      for (int position = 0; position < elements.size(); position++) {
+        String value = facet.valueOf(elements.get(position));
+        if (value != null) {
+          ElementPropertyColumns.set(
+              positionsByValue.computeIfAbsent(value, ignored -> new long[words]), position);
+        }
+      }
+      index.put(facet, Map.copyOf(positionsByValue));
+    }
+    return index;
+  }
+
+  private static ElementEntity[] buildDenseIndex(List<ElementEntity> elements,
+                                                 int maxAtomicNumber) {
+    ElementEntity[] index = new ElementEntity[maxAtomicNumber + 1];
+    for (ElementEntity element : elements) {
+      int atomicNumber = element.atomicNumber();
+      // The first row wins for a duplicated atomic number, as with a linear scan.
+      if (atomicNumber > 0 && index[atomicNumber] == null) {
+        index[atomicNumber] = element;
+      }
+    }
+    return index;
+  }
+
+  private static ElementEntity[] dropDuplicateAtomicNumbers(ElementEntity[] sorted) {
+    int size = 0;
+    for (ElementEntity element : sorted) {
+      if (size == 0 || sorted[size - 1].atomicNumber() != element.atomicNumber()) {
+        sorted[size++] = element;
+      }
+    }
+    return Arrays.copyOf(sorted, size);
+  }
+
+  String etag() {
+    return etag;
+  }
+
+  List<ElementEntity> elements() {
+    return elements;
+  }
+
+  /**
+   * Looks up an element by atomic number.
+   *
+   * @param atomicNumber the atomic number of the element
+   * @return the element, or null when there is no element with that atomic number
+   */
+  ElementEntity getElement(int atomicNumber) {
+    if (elementsByAtomicNumber != null) {
+      if (atomicNumber <= 0 || atomicNumber >= elementsByAtomicNumber.length) {
+        return null;
+      }
+      return elementsByAtomicNumber[atomicNumber];
+    }
+    int position = Arrays.binarySearch(sparseAtomicNumbers, atomicNumber);
+    return position < 0 ? null : sparseElements[position];
+  }
+
+  /**
+   * Looks up an element by symbol, ignoring case.
+   *
+   * @param symbol the symbol of the element, e.g. "Fe"
+   * @return the element, or null when there is no element with that symbol
+   */
+  ElementEntity getElementBySymbol(String symbol) {
+    return elementsBySymbol.find(symbol);
+  }
+
+  /**
+   * Looks up an element by name, ignoring case.
+   *
+   * @param name the name of the element, e.g. "Iron"
+   * @return the element, or null when there is no element with that name
+   */
+  ElementEntity getElementByName(String name) {
+    return elementsByName.find(name);
+  }
+
+  /**
+   * Finds the elements of a group.
+   *
+   * @param group the group number (1-18), or null for group "n/a"
+   * @return the elements of the group, in document order
+   */
+  List<ElementEntity> findElementsByGroup(Integer group) {
+    if (group == null) {
+      return elementsByGroup.get(0);
+    }
+    if (group < 1 || group > GROUP_COUNT) {
+      return List.of();
+    }
+    return elementsByGroup.get(group);
+  }
+
+  /**
+   * Finds the elements of a block.
+   *
+   * @param block the block letter, e.g. 's'
+   * @return the elements of the block, in document order
+   */
+  List<ElementEntity> findElementsByBlock(char block) {
+    return elementsByBlock.getOrDefault(Character.toLowerCase(block), List.of());
+  }
+
+  /**
+   * Finds the elements matching a query.
+   * Filters are combined as bitmaps of positions, built per facet value with the snapshot:
+   * the values of a facet are united, then the facets and ranges are intersected. The result
+   * is listed in snapshot order, or by a scan of the sorted column when the query has a sort.
+   *
+   * @param query the query
+   * @return the matching elements, at most {@code query.limit()} of them
+   */
+  List<ElementEntity> query(ElementQuery query) {
+    long[] positions = propertyColumns.all();
+    query.facets().forEach((facet, values) -> {
+      // A disjunction of the values of a facet, intersected with the other filters.
+      long[] anyValue = new long[positions.length];
+      Map<String, long[]> positionsByValue = positionsByFacet.get(facet);
+      for (String value : values) {
+        ElementPropertyColumns.addAll(anyValue, positionsByValue.getOrDefault(value, anyValue));
+      }
+      ElementPropertyColumns.retainAll(positions, anyValue);
+    });
+    query.ranges().forEach((property, range) ->
+        ElementPropertyColumns.retainAll(positions, propertyColumns.range(property, range)));
+    int limit = query.limit() == null ? elements.size() : query.limit();
+    int[] matches = query.sort() == null
+        ? propertyColumns.inOrder(positions, limit)
+        : propertyColumns.sortedBy(positions, query.sort(), query.descending(), limit);
+    List<ElementEntity> result = new ArrayList<>(matches.length);
+    for (int position : matches) {
+      result.add(elements.get(position));
+    }
+    return result;
+  }
+
+  /**
+   * Searches elements by the start or the spelling of their names and symbols.
+   *
+   * @param query the text typed so far
+   * @param limit the largest number of matches to return
+   * @return the ranked matches, at most one per element
+   */
+  List<ElementSearchIndex.Match> search(String query, int limit) {
+    return searchIndex.search(query, limit);
+  }
+}
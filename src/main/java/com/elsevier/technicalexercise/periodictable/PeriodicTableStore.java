@@ -0,0 +1,86 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import com.elsevier.technicalexercise.cloud.ObjectStorage;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Layout of the periodic table in object storage.
+ * Every stored table has a version token, used as its ETag: reads report it, and writes are
+ * conditional on it, so a write based on an outdated read fails with
+ * {@link ObjectStorage.PreconditionFailedException}.
+ * The layout is selected with {@code periodic-table.storage.mode}.
+ */
+interface PeriodicTableStore {
+
+  /**
+   * Exception thrown when the stored table cannot be mapped from or to JSON.
+   */
+  class JsonMappingException extends RuntimeException {
+    public JsonMappingException(String message, Throwable cause) {
+      super(message, cause);
+    }
+  }
+
+  /**
+   * Maps the rows of a table about to be written to the elements of its snapshot. Layouts call
+   * it before they write, so a table that cannot be indexed fails the write instead of being
+   * stored, and the snapshot of the write only needs the new version token.
+   *
+   * @param jsonCodec the readers and writers for the stored documents
+   * @param data      the rows of the table to write
+   * @return the elements of the table
+   * @throws JsonMappingException if a row cannot be mapped to an element
+   */
+  static List<ElementEntity> toWrittenElements(PeriodicTableJsonCodec jsonCodec,
+                                               List<Map<String, Object>> data) {
+    try {
+      return jsonCodec.toElements(data);
+    } catch (RuntimeException e) {
+      throw new JsonMappingException(
+          "Error on mapping the periodic table to elements : " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Outcome of a write.
+   *
+   * @param response the version token and object version of the written table
+   * @param snapshot the written table, indexed
+   */
+  record StoredWrite(ObjectStorage.PutObjectResponse response, PeriodicTableSnapshot snapshot) {
+  }
+
+  /**
+   * Reads the full table, keeping every attribute of every element.
+   *
+   * @return a future that will complete with the table and its version token
+   */
+  CompletableFuture<PeriodicTableEntity> readDocument();
+
+  /**
+   * Reads the table into a snapshot, unless it is still at the version of the given snapshot.
+   *
+   * @param current the snapshot held by the caller, or null to always read
+   * @return a future that will complete with the new snapshot, or empty when not modified
+   */
+  CompletableFuture<Optional<PeriodicTableSnapshot>> readSnapshotIfModified(
+      PeriodicTableSnapshot current);
+
+  /**
+   * Reads the version token of the stored table without downloading it.
+   *
+   * @return a future that will complete with the version token
+   */
+  CompletableFuture<String> readVersion();
+
+  /**
+   * Writes the table if the stored table is still at the entity's version.
+   *
+   * @param periodicTableEntity the table to write, with the version token it was read at
+   * @return a future that will complete with the new version token and the written snapshot
+   */
+  CompletableFuture<StoredWrite> writeDocument(PeriodicTableEntity periodicTableEntity);
+}
@@ -0,0 +1,15 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import java.util.List;
+
+/**
+ * Outcome of patching the periodic table.
+ * Contains the stored periodic table with its ETag, the version id of the write, and the
+ * atomic numbers of the elements that changed. The version id is null when nothing was
+ * written or the bucket is not versioned.
+ */
+public record PeriodicTableUpdate(
+    PeriodicTableEntity periodicTable,
+    String versionId,
+    List<Integer> changedAtomicNumbers) {
+}
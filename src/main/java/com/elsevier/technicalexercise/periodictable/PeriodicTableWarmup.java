@@ -0,0 +1,99 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads and indexes the periodic table snapshot when the application starts, and renders its
+ * response bodies, so the first requests after a deploy do not pay for the S3 connection
+ * setup, the JSON parse or the serializer warm-up.
+ * The warm-up runs in the background and is retried until it succeeds or the application
+ * shuts down; the readiness health group reports the application as not ready until then.
+ */
+@Component
+class PeriodicTableWarmup implements ApplicationRunner, DisposableBean {
+  private static final Logger logger = LoggerFactory.getLogger(PeriodicTableWarmup.class);
+
+  private final PeriodicTableService periodicTableService;
+  private final ElementResponseCache elementResponseCache;
+  private final boolean enabled;
+  private final Duration retryInterval;
+  private volatile boolean warm;
+  private volatile boolean stopped;
+
+  /**
+   * Constructs a new PeriodicTableWarmup.
+   *
+   * @param periodicTableService the service for periodic table data
+   * @param elementResponseCache the cache of serialized response bodies
+   * @param enabled              whether the snapshot is loaded at startup
+   * @param retryInterval        how long to wait before retrying a failed warm-up
+   */
+  PeriodicTableWarmup(PeriodicTableService periodicTableService,
+                      ElementResponseCache elementResponseCache,
+                      @Value("${periodic-table.warmup.enabled:true}") boolean enabled,
+                      @Value("${periodic-table.warmup.retry-interval:5s}")
+                      Duration retryInterval) {
+    this.periodicTableService = periodicTableService;
+    this.elementResponseCache = elementResponseCache;
+    this.enabled = enabled;
+    this.retryInterval = retryInterval;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (!this.enabled) {
+      this.warm = true;
+      return;
+    }
+    this.warmUp();
+  }
+
+  @Override
+  public void destroy() {
+    this.stopped = true;
+  }
+
+  /**
+   * Checks whether the snapshot has been loaded and its responses rendered.
+   *
+   * @return true once the warm-up succeeded
+   */
+  boolean isWarm() {
+    return this.warm;
+  }
+
+  private CompletableFuture<Void> warmUp() {
+    return this.periodicTableService.getSnapshot()
+        .thenAccept(this.elementResponseCache::forSnapshot)
+        .handle((ignored, ex) -> {
+          if (ex == null) {
+            this.warm = true;
+            logger.info("Periodic table snapshot loaded and response bodies rendered");
+            return null;
+          }
+          if (this.stopped) {
+            logger.warn("Periodic table warm-up failed while shutting down: {}",
+                ex.getMessage());
+            return null;
+          }
+          logger.warn("Periodic table warm-up failed, retrying in {}: {}",
+              this.retryInterval, ex.getMessage());
+          CompletableFuture.runAsync(() -> {
+            if (!this.stopped) {
+              this.warmUp();
+            }
+          }, CompletableFuture.delayedExecutor(
+              this.retryInterval.toMillis(), TimeUnit.MILLISECONDS));
+          return null;
+        });
+  }
+}
@@ -0,0 +1,356 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import com.elsevier.technicalexercise.cloud.ObjectStorage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Write-behind mode of the periodic table updates.
+ * An accepted patch is appended to a local journal forced to disk, and shown by the snapshot of
+ * this instance at once, before it is written to object storage. Pending patches are flushed
+ * in the background through the write coordinator, so they are written together with one
+ * conditional put, and are replayed from the journal when the application restarts.
+ * Only transient failures, such as object storage being unreachable or the table being
+ * contended, are retried at the next flush. A patch that fails deterministically, such as one
+ * conflicting with a concurrent update or that no longer applies to the table, fails, is logged
+ * and disappears from the snapshot.
+ */
+@Component
+@ConditionalOnProperty(name = "periodic-table.write.mode", havingValue = "write-behind")
+class PeriodicTableWriteBehind implements ApplicationRunner, DisposableBean {
+  private static final Logger logger = LoggerFactory.getLogger(PeriodicTableWriteBehind.class);
+
+  private final PeriodicTableRepository periodicTableRepository;
+  private final PeriodicTableWriteCoordinator writeCoordinator;
+  private final PeriodicTableJsonCodec jsonCodec;
+  private final PeriodicTableWriteJournal journal;
+  private final Duration flushInterval;
+  private final int maxRetainedOperations;
+  private final int journalCompactionThreshold;
+  private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+  private final Object lock = new Object();
+  private final List<PendingOperation> pendingOperations = new ArrayList<>();
+  private final Map<String, PeriodicTableOperation> operations = new ConcurrentHashMap<>();
+  private final ArrayDeque<String> completedOperationIds = new ArrayDeque<>();
+  private long pendingVersion;
+  private boolean flushing;
+  private volatile Overlay overlay;
+  private volatile boolean stopped;
+
+  /**
+   * A journaled patch waiting to be written to object storage.
+   */
+  private record PendingOperation(String id, List<ElementPatchRequestDto> patches,
+                                  ElementPatchMerger merger,
+                                  List<Integer> changedAtomicNumbers) {
+  }
+
+  /**
+   * Snapshot showing the pending patches on top of the snapshot read from object storage.
+   */
+  private record Overlay(PeriodicTableSnapshot base, long version,
+                         PeriodicTableSnapshot snapshot) {
+  }
+
+  /**
+   * Constructs a new PeriodicTableWriteBehind, and reads back the patches left pending in the
+   * journal by a previous run.
+   *
+   * @param periodicTableRepository    the repository for periodic table data
+   * @param writeCoordinator           the group commit of patches
+   * @param jsonCodec                  the readers and writers for the stored documents
+   * @param objectMapper               the mapper of the journal entries
+   * @param journalPath                the local journal file
+   * @param flushInterval              the time between two flushes of pending patches
+   * @param maxRetainedOperations      how many completed operations are kept for status queries
+   * @param journalCompactionThreshold how many completed entries the journal may hold before
+   *                                   it is rewritten with only the pending patches
+   * @throws IOException if the journal cannot be opened or read
+   */
+  PeriodicTableWriteBehind(PeriodicTableRepository periodicTableRepository,
+                           PeriodicTableWriteCoordinator writeCoordinator,
+                           PeriodicTableJsonCodec jsonCodec,
+                           ObjectMapper objectMapper,
+                           @Value("${periodic-table.write.write-behind.journal:"
+                               + "periodic-table-journal.ndjson}")
+                           String journalPath,
+                           @Value("${periodic-table.write.write-behind.flush-interval:1s}")
+                           Duration flushInterval,
+                           @Value("${periodic-table.write.write-behind.max-retained-operations:"
+                               + "10000}")
+                           int maxRetainedOperations,
+                           @Value("${periodic-table.write.write-behind.journal-compaction-"
+                               + "threshold:1000}")
+                           int journalCompactionThreshold) throws IOException {
+    this.periodicTableRepository = periodicTableRepository;
+    this.writeCoordinator = writeCoordinator;
+    this.jsonCodec = jsonCodec;
+    this.flushInterval = flushInterval;
+    this.maxRetainedOperations = maxRetainedOperations;
+    this.journalCompactionThreshold = journalCompactionThreshold;
+    this.journal = PeriodicTableWriteJournal.open(Path.of(journalPath), objectMapper);
+    for (PeriodicTableWriteJournal.PendingEntry entry : this.journal.readPending()) {
+      this.pendingOperations.add(new PendingOperation(entry.id(), entry.patches(),
+          new ElementPatchMerger(entry.patches()), entry.changedAtomicNumbers()));
+      this.operations.put(entry.id(),
+          PeriodicTableOperation.pending(entry.id(), entry.changedAtomicNumbers()));
+    }
+    this.pendingVersion = this.pendingOperations.size();
+    if (!this.pendingOperations.isEmpty()) {
+      logger.info("Replaying {} journaled periodic table patches", this.pendingOperations.size());
+    }
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    this.schedule();
+  }
+
+  @Override
+  public void destroy() throws IOException {
+    this.stopped = true;
+    this.journal.close();
+  }
+
+  /**
+   * Accepts a patch batch: checks it against the snapshot, journals it and shows it in the
+   * snapshot of this instance, without waiting for it to be written to object storage.
+   *
+   * @param patches the patches to apply, at most one per atomic number
+   * @return a future that will complete with the pending operation
+   * @throws ElementPatchMerger.DuplicateAtomicNumberException if two patches target the same
+   *                                                           atomic number
+   */
+  CompletableFuture<PeriodicTableOperation> submit(List<ElementPatchRequestDto> patches) {
+    ElementPatchMerger merger = new ElementPatchMerger(patches);
+    return this.getSnapshot().thenApply(snapshot -> {
+      List<Integer> changedAtomicNumbers =
+          merger.merge(this.toRows(snapshot)).changedAtomicNumbers();
+      String id = UUID.randomUUID().toString();
+      synchronized (this.lock) {
+        try {
+          this.journal.appendPatch(id, patches, changedAtomicNumbers);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        this.pendingOperations.add(
+            new PendingOperation(id, patches, merger, changedAtomicNumbers));
+        this.pendingVersion++;
+      }
+      PeriodicTableOperation operation =
+          PeriodicTableOperation.pending(id, changedAtomicNumbers);
+      this.operations.put(id, operation);
+      return operation;
+    });
+  }
+
+  /**
+   * Gets the current snapshot, showing the patches that are not written to object storage yet.
+   *
+   * @return a future that will complete with the snapshot
+   */
+  CompletableFuture<PeriodicTableSnapshot> getSnapshot() {
+    return this.periodicTableRepository.getSnapshot().thenApply(this::overlay);
+  }
+
+  /**
+   * Gets the state of an operation.
+   *
+   * @param id the operation id
+   * @return the operation, or empty when it is unknown or was completed too long ago
+   */
+  Optional<PeriodicTableOperation> getOperation(String id) {
+    return Optional.ofNullable(this.operations.get(id));
+  }
+
+  /**
+   * Writes the pending patches to object storage, unless a flush is already running.
+   *
+   * @return a future that will complete once the flush is done
+   */
+  CompletableFuture<Void> flush() {
+    List<PendingOperation> batch;
+    synchronized (this.lock) {
+      if (this.flushing || this.pendingOperations.isEmpty()) {
+        return CompletableFuture.completedFuture(null);
+      }
+      this.flushing = true;
+      batch = List.copyOf(this.pendingOperations);
+    }
+    List<CompletableFuture<String>> writes = batch.stream()
+        .map(operation -> this.writeCoordinator.submit(operation.merger())
+            .handle((update, ex) -> this.complete(operation, update, ex)))
+        .toList();
+    return CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new))
+        .thenRun(() -> this.journalCompleted(writes.stream()
+            .map(CompletableFuture::join)
+            .filter(Objects::nonNull)
+            .toList()))
+        .whenComplete((ignored, ex) -> {
+          if (ex != null) {
+            logger.warn("Periodic table journal could not be updated: {}", ex.getMessage());
+          }
+          synchronized (this.lock) {
+            this.flushing = false;
+          }
+        });
+  }
+
+  /**
+   * Records the outcome of writing one operation.
+   *
+   * @return the operation id when the operation is done, or null when it is retried later
+   */
+  private String complete(PendingOperation operation, PeriodicTableUpdate update,
+                          Throwable ex) {
+    Throwable cause = ex;
+    while (cause instanceof CompletionException && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    if (cause != null && isTransient(cause)) {
+      logger.warn("Periodic table patch {} will be retried: {}", operation.id(),
+          cause.getMessage());
+      return null;
+    }
+    if (cause != null) {
+      logger.warn("Periodic table patch {} failed and will not be retried: {}", operation.id(),
+          cause.toString());
+    }
+    PeriodicTableOperation completed = cause == null
+        ? PeriodicTableOperation.durable(operation.id(), update)
+        : PeriodicTableOperation.failed(operation.id(), operation.changedAtomicNumbers(), cause);
+    this.operations.put(operation.id(), completed);
+    synchronized (this.lock) {
+      this.pendingOperations.remove(operation);
+      this.pendingVersion++;
+      this.completedOperationIds.add(operation.id());
+      while (this.completedOperationIds.size() > this.maxRetainedOperations) {
+        this.operations.remove(this.completedOperationIds.poll());
+      }
+    }
+    return operation.id();
+  }
+
+  /**
+   * Records in the journal the operations a flush completed. The journal is emptied when
+   * nothing is pending any more, and rewritten with only the pending patches once it holds too
+   * many completed entries, so it does not grow while patches keep arriving.
+   */
+  private void journalCompleted(List<String> ids) {
+    if (ids.isEmpty()) {
+      return;
+    }
+    synchronized (this.lock) {
+      try {
+        if (this.pendingOperations.isEmpty()) {
+          this.journal.truncate();
+        } else if (this.journal.completedEntries() + ids.size()
+            > this.journalCompactionThreshold) {
+          this.journal.rewrite(this.pendingOperations.stream()
+              .map(operation -> new PeriodicTableWriteJournal.PendingEntry(operation.id(),
+                  operation.patches(), operation.changedAtomicNumbers()))
+              .toList());
+        } else {
+          this.journal.appendCompleted(ids);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * Checks whether writing the patch may succeed later: the write lost to concurrent updates
+   * too many times, or object storage failed. Any other failure comes from merging the patch,
+   * and would happen again.
+   */
+  private static boolean isTransient(Throwable cause) {
+    return cause instanceof PeriodicTableService.PeriodicTableContentionException
+        || ObjectStorage.isStorageFailure(cause);
+  }
+
+  /**
+   * Applies the pending patches on top of a snapshot read from object storage. The result is
+   * kept until the snapshot or the pending patches change.
+   */
+  private PeriodicTableSnapshot overlay(PeriodicTableSnapshot base) {
+    List<PendingOperation> pending;
+    long version;
+    synchronized (this.lock) {
+      if (this.pendingOperations.isEmpty()) {
+        return base;
+      }
+      pending = List.copyOf(this.pendingOperations);
+      version = this.pendingVersion;
+    }
+    Overlay current = this.overlay;
+    if (current != null && current.base() == base && current.version() == version) {
+      return current.snapshot();
+    }
+    List<Map<String, Object>> rows = this.toRows(base);
+    for (PendingOperation operation : pending) {
+      try {
+        rows = operation.merger().merge(rows).data();
+      } catch (RuntimeException e) {
+        // The flush fails the patch as well; until then it is not shown.
+        logger.warn("Periodic table patch {} no longer applies and is not shown: {}",
+            operation.id(), e.toString());
+      }
+    }
+    PeriodicTableSnapshot snapshot = new PeriodicTableSnapshot(
+        overlayEtag(base.etag(), version), this.jsonCodec.toElements(rows));
+    this.overlay = new Overlay(base, version, snapshot);
+    return snapshot;
+  }
+
+  /**
+   * Derives the ETag of an overlay from the snapshot it is built on, and from this instance
+   * and its pending patches, so that responses rendered from it are never confused with
+   * responses rendered from what is stored.
+   */
+  private String overlayEtag(String baseEtag, long version) {
+    String baseVersion = baseEtag == null ? "unversioned" : baseEtag.replace("\"", "");
+    return "\"" + baseVersion + "+" + this.instanceId + "." + version + "\"";
+  }
+
+  private List<Map<String, Object>> toRows(PeriodicTableSnapshot snapshot) {
+    List<Map<String, Object>> rows = new ArrayList<>(snapshot.elements().size());
+    for (ElementEntity element : snapshot.elements()) {
+      rows.add(this.jsonCodec.toRow(element));
+    }
+    return rows;
+  }
+
+  private void schedule() {
+    if (this.stopped) {
+      return;
+    }
+    CompletableFuture.runAsync(() -> {
+      if (!this.stopped) {
+        this.flush().whenComplete((ignored, ex) -> this.schedule());
+      }
+    }, CompletableFuture.delayedExecutor(this.flushInterval.toMillis(), TimeUnit.MILLISECONDS));
+  }
+}
@@ -0,0 +1,357 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import com.elsevier.technicalexercise.cloud.ObjectStorage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Group commit of patches to the periodic table.
+ * Patches arriving within a short window, or until the batch is full, are merged in arrival
+ * order and written with one conditional put, so concurrent patches share one download and
+ * one upload of the table instead of racing each other on its ETag. Only one batch is written
+ * at a time; patches arriving meanwhile form the next batch.
+ * A batch that loses to another writer is re-applied to the fresh table and retried with a
+ * jittered backoff, except for the patches that change a field the other writer also changed.
+ * A patch made against a known ETag is only applied to the table at that ETag, and is merged
+ * into the table this node last saw instead of downloading it when that table matches and no
+ * other patch of the batch names another ETag.
+ */
+@Component
+class PeriodicTableWriteCoordinator {
+  private final PeriodicTableRepository periodicTableRepository;
+  private final Duration batchWindow;
+  private final int maxBatchSize;
+  private final int maxWriteAttempts;
+  private final Duration retryBackoff;
+  private final Duration maxRetryBackoff;
+  private final Counter writeRequests;
+  private final Counter writeRetries;
+  private final Counter writeConflicts;
+  private final DistributionSummary batchSizes;
+  private final Object lock = new Object();
+  private List<PendingPatch> pendingPatches = new ArrayList<>();
+  private boolean flushScheduled;
+  private boolean writing;
+
+  /**
+   * A submitted patch batch waiting for its write.
+   */
+  private static final class PendingPatch {
+    private final ElementPatchMerger merger;
+    private final String ifMatch;
+    private final CompletableFuture<PeriodicTableUpdate> result = new CompletableFuture<>();
+    private List<Integer> changedAtomicNumbers = List.of();
+
+    private PendingPatch(ElementPatchMerger merger, String ifMatch) {
+      this.merger = merger;
+      this.ifMatch = ifMatch;
+    }
+  }
+
+  /**
+   * Constructs a new PeriodicTableWriteCoordinator.
+   *
+   * @param periodicTableRepository the repository for periodic table data
+   * @param meterRegistry           the registry for write metrics
+   * @param batchWindow             how long the first patch of a batch waits for others
+   * @param maxBatchSize            how many patches are written together at most
+   * @param maxWriteAttempts        how many times a batch is written before giving up
+   * @param retryBackoff            the longest delay before the first retry of a write
+   * @param maxRetryBackoff         the longest delay before any retry of a write
+   */
+  PeriodicTableWriteCoordinator(PeriodicTableRepository periodicTableRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${periodic-table.write.batch-window:10ms}")
+                                Duration batchWindow,
+                                @Value("${periodic-table.write.max-batch-size:64}")
+                                int maxBatchSize,
+                                @Value("${periodic-table.write.max-attempts:5}")
+                                int maxWriteAttempts,
+                                @Value("${periodic-table.write.retry-backoff:50ms}")
+                                Duration retryBackoff,
+                                @Value("${periodic-table.write.max-retry-backoff:1s}")
+                                Duration maxRetryBackoff) {
+    this.periodicTableRepository = periodicTableRepository;
+    this.batchWindow = batchWindow;
+    this.maxBatchSize = maxBatchSize;
+    this.maxWriteAttempts = maxWriteAttempts;
+    this.retryBackoff = retryBackoff;
+    this.maxRetryBackoff = maxRetryBackoff;
+    this.writeRequests = Counter.builder("periodic.table.write.requests")
+        .description("Patch requests written to the periodic table")
+        .register(meterRegistry);
+    this.writeRetries = Counter.builder("periodic.table.write.retries")
+        .description("Patch writes retried after losing to a concurrent update")
+        .register(meterRegistry);
+    this.writeConflicts = Counter.builder("periodic.table.write.conflicts")
+        .description("Patch requests rejected because of a concurrent update")
+        .register(meterRegistry);
+    this.batchSizes = DistributionSummary.builder("periodic.table.write.batch.size")
+        .description("Patch requests written together with one conditional put")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Queues a patch batch for the next group commit.
+   *
+   * @param merger the indexed patches of one request
+   * @return a future that will complete with the stored periodic table and the rows this
+   *     request changed
+   */
+  CompletableFuture<PeriodicTableUpdate> submit(ElementPatchMerger merger) {
+    return this.submit(merger, null);
+  }
+
+  /**
+   * Queues a patch batch made against a known version of the table for the next group commit.
+   * The batch is rejected instead of being re-applied when the table is at another version.
+   *
+   * @param merger  the indexed patches of one request
+   * @param ifMatch the ETag the table must be at, or null to patch whatever version it is at
+   * @return a future that will complete with the stored periodic table and the rows this
+   *     request changed, or fail with
+   *     {@link PeriodicTableService.PeriodicTableVersionMismatchException}
+   */
+  CompletableFuture<PeriodicTableUpdate> submit(ElementPatchMerger merger, String ifMatch) {
+    this.writeRequests.increment();
+    PendingPatch pendingPatch = new PendingPatch(merger, ifMatch);
+    boolean flushNow = false;
+    boolean scheduleFlush = false;
+    synchronized (this.lock) {
+      this.pendingPatches.add(pendingPatch);
+      if (this.pendingPatches.size() >= this.maxBatchSize) {
+        flushNow = true;
+      } else if (!this.flushScheduled) {
+        this.flushScheduled = true;
+        scheduleFlush = true;
+      }
+    }
+    if (flushNow) {
+      this.flush();
+    } else if (scheduleFlush) {
+      CompletableFuture.runAsync(this::onBatchWindowElapsed, CompletableFuture.delayedExecutor(
+          this.batchWindow.toMillis(), TimeUnit.MILLISECONDS));
+    }
+    return pendingPatch.result;
+  }
+
+  private void onBatchWindowElapsed() {
+    synchronized (this.lock) {
+      this.flushScheduled = false;
+    }
+    this.flush();
+  }
+
+  /**
+   * Writes the pending patches unless a batch is already being written, in which case they
+   * are written as soon as it completes.
+   */
+  private void flush() {
+    List<PendingPatch> batch;
+    synchronized (this.lock) {
+      if (this.writing || this.pendingPatches.isEmpty()) {
+        return;
+      }
+      if (this.pendingPatches.size() <= this.maxBatchSize) {
+        batch = this.pendingPatches;
+        this.pendingPatches = new ArrayList<>();
+      } else {
+        List<PendingPatch> head = this.pendingPatches.subList(0, this.maxBatchSize);
+        batch = new ArrayList<>(head);
+        head.clear();
+      }
+      this.writing = true;
+    }
+    this.batchSizes.record(batch.size());
+    CompletableFuture.completedFuture(batch)
+        .thenCompose((ignored) -> this.readBatchBase(batch))
+        .thenCompose(periodicTableEntity ->
+            this.writeBatch(batch, periodicTableEntity.data(), periodicTableEntity, 1))
+        .whenComplete((ignored, ex) -> {
+          if (ex != null) {
+            Throwable cause = ex;
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+              cause = cause.getCause();
+            }
+            Throwable failure = cause;
+            batch.forEach(pendingPatch -> pendingPatch.result.completeExceptionally(failure));
+          }
+          synchronized (this.lock) {
+            this.writing = false;
+          }
+          // Patches that arrived during the write already waited longer than the window.
+          CompletableFuture.runAsync(this::flush);
+        });
+  }
+
+  /**
+   * Reads the table to merge the batch into. When the patches of the batch that were made
+   * against a known version all name the table this node last read or wrote, that table is used
+   * without downloading it again. When they name different versions, the table is read from
+   * object storage, so that a patch is only rejected when its ETag is stale against storage
+   * rather than against this node.
+   */
+  private CompletableFuture<PeriodicTableEntity> readBatchBase(List<PendingPatch> batch) {
+    Set<String> ifMatches = new HashSet<>();
+    for (PendingPatch pendingPatch : batch) {
+      if (pendingPatch.ifMatch != null) {
+        ifMatches.add(pendingPatch.ifMatch);
+      }
+    }
+    if (ifMatches.size() == 1) {
+      Optional<PeriodicTableEntity> cached =
+          this.periodicTableRepository.getCachedPeriodicTable(ifMatches.iterator().next());
+      if (cached.isPresent()) {
+        return CompletableFuture.completedFuture(cached.get());
+      }
+    }
+    return this.periodicTableRepository.getPeriodicTable();
+  }
+
+  /**
+   * Merges the batch into the table in arrival order and writes it with one conditional put.
+   * A patch that cannot be applied fails on its own without failing the rest of the batch.
+   */
+  private CompletableFuture<Void> writeBatch(List<PendingPatch> batch,
+                                             List<Map<String, Object>> base,
+                                             PeriodicTableEntity periodicTableEntity,
+                                             int attempt) {
+    List<Map<String, Object>> data = periodicTableEntity.data();
+    List<PendingPatch> applied = new ArrayList<>(batch.size());
+    boolean changed = false;
+    for (PendingPatch pendingPatch : batch) {
+      // Once a patch changed the table, it is no longer at the ETag any patch was made against.
+      if (this.rejectVersionMismatch(pendingPatch, changed ? null : periodicTableEntity.etag())) {
+        continue;
+      }
+      try {
+        ElementPatchMerger.MergedDocument merged = pendingPatch.merger.merge(data);
+        data = merged.data();
+        pendingPatch.changedAtomicNumbers = merged.changedAtomicNumbers();
+        changed |= !merged.changedAtomicNumbers().isEmpty();
+        applied.add(pendingPatch);
+      } catch (RuntimeException ex) {
+        pendingPatch.result.completeExceptionally(ex);
+      }
+    }
+    if (!changed) {
+      complete(applied, periodicTableEntity, null);
+      return CompletableFuture.completedFuture(null);
+    }
+    List<Map<String, Object>> updatedData = data;
+    PeriodicTableEntity updatedEntity =
+        new PeriodicTableEntity(updatedData, periodicTableEntity.etag());
+    return this.periodicTableRepository.updatePeriodicTable(updatedEntity)
+        .thenAccept(resp -> complete(applied,
+            new PeriodicTableEntity(updatedData, resp.etag()), resp.versionId()))
+        .exceptionallyCompose(ex -> {
+          if (!isPreconditionFailure(ex)) {
+            return CompletableFuture.failedFuture(ex);
+          }
+          if (attempt >= this.maxWriteAttempts) {
+            this.writeConflicts.increment(applied.size());
+            return CompletableFuture.failedFuture(
+                new PeriodicTableService.PeriodicTableContentionException(
+                    "Periodic table is being updated concurrently, gave up after "
+                        + attempt + " attempts"));
+          }
+          this.writeRetries.increment();
+          return CompletableFuture.runAsync(() -> { },
+                  CompletableFuture.delayedExecutor(this.retryDelayMillis(attempt),
+                      TimeUnit.MILLISECONDS))
+              .thenCompose((ignored) -> this.periodicTableRepository.getPeriodicTable())
+              .thenCompose(currentEntity -> {
+                List<PendingPatch> rebased = this.rejectConflicts(applied, base, currentEntity);
+                if (rebased.isEmpty()) {
+                  return CompletableFuture.completedFuture(null);
+                }
+                return this.writeBatch(rebased, base, currentEntity, attempt + 1);
+              });
+        });
+  }
+
+  /**
+   * Fails the patches that change a field another writer changed meanwhile.
+   *
+   * @return the patches that can be re-applied to the current table
+   */
+  private List<PendingPatch> rejectConflicts(List<PendingPatch> batch,
+                                             List<Map<String, Object>> base,
+                                             PeriodicTableEntity currentEntity) {
+    List<PendingPatch> rebased = new ArrayList<>(batch.size());
+    for (PendingPatch pendingPatch : batch) {
+      if (this.rejectVersionMismatch(pendingPatch, currentEntity.etag())) {
+        continue;
+      }
+      List<Integer> conflicts = pendingPatch.merger.findConflicts(base, currentEntity.data());
+      if (conflicts.isEmpty()) {
+        rebased.add(pendingPatch);
+        continue;
+      }
+      this.writeConflicts.increment();
+      pendingPatch.result.completeExceptionally(
+          new PeriodicTableService.ElementConflictException(
+              "Elements were changed by another update meanwhile, atomic numbers : "
+                  + conflicts));
+    }
+    return rebased;
+  }
+
+  /**
+   * Fails the patch when it was made against another version of the table.
+   *
+   * @param etag the ETag of the table the patch would be merged into, or null when it has none
+   * @return whether the patch was failed
+   */
+  private boolean rejectVersionMismatch(PendingPatch pendingPatch, String etag) {
+    if (pendingPatch.ifMatch == null || pendingPatch.ifMatch.equals(etag)) {
+      return false;
+    }
+    this.writeConflicts.increment();
+    pendingPatch.result.completeExceptionally(
+        new PeriodicTableService.PeriodicTableVersionMismatchException(
+            "Periodic table is no longer at ETag " + pendingPatch.ifMatch));
+    return true;
+  }
+
+  private static void complete(List<PendingPatch> batch, PeriodicTableEntity periodicTableEntity,
+                               String versionId) {
+    for (PendingPatch pendingPatch : batch) {
+      pendingPatch.result.complete(new PeriodicTableUpdate(periodicTableEntity, versionId,
+          pendingPatch.changedAtomicNumbers));
+    }
+  }
+
+  /**
+   * Picks a random delay up to the retry backoff doubled for every failed attempt, so
+   * writers that collided do not collide again on their retry.
+   */
+  private long retryDelayMillis(int attempt) {
+    long ceilingMillis = Math.min(this.retryBackoff.toMillis() << Math.min(attempt - 1, 20),
+        this.maxRetryBackoff.toMillis());
+    return ThreadLocalRandom.current().nextLong(ceilingMillis + 1);
+  }
+
+  private static boolean isPreconditionFailure(Throwable ex) {
+    for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ObjectStorage.PreconditionFailedException) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
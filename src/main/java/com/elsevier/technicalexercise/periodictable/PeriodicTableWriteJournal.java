@@ -0,0 +1,251 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only local journal of the patches accepted by the write-behind mode.
+ * Every append is forced to disk before it returns, so a patch acknowledged to a client
+ * survives a crash of the process. Each entry is one line of JSON: either a patch with its
+ * operation id, or the id of an operation that no longer needs replaying because it was
+ * written to object storage or failed for good. Once enough of the latter pile up, the journal
+ * is rewritten with only the patches still pending.
+ */
+final class PeriodicTableWriteJournal implements Closeable {
+  private static final Logger logger = LoggerFactory.getLogger(PeriodicTableWriteJournal.class);
+
+  static final String PATCH_ENTRY = "patch";
+  static final String COMPLETED_ENTRY = "completed";
+
+  private final Path path;
+  private final ObjectMapper objectMapper;
+  private final ObjectReader entryReader;
+  private FileChannel channel;
+  private int completedEntries;
+
+  /**
+   * One line of the journal.
+   *
+   * @param type                 {@link #PATCH_ENTRY} or {@link #COMPLETED_ENTRY}
+   * @param id                   the operation id
+   * @param patches              the patches of the operation, or null for a completed
+   *                             operation
+   * @param changedAtomicNumbers the atomic numbers the patches changed when they were
+   *                             accepted, or null for a completed operation
+   */
+  record Entry(String type, String id, List<ElementPatchRequestDto> patches,
+               List<Integer> changedAtomicNumbers) {
+  }
+
+  /**
+   * A patch that was journaled but not completed yet.
+   *
+   * @param id                   the operation id
+   * @param patches              the patches of the operation
+   * @param changedAtomicNumbers the atomic numbers the patches changed when they were accepted
+   */
+  record PendingEntry(String id, List<ElementPatchRequestDto> patches,
+                      List<Integer> changedAtomicNumbers) {
+  }
+
+  private PeriodicTableWriteJournal(Path path, FileChannel channel, ObjectMapper objectMapper) {
+    this.path = path;
+    this.channel = channel;
+    this.objectMapper = objectMapper;
+    this.entryReader = objectMapper.readerFor(Entry.class)
+        .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+  }
+
+  /**
+   * Opens the journal, creating it and its parent directories when missing.
+   * A last line cut short by a crash is terminated, so the next entry starts on its own line.
+   *
+   * @param path         the journal file
+   * @param objectMapper the mapper of the journal entries
+   * @return the opened journal, appending after its existing entries
+   * @throws IOException if the journal cannot be opened
+   */
+  static PeriodicTableWriteJournal open(Path path, ObjectMapper objectMapper) throws IOException {
+    Path parent = path.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    FileChannel channel = openChannel(path);
+    long size = channel.size();
+    if (size > 0) {
+      ByteBuffer lastByte = ByteBuffer.allocate(1);
+      channel.read(lastByte, size - 1);
+      if (lastByte.get(0) != '\n') {
+        channel.write(ByteBuffer.wrap(new byte[] {'\n'}), size);
+        channel.force(true);
+      }
+    }
+    channel.position(channel.size());
+    return new PeriodicTableWriteJournal(path, channel, objectMapper);
+  }
+
+  private static FileChannel openChannel(Path path) throws IOException {
+    return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+  }
+
+  /**
+   * Reads the patches that were journaled and never completed, in the order they were
+   * appended. A line that cannot be read, such as the last line of a crash during an append,
+   * is skipped.
+   *
+   * @return the patches to replay
+   * @throws IOException if the journal cannot be read
+   */
+  synchronized List<PendingEntry> readPending() throws IOException {
+    Map<String, PendingEntry> pending = new LinkedHashMap<>();
+    Set<String> completed = new HashSet<>();
+    int completedEntries = 0;
+    try (BufferedReader reader = Files.newBufferedReader(this.path, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isBlank()) {
+          continue;
+        }
+        Entry entry;
+        try {
+          entry = this.entryReader.readValue(line);
+        } catch (JsonProcessingException e) {
+          logger.warn("Skipping unreadable periodic table journal entry: {}",
+              e.getOriginalMessage());
+          continue;
+        }
+        if (PATCH_ENTRY.equals(entry.type()) && entry.patches() != null) {
+          pending.put(entry.id(), new PendingEntry(entry.id(), entry.patches(),
+              entry.changedAtomicNumbers() == null ? List.of() : entry.changedAtomicNumbers()));
+        } else if (COMPLETED_ENTRY.equals(entry.type())) {
+          completed.add(entry.id());
+          completedEntries++;
+        }
+      }
+    }
+    this.completedEntries = completedEntries;
+    pending.keySet().removeAll(completed);
+    return new ArrayList<>(pending.values());
+  }
+
+  /**
+   * Appends a patch and forces it to disk.
+   *
+   * @param id                   the operation id
+   * @param patches              the patches of the operation
+   * @param changedAtomicNumbers the atomic numbers the patches changed when they were accepted
+   * @throws IOException if the entry cannot be written
+   */
+  synchronized void appendPatch(String id, List<ElementPatchRequestDto> patches,
+                                List<Integer> changedAtomicNumbers) throws IOException {
+    this.append(List.of(new Entry(PATCH_ENTRY, id, patches, changedAtomicNumbers)));
+  }
+
+  /**
+   * Appends the ids of operations that no longer need replaying and forces them to disk.
+   *
+   * @param ids the completed operation ids
+   * @throws IOException if the entry cannot be written
+   */
+  synchronized void appendCompleted(List<String> ids) throws IOException {
+    this.append(ids.stream().map(id -> new Entry(COMPLETED_ENTRY, id, null, null)).toList());
+    this.completedEntries += ids.size();
+  }
+
+  /**
+   * Gets how many completed entries the journal holds, which a rewrite would drop.
+   *
+   * @return the number of completed entries
+   */
+  synchronized int completedEntries() {
+    return this.completedEntries;
+  }
+
+  /**
+   * Empties the journal, once every journaled operation is completed.
+   *
+   * @throws IOException if the journal cannot be truncated
+   */
+  synchronized void truncate() throws IOException {
+    this.channel.truncate(0);
+    this.channel.force(true);
+    this.completedEntries = 0;
+  }
+
+  /**
+   * Replaces the journal with one holding only the given pending patches. They are written to
+   * a temporary file forced to disk, which is then moved over the journal atomically, so a
+   * crash leaves either the old journal or the new one, and both replay the same patches.
+   *
+   * @param pending the patches still pending, in the order they were accepted
+   * @throws IOException if the journal cannot be rewritten
+   */
+  synchronized void rewrite(List<PendingEntry> pending) throws IOException {
+    Path rewritten = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+    try (FileChannel rewrittenChannel = FileChannel.open(rewritten, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      write(rewrittenChannel, this.toLines(pending.stream()
+          .map(entry -> new Entry(PATCH_ENTRY, entry.id(), entry.patches(),
+              entry.changedAtomicNumbers()))
+          .toList()));
+    }
+    this.channel.close();
+    try {
+      Files.move(rewritten, this.path, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+      this.completedEntries = 0;
+    } finally {
+      // Appends go on to whichever journal is in place.
+      this.channel = openChannel(this.path);
+      this.channel.position(this.channel.size());
+    }
+  }
+
+  private void append(List<Entry> entries) throws IOException {
+    write(this.channel, this.toLines(entries));
+  }
+
+  private byte[] toLines(List<Entry> entries) throws IOException {
+    ByteArrayOutputStream lines = new ByteArrayOutputStream();
+    for (Entry entry : entries) {
+      lines.write(this.objectMapper.writeValueAsBytes(entry));
+      lines.write('\n');
+    }
+    return lines.toByteArray();
+  }
+
+  private static void write(FileChannel channel, byte[] lines) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(lines);
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    channel.force(true);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    this.channel.close();
+  }
+}
@@ -0,0 +1,68 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Bounds on a numeric property of the elements, bound from query parameters such as
+ * {@code boilingPoint.gt=1000}. Every bound is optional, and all the given bounds must hold.
+ */
+@Schema(description = "Bounds on a numeric property")
+public class RangeFilter {
+  @Schema(description = "Exclusive lower bound")
+  private Double gt;
+
+  @Schema(description = "Inclusive lower bound")
+  private Double gte;
+
+  @Schema(description = "Exclusive upper bound")
+  private Double lt;
+
+  @Schema(description = "Inclusive upper bound")
+  private Double lte;
+
+  public Double getGt() {
+    return gt;
+  }
+
+  public void setGt(Double gt) {
+    this.gt = gt;
+  }
+
+  public Double getGte() {
+    return gte;
+  }
+
+  public void setGte(Double gte) {
+    this.gte = gte;
+  }
+
+  public Double getLt() {
+    return lt;
+  }
+
+  public void setLt(Double lt) {
+    this.lt = lt;
+  }
+
+  public Double getLte() {
+    return lte;
+  }
+
+  public void setLte(Double lte) {
+    this.lte = lte;
+  }
+
+  /**
+   * Checks whether any bound is set.
+   *
+   * @return true when at least one bound is set
+   */
+  public boolean hasBounds() {
+    return gt != null || gte != null || lt != null || lte != null;
+  }
+
+  @Override
+  public String toString() {
+    return "gt=" + gt + ",gte=" + gte + ",lt=" + lt + ",lte=" + lte;
+  }
+}
@@ -0,0 +1,347 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import com.elsevier.technicalexercise.cloud.ObjectStorage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores every element of the periodic table as its own object, listed by a manifest.
+ * The manifest is a JSON array with one entry per element, holding the attributes of an
+ * {@link ElementEntity} together with the key, ETag and size of the element's shard, so
+ * listings and detail lookups are served from the manifest alone, without any shard.
+ * The full elements are only read to be patched; shards are cached by key and only the ones
+ * the manifest points to anew are downloaded.
+ * Shard keys embed an id of the write that uploads them, so a shard is never overwritten and
+ * a key is never reused: a write uploads the shards of the changed elements under new keys,
+ * then commits them by replacing the manifest with If-Match. The version token is the ETag of
+ * the manifest.
+ * The shards a write drops from the manifest are deleted after a retention delay, so that
+ * readers of the previous manifest are done with them. Since no later manifest can list a
+ * dropped key again, deleting it never breaks the table.
+ */
+@Component
+@ConditionalOnProperty(name = "periodic-table.storage.mode", havingValue = "sharded")
+class ShardedPeriodicTableStore implements PeriodicTableStore {
+  static final String SHARD_KEY_FIELD = "shard_key";
+  static final String SHARD_ETAG_FIELD = "shard_etag";
+  static final String SHARD_SIZE_FIELD = "shard_size";
+
+  private static final String MANIFEST_NAME = "manifest.json";
+
+  private static final Logger logger = LoggerFactory.getLogger(ShardedPeriodicTableStore.class);
+
+  private final ObjectStorage objectStorage;
+  private final PeriodicTableJsonCodec jsonCodec;
+  private final String periodicTableBucket;
+  private final String shardPrefix;
+  private final Duration shardRetention;
+  private final Map<String, Map<String, Object>> shardsByKey = new ConcurrentHashMap<>();
+  private final AtomicReference<Manifest> lastReadManifest = new AtomicReference<>();
+
+  /**
+   * Manifest as of one of its versions.
+   */
+  private record Manifest(String etag, List<Map<String, Object>> entries) {
+  }
+
+  /**
+   * Constructs a new ShardedPeriodicTableStore.
+   *
+   * @param objectStorage  the object storage service
+   * @param jsonCodec      the readers and writers for the stored documents
+   * @param bucketName     the bucket of the manifest and the shards
+   * @param shardPrefix    the key prefix of the manifest and the shards
+   * @param shardRetention the time a shard dropped from the manifest is kept before deletion
+   */
+  ShardedPeriodicTableStore(ObjectStorage objectStorage,
+                            PeriodicTableJsonCodec jsonCodec,
+                            @Value("${periodic-table.bucket}") String bucketName,
+                            @Value("${periodic-table.storage.sharded.prefix:"
+                                + "${periodic-table.key}.shards/}") String shardPrefix,
+                            @Value("${periodic-table.storage.sharded.shard-retention:1m}")
+                            Duration shardRetention) {
+    this.objectStorage = objectStorage;
+    this.jsonCodec = jsonCodec;
+    this.periodicTableBucket = bucketName;
+    this.shardPrefix = shardPrefix;
+    this.shardRetention = shardRetention;
+  }
+
+  /**
+   * Reads the manifest and the shards it lists, downloading in parallel only the shards that
+   * are not cached yet.
+   */
+  @Override
+  public CompletableFuture<PeriodicTableEntity> readDocument() {
+    return this.objectStorage.getObject(this.periodicTableBucket, this.manifestKey())
+        .thenCompose(resp -> {
+          Manifest manifest = new Manifest(resp.etag(), this.readManifest(resp));
+          List<CompletableFuture<Map<String, Object>>> rows =
+              new ArrayList<>(manifest.entries().size());
+          for (Map<String, Object> entry : manifest.entries()) {
+            rows.add(this.readShard(String.valueOf(entry.get(SHARD_KEY_FIELD))));
+          }
+          return CompletableFuture.allOf(rows.toArray(CompletableFuture[]::new))
+              .thenApply(ignored -> {
+                List<Map<String, Object>> data = new ArrayList<>(rows.size());
+                for (CompletableFuture<Map<String, Object>> row : rows) {
+                  data.add(row.join());
+                }
+                this.lastReadManifest.set(manifest);
+                this.evictShardsNotIn(manifest);
+                return new PeriodicTableEntity(data, manifest.etag());
+              });
+        });
+  }
+
+  @Override
+  public CompletableFuture<Optional<PeriodicTableSnapshot>> readSnapshotIfModified(
+      PeriodicTableSnapshot current) {
+    if (current == null) {
+      return this.objectStorage.getObject(this.periodicTableBucket, this.manifestKey())
+          .thenApply(resp -> Optional.of(this.parseSnapshot(resp)));
+    }
+    return this.objectStorage.getObjectIfNoneMatch(this.periodicTableBucket,
+            this.manifestKey(), current.etag())
+        .thenApply(resp -> resp.map(this::parseSnapshot));
+  }
+
+  @Override
+  public CompletableFuture<String> readVersion() {
+    return this.objectStorage.headObject(this.periodicTableBucket, this.manifestKey())
+        .thenApply(ObjectStorage.HeadObjectResponse::etag);
+  }
+
+  /**
+   * Uploads the shards of the elements that differ from the last read, then replaces the
+   * manifest if it is still at the entity's version. The entity must be at the version of
+   * the last read, which {@link #readDocument()} brings up to date right before a write. The
+   * written table is indexed before anything is uploaded, so a table that cannot be indexed is
+   * not written.
+   */
+  @Override
+  public CompletableFuture<StoredWrite> writeDocument(PeriodicTableEntity periodicTableEntity) {
+    Manifest current = this.lastReadManifest.get();
+    if (current == null || !current.etag().equals(periodicTableEntity.etag())) {
+      return CompletableFuture.failedFuture(new ObjectStorage.PreconditionFailedException(
+          "Periodic table is no longer at version " + periodicTableEntity.etag(), null));
+    }
+    List<ElementEntity> elements =
+        PeriodicTableStore.toWrittenElements(this.jsonCodec, periodicTableEntity.data());
+    Map<Object, Map<String, Object>> entriesByAtomicNumber =
+        HashMap.newHashMap(current.entries().size());
+    for (Map<String, Object> entry : current.entries()) {
+      entriesByAtomicNumber.put(atomicNumber(entry), entry);
+    }
+    String writeId = newWriteId();
+    List<CompletableFuture<Map<String, Object>>> entries =
+        new ArrayList<>(periodicTableEntity.data().size());
+    for (Map<String, Object> row : periodicTableEntity.data()) {
+      Map<String, Object> entry = entriesByAtomicNumber.get(atomicNumber(row));
+      if (entry != null && row.equals(this.shardsByKey.get(entry.get(SHARD_KEY_FIELD)))) {
+        entries.add(CompletableFuture.completedFuture(entry));
+      } else {
+        entries.add(this.writeShard(row, writeId));
+      }
+    }
+    return CompletableFuture.allOf(entries.toArray(CompletableFuture[]::new))
+        .thenCompose(ignored -> {
+          List<Map<String, Object>> manifestEntries = new ArrayList<>(entries.size());
+          for (CompletableFuture<Map<String, Object>> entry : entries) {
+            manifestEntries.add(entry.join());
+          }
+          byte[] content = this.writeManifest(manifestEntries);
+          return this.objectStorage.replaceObject(this.periodicTableBucket,
+                  this.manifestKey(), content, periodicTableEntity.etag())
+              .thenApply(resp -> {
+                this.lastReadManifest.set(new Manifest(resp.etag(), manifestEntries));
+                this.deleteDroppedShards(current.entries(), manifestEntries);
+                return new StoredWrite(resp, new PeriodicTableSnapshot(resp.etag(), elements));
+              });
+        });
+  }
+
+  /**
+   * Splits a whole periodic table document into shards and creates the manifest listing
+   * them. Fails if the manifest already exists, so a live sharded table is never overwritten.
+   *
+   * @param data the elements of the whole document
+   * @return a future that will complete with the ETag of the created manifest
+   */
+  CompletableFuture<ObjectStorage.PutObjectResponse> importDocument(
+      List<Map<String, Object>> data) {
+    String writeId = newWriteId();
+    List<CompletableFuture<Map<String, Object>>> entries = new ArrayList<>(data.size());
+    for (Map<String, Object> row : data) {
+      entries.add(this.writeShard(row, writeId));
+    }
+    return CompletableFuture.allOf(entries.toArray(CompletableFuture[]::new))
+        .thenCompose(ignored -> {
+          List<Map<String, Object>> manifestEntries = new ArrayList<>(entries.size());
+          for (CompletableFuture<Map<String, Object>> entry : entries) {
+            manifestEntries.add(entry.join());
+          }
+          return this.objectStorage.createObject(this.periodicTableBucket, this.manifestKey(),
+              this.writeManifest(manifestEntries));
+        });
+  }
+
+  private CompletableFuture<Map<String, Object>> readShard(String shardKey) {
+    Map<String, Object> cached = this.shardsByKey.get(shardKey);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached);
+    }
+    return this.objectStorage.getObject(this.periodicTableBucket, shardKey)
+        .thenApply(resp -> {
+          Map<String, Object> row;
+          try {
+            row = this.jsonCodec.readRow(resp.content());
+          } catch (Exception e) {
+            throw new JsonMappingException(
+                "Error on mapping the object on ObjectStorage to JSON : " + e.getMessage(), e);
+          }
+          this.shardsByKey.put(shardKey, row);
+          return row;
+        });
+  }
+
+  /**
+   * Uploads the shard of an element under a new key of the given write. The upload fails
+   * rather than overwrite an object under that key.
+   *
+   * @return a future that will complete with the manifest entry of the shard
+   */
+  private CompletableFuture<Map<String, Object>> writeShard(Map<String, Object> row,
+                                                           String writeId) {
+    byte[] content;
+    try {
+      content = this.jsonCodec.writeRow(row);
+    } catch (Exception e) {
+      throw new JsonMappingException(
+          "Error on mapping the object to JSON : " + e.getMessage(), e);
+    }
+    String shardKey = this.shardKey(atomicNumber(row), writeId);
+    return this.objectStorage.createObject(this.periodicTableBucket, shardKey, content)
+        .thenApply(ObjectStorage.PutObjectResponse::etag)
+        .thenApply(etag -> {
+          this.shardsByKey.put(shardKey, row);
+          Map<String, Object> entry = new LinkedHashMap<>();
+          for (String field : PeriodicTableJsonCodec.ELEMENT_FIELDS) {
+            entry.put(field, row.get(field));
+          }
+          entry.put(SHARD_KEY_FIELD, shardKey);
+          entry.put(SHARD_ETAG_FIELD, etag);
+          entry.put(SHARD_SIZE_FIELD, content.length);
+          return entry;
+        });
+  }
+
+  private void evictShardsNotIn(Manifest manifest) {
+    this.shardsByKey.keySet().retainAll(shardKeys(manifest.entries()));
+  }
+
+  /**
+   * Deletes, once the retention delay is over, the shards listed by the previous manifest and
+   * not by the written one. Failures are only logged: a shard left behind wastes space, but is
+   * never read.
+   */
+  private void deleteDroppedShards(List<Map<String, Object>> previousEntries,
+                                   List<Map<String, Object>> writtenEntries) {
+    Set<String> dropped = shardKeys(previousEntries);
+    dropped.removeAll(shardKeys(writtenEntries));
+    if (dropped.isEmpty()) {
+      return;
+    }
+    CompletableFuture.runAsync(() -> { },
+            CompletableFuture.delayedExecutor(this.shardRetention.toMillis(),
+                TimeUnit.MILLISECONDS))
+        .thenCompose(ignored -> CompletableFuture.allOf(dropped.stream()
+            .map(shardKey -> this.objectStorage.deleteObject(this.periodicTableBucket, shardKey))
+            .toArray(CompletableFuture[]::new)))
+        .whenComplete((ignored, ex) -> {
+          if (ex != null) {
+            logger.warn("Periodic table shards no longer listed could not be deleted: {}",
+                ex.getMessage());
+          } else {
+            logger.debug("Deleted {} periodic table shards no longer listed", dropped.size());
+          }
+        });
+  }
+
+  private static Set<String> shardKeys(List<Map<String, Object>> entries) {
+    Set<String> shardKeys = HashSet.newHashSet(entries.size());
+    for (Map<String, Object> entry : entries) {
+      shardKeys.add(String.valueOf(entry.get(SHARD_KEY_FIELD)));
+    }
+    return shardKeys;
+  }
+
+  private PeriodicTableSnapshot parseSnapshot(ObjectStorage.GetObjectResponse resp) {
+    List<ElementEntity> elements;
+    try {
+      elements = this.jsonCodec.readElements(resp.content(), resp.contentEncoding());
+    } catch (Exception e) {
+      throw new JsonMappingException(
+          "Error on mapping the object on ObjectStorage to JSON : " + e.getMessage(), e);
+    }
+    return new PeriodicTableSnapshot(resp.etag(), elements);
+  }
+
+  private List<Map<String, Object>> readManifest(ObjectStorage.GetObjectResponse resp) {
+    try {
+      return this.jsonCodec.readDocument(resp.content(), resp.contentEncoding());
+    } catch (Exception e) {
+      throw new JsonMappingException(
+          "Error on mapping the object on ObjectStorage to JSON : " + e.getMessage(), e);
+    }
+  }
+
+  private byte[] writeManifest(List<Map<String, Object>> entries) {
+    try {
+      return this.jsonCodec.writeDocument(entries);
+    } catch (Exception e) {
+      throw new JsonMappingException(
+          "Error on mapping the object to JSON : " + e.getMessage(), e);
+    }
+  }
+
+  private String manifestKey() {
+    return this.shardPrefix + MANIFEST_NAME;
+  }
+
+  /**
+   * Key of a shard: the element's atomic number, zero-padded so shards list in table order,
+   * and the id of the write that uploads it.
+   */
+  private String shardKey(Object atomicNumber, String writeId) {
+    String prefix = atomicNumber instanceof Long number
+        ? String.format("%03d", number) : String.valueOf(atomicNumber);
+    return this.shardPrefix + "elements/" + prefix + "-" + writeId + ".json";
+  }
+
+  private static String newWriteId() {
+    return UUID.randomUUID().toString();
+  }
+
+  private static Object atomicNumber(Map<String, Object> row) {
+    Object value = row.get("atomic_number");
+    return value instanceof Number number ? number.longValue() : String.valueOf(value);
+  }
+}
@@ -0,0 +1,81 @@
+package com.elsevier.technicalexercise.periodictable;
+
+
+import jakarta.validation.Constraint;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import jakarta.validation.Payload;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.List;
+
+/**
+ * Validation annotation for listing filters on an {@link ElementFacet}.
+ * Validates that a string holds one or more comma-separated values accepted by the facet,
+ * e.g. "4,5" for the period or "d,f" for the block.
+ */
+@Target({ElementType.FIELD})
+@Retention(RetentionPolicy.RUNTIME)
+@Constraint(validatedBy = ValidFacet.FacetValidator.class)
+public @interface ValidFacet {
+  /**
+   * The facet whose values are accepted.
+   *
+   * @return the facet
+   */
+  ElementFacet value();
+
+  /**
+   * Error message to be used when the validation fails.
+   *
+   * @return the error message
+   */
+  String message() default "Invalid filter value";
+
+  /**
+   * Groups for this constraint.
+   *
+   * @return the groups
+   */
+  Class<?>[] groups() default {};
+
+  /**
+   * Payloads for this constraint.
+   *
+   * @return the payloads
+   */
+  Class<? extends Payload>[] payload() default {};
+
+  /**
+   * Validator implementation for the ValidFacet annotation.
+   * Validates that every comma-separated value is accepted by the facet.
+   */
+  static class FacetValidator implements ConstraintValidator<ValidFacet, String> {
+    private ElementFacet facet;
+
+    @Override
+    public void initialize(ValidFacet annotation) {
+      this.facet = annotation.value();
+    }
+
+    /**
+     * Validates if every comma-separated value is accepted by the facet.
+     *
+     * @param value the filter values to validate
+     * @param context the constraint validator context
+     * @return true if every value is accepted or the value is null, false otherwise
+     */
+    @Override
+    public boolean isValid(String value, ConstraintValidatorContext context) {
+      if (value == null) {
+        return true;
+      }
+      List<String> values = ElementFacet.splitValues(value);
+      return !values.isEmpty()
+          && values.stream().allMatch(candidate -> facet.normalize(candidate).isPresent());
+    }
+  }
+
+}
@@ -9,10 +9,12 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.List;
 
 /**
  * Validation annotation for periodic table group numbers.
- * Validates that a string represents a valid group number (1-18 or "n/a").
+ * Validates that a string represents a valid group number (1-18 or "n/a"), or a
+ * comma-separated list of them.
  */
 @Target({ElementType.FIELD})
 @Retention(RetentionPolicy.RUNTIME)
@@ -66,18 +68,19 @@ public @interface ValidGroup {
     }
 
     /**
-     * Validates if the given string is a valid group number.
+     * Validates if the given string is a valid group number, or a comma-separated list of them.
      *
-     * @param value the group number to validate
+     * @param value the group numbers to validate
      * @param context the constraint validator context
-     * @return true if the value is a valid group number or null, false otherwise
+     * @return true if every value is a valid group number or the value is null, false otherwise
      */
     @Override
     public boolean isValid(String value, ConstraintValidatorContext context) {
       if (value == null) {
         return true;
       }
-      return GroupValidator.validateGroup(value);
+      List<String> groups = ElementFacet.splitValues(value);
+      return !groups.isEmpty() && groups.stream().allMatch(GroupValidator::validateGroup);
     }
   }
 
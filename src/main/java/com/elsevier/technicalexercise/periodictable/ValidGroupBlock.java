@@ -9,8 +9,6 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Validation annotation for periodic table group block strings.
@@ -59,29 +57,7 @@ public @interface ValidGroupBlock {
       if (value == null) {
         return true;
       }
-      String[] parts = value.split(",");
-      if (parts.length != 2) {
-        return false;
-      }
-
-      String groupPart = parts[0].trim();
-      String blockPart = parts[1].trim();
-      Pattern pattern =
-          Pattern.compile("^group (n/a|[0-9]{1,2})( \\([a-zA-Z ]+\\))?$", Pattern.CASE_INSENSITIVE);
-      Matcher matcher = pattern.matcher(groupPart);
-
-      if (!matcher.matches()) {
-        return false;
-      }
-      String groupNum = matcher.group(1);
-      if (!ValidGroup.GroupValidator.validateGroup(groupNum)) {
-        return false;
-      }
-
-      if (!blockPart.toLowerCase().matches("^[spdfg]-block$")) {
-        return false;
-      }
-      return true;
+      return GroupBlock.parse(value).isPresent();
     }
   }
 
@@ -0,0 +1,116 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import com.elsevier.technicalexercise.cloud.ObjectStorage;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores the periodic table as a single JSON document under {@code periodic-table.key}.
+ * The version token is the ETag of that object, and every write replaces it as a whole.
+ * The document can be stored gzip-compressed, with the {@code gzip} content encoding; it is
+ * read according to its content encoding, so plain and compressed documents are both read.
+ * This is the default layout.
+ */
+@Component
+@ConditionalOnProperty(name = "periodic-table.storage.mode", havingValue = "whole-object",
+    matchIfMissing = true)
+class WholeObjectPeriodicTableStore implements PeriodicTableStore {
+  private final ObjectStorage objectStorage;
+  private final PeriodicTableJsonCodec jsonCodec;
+  private final String periodicTableBucket;
+  private final String periodicTableKeyPath;
+  private final String contentEncoding;
+
+  /**
+   * Constructs a new WholeObjectPeriodicTableStore.
+   *
+   * @param objectStorage the object storage service
+   * @param jsonCodec     the readers and writers for the stored document
+   * @param bucketName    the bucket of the document
+   * @param objectKeyPath the key of the document
+   * @param gzipEnabled   whether the document is written gzip-compressed
+   */
+  WholeObjectPeriodicTableStore(ObjectStorage objectStorage,
+                                PeriodicTableJsonCodec jsonCodec,
+                                @Value("${periodic-table.bucket}") String bucketName,
+                                @Value("${periodic-table.key}") String objectKeyPath,
+                                @Value("${periodic-table.storage.gzip.enabled:false}")
+                                boolean gzipEnabled) {
+    this.objectStorage = objectStorage;
+    this.jsonCodec = jsonCodec;
+    this.periodicTableBucket = bucketName;
+    this.periodicTableKeyPath = objectKeyPath;
+    this.contentEncoding = gzipEnabled ? PeriodicTableJsonCodec.GZIP_ENCODING : null;
+  }
+
+  @Override
+  public CompletableFuture<PeriodicTableEntity> readDocument() {
+    return this.objectStorage.getObject(this.periodicTableBucket, this.periodicTableKeyPath)
+        .thenApply(resp -> {
+          try {
+            return new PeriodicTableEntity(
+                this.jsonCodec.readDocument(resp.content(), resp.contentEncoding()),
+                resp.etag());
+          } catch (Exception e) {
+            throw new JsonMappingException(
+                "Error on mapping the object on ObjectStorage to JSON : " + e.getMessage(), e);
+          }
+        });
+  }
+
+  @Override
+  public CompletableFuture<Optional<PeriodicTableSnapshot>> readSnapshotIfModified(
+      PeriodicTableSnapshot current) {
+    if (current == null) {
+      return this.objectStorage.getObject(this.periodicTableBucket, this.periodicTableKeyPath)
+          .thenApply(resp -> Optional.of(this.parseSnapshot(resp)));
+    }
+    return this.objectStorage.getObjectIfNoneMatch(this.periodicTableBucket,
+            this.periodicTableKeyPath, current.etag())
+        .thenApply(resp -> resp.map(this::parseSnapshot));
+  }
+
+  @Override
+  public CompletableFuture<String> readVersion() {
+    return this.objectStorage.headObject(this.periodicTableBucket, this.periodicTableKeyPath)
+        .thenApply(ObjectStorage.HeadObjectResponse::etag);
+  }
+
+  /**
+   * Replaces the document if it is still at the entity's ETag. The written table is indexed
+   * before the put, so the writer does not download and parse it again, and a table that cannot
+   * be indexed is not written.
+   */
+  @Override
+  public CompletableFuture<StoredWrite> writeDocument(PeriodicTableEntity periodicTableEntity) {
+    List<ElementEntity> elements =
+        PeriodicTableStore.toWrittenElements(this.jsonCodec, periodicTableEntity.data());
+    byte[] content;
+    try {
+      content = this.jsonCodec.writeDocument(periodicTableEntity.data(), this.contentEncoding);
+    } catch (Exception e) {
+      throw new JsonMappingException(
+          "Error on mapping the object to JSON : " + e.getMessage(), e);
+    }
+    return this.objectStorage.replaceObject(this.periodicTableBucket, this.periodicTableKeyPath,
+            content, periodicTableEntity.etag(), Map.of(), this.contentEncoding)
+        .thenApply(resp -> new StoredWrite(resp,
+            new PeriodicTableSnapshot(resp.etag(), elements)));
+  }
+
+  private PeriodicTableSnapshot parseSnapshot(ObjectStorage.GetObjectResponse resp) {
+    List<ElementEntity> elements;
+    try {
+      elements = this.jsonCodec.readElements(resp.content(), resp.contentEncoding());
+    } catch (Exception e) {
+      throw new JsonMappingException(
+          "Error on mapping the object on ObjectStorage to JSON : " + e.getMessage(), e);
+    }
+    return new PeriodicTableSnapshot(resp.etag(), elements);
+  }
+}
@@ -4,7 +4,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +22,9 @@ class ObjectStorageTest {
   @Autowired
   private ObjectStorage objectStorage;
 
+  @Autowired
+  private MeterRegistry meterRegistry;
+
   @Value("${periodic-table.bucket}")
   private  String BUCKET_NAME;
   @Value("${periodic-table.key}")
@@ -54,6 +60,54 @@ class ObjectStorageTest {
         "Content should contain H symbol");
   }
 
+  @Test
+  void testConcurrentGetObjectCoalesced() throws ExecutionException, InterruptedException {
+    // Given
+    double coalescedBefore = meterRegistry.counter("object.storage.get.coalesced").count();
+
+    // When
+    CompletableFuture<ObjectStorage.GetObjectResponse> first =
+        objectStorage.getObject(BUCKET_NAME, KEY_NAME);
+    CompletableFuture<ObjectStorage.GetObjectResponse> second =
+        objectStorage.getObject(BUCKET_NAME, KEY_NAME);
+
+    // Then
+    assertSame(first.get().content(), second.get().content(),
+        "Concurrent callers should share one response");
+    assertEquals(coalescedBefore + 1,
+        meterRegistry.counter("object.storage.get.coalesced").count(),
+        "Second caller should be counted as coalesced");
+  }
+
+  @Test
+  void testHeadObjectMatchesGetObject() throws ExecutionException, InterruptedException {
+    // Given
+    ObjectStorage.GetObjectResponse object = objectStorage.getObject(BUCKET_NAME, KEY_NAME).get();
+
+    // When
+    ObjectStorage.HeadObjectResponse metadata =
+        objectStorage.headObject(BUCKET_NAME, KEY_NAME).get();
+
+    // Then
+    assertEquals(object.etag(), metadata.etag(),
+        "HeadObject should report the same ETag as GetObject");
+    assertEquals(object.content().length, metadata.contentLength(),
+        "HeadObject should report the object size");
+    assertNotNull(metadata.lastModified(),
+        "Last modified time should not be null");
+  }
+
+  @Test
+  void testHeadObjectWithInvalidKey() {
+    // When
+    CompletableFuture<ObjectStorage.HeadObjectResponse> futureResponse =
+        objectStorage.headObject(BUCKET_NAME, "invalid-key.json");
+
+    // Then
+    assertThrows(ExecutionException.class, futureResponse::get,
+        "HeadObject on a missing key should fail");
+  }
+
   @Test
   void testGetObjectWithInvalidBucket() {
     // When
@@ -127,12 +181,13 @@ class ObjectStorageTest {
 
 
     // When: Replace the object
-    CompletableFuture<?> replaceResponse =
+    CompletableFuture<ObjectStorage.PutObjectResponse> replaceResponse =
         objectStorage.replaceObject(BUCKET_NAME, TEST_KEY_NAME, modifiedBytes, etag);
 
     // Then: Verify the replace operation completed successfully
     assertNotNull(replaceResponse, "Replace response should not be null");
-    replaceResponse.get(); // This will throw an exception if the operation failed
+    // This will throw an exception if the operation failed
+    ObjectStorage.PutObjectResponse putResponse = replaceResponse.get();
 
     // Verify the object was actually replaced by getting it again
     CompletableFuture<ObjectStorage.GetObjectResponse> verifyResponse =
@@ -144,6 +199,8 @@ class ObjectStorageTest {
         "Updated content should contain the modified text");
     assertNotEquals(etag, updatedObject.etag(),
         "ETag should be different after replacement");
+    assertEquals(updatedObject.etag(), putResponse.etag(),
+        "Replace should return the ETag of the written object");
     objectStorage.deleteObject(BUCKET_NAME, TEST_KEY_NAME).join();
   }
 
@@ -215,4 +272,60 @@ class ObjectStorageTest {
             || exception.getCause().getMessage().contains("precondition failed"),
         "Exception should be related to the key not existing or precondition failure");
   }
+
+  @Test
+  void testCreateObjectOnlyOnce() throws ExecutionException, InterruptedException {
+    String TEST_KEY_NAME = "tests/test-create-object.json";
+    byte[] content = "[]".getBytes(StandardCharsets.UTF_8);
+
+    // When: Create the object twice
+    ObjectStorage.PutObjectResponse created =
+        objectStorage.createObject(BUCKET_NAME, TEST_KEY_NAME, content).get();
+    CompletableFuture<ObjectStorage.PutObjectResponse> createdAgain =
+        objectStorage.createObject(BUCKET_NAME, TEST_KEY_NAME, content);
+
+    // Then: Only the first create succeeds
+    Exception exception = assertThrows(ExecutionException.class, createdAgain::get);
+    assertInstanceOf(ObjectStorage.PreconditionFailedException.class, exception.getCause());
+    assertEquals(created.etag(), objectStorage.headObject(BUCKET_NAME, TEST_KEY_NAME).get().etag());
+    objectStorage.deleteObject(BUCKET_NAME, TEST_KEY_NAME).join();
+  }
+
+  @Test
+  void testReplaceObjectWithMetadata() throws ExecutionException, InterruptedException {
+    String TEST_KEY_NAME = "tests/test-replace-object-metadata.json";
+    objectStorage.copyObject(BUCKET_NAME, KEY_NAME, TEST_KEY_NAME).join();
+    String etag = objectStorage.headObject(BUCKET_NAME, TEST_KEY_NAME).get().etag();
+    byte[] content = "[]".getBytes(StandardCharsets.UTF_8);
+
+    // When: Replace the object with user metadata
+    objectStorage.replaceObject(BUCKET_NAME, TEST_KEY_NAME, content, etag,
+        Map.of("delta-sequence", "42")).get();
+
+    // Then: The metadata is returned by both head and get
+    assertEquals("42",
+        objectStorage.headObject(BUCKET_NAME, TEST_KEY_NAME).get().metadata().get("delta-sequence"));
+    assertEquals("42",
+        objectStorage.getObject(BUCKET_NAME, TEST_KEY_NAME).get().metadata().get("delta-sequence"));
+    objectStorage.deleteObject(BUCKET_NAME, TEST_KEY_NAME).join();
+  }
+
+  @Test
+  void testListObjectsAfterKey() throws ExecutionException, InterruptedException {
+    String TEST_PREFIX = "tests/test-list-objects/";
+    byte[] content = "[]".getBytes(StandardCharsets.UTF_8);
+    for (String name : List.of("1.json", "2.json", "3.json")) {
+      objectStorage.createObject(BUCKET_NAME, TEST_PREFIX + name, content).join();
+    }
+
+    // When: List the objects after the first one
+    List<String> keys = objectStorage.listObjects(BUCKET_NAME, TEST_PREFIX,
+        TEST_PREFIX + "1.json").get();
+
+    // Then: Only the later keys are listed, in key order
+    assertEquals(List.of(TEST_PREFIX + "2.json", TEST_PREFIX + "3.json"), keys);
+    for (String name : List.of("1.json", "2.json", "3.json")) {
+      objectStorage.deleteObject(BUCKET_NAME, TEST_PREFIX + name).join();
+    }
+  }
 }
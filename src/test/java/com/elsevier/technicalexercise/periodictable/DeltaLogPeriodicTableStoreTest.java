@@ -0,0 +1,320 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import com.elsevier.technicalexercise.cloud.ObjectStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DeltaLogPeriodicTableStoreTest {
+
+  private String testBucketName = "elsevier-technical-exercise";
+  private String testObjectKeyPath = "periodic_table.json";
+  private String testDeltaPrefix = "periodic_table.json.deltas/";
+
+  @Mock
+  private ObjectStorage objectStorage;
+
+  private PeriodicTableJsonCodec jsonCodec = new PeriodicTableJsonCodec();
+
+  private DeltaLogPeriodicTableStore deltaLogPeriodicTableStore;
+
+  @BeforeEach
+  void setUp() {
+    deltaLogPeriodicTableStore = new DeltaLogPeriodicTableStore(objectStorage, jsonCodec,
+        testBucketName, testObjectKeyPath, testDeltaPrefix, false);
+  }
+
+  private static final String TWO_ELEMENTS_JSON = """
+      [
+          {
+              "name": "Hydrogen",
+              "atomic_number": 1,
+              "alternative_name": "n/a",
+              "group_block": "group 1, s-block"
+          },
+          {
+              "name": "Helium",
+              "atomic_number": 2,
+              "alternative_name": "n/a",
+              "group_block": "group 18 (noble gases), s-block"
+          }
+      ]
+      """;
+
+  private static final String HYDROGEN_DELTA_JSON = """
+      [
+          {
+              "name": "Hydrogen",
+              "atomic_number": 1,
+              "alternative_name": "Protium",
+              "group_block": "group 1, s-block"
+          }
+      ]
+      """;
+
+  private static final String HELIUM_DELTA_JSON = """
+      [
+          {
+              "name": "Helium",
+              "atomic_number": 2,
+              "alternative_name": "Noble",
+              "group_block": "group 18 (noble gases), s-block"
+          }
+      ]
+      """;
+
+  private String deltaKey(long sequence) {
+    return testDeltaPrefix + String.format("%020d", sequence) + ".json";
+  }
+
+  private void givenBase(String etag, long sequence) {
+    Map<String, String> metadata = Map.of(
+        DeltaLogPeriodicTableStore.DELTA_SEQUENCE_METADATA, Long.toString(sequence));
+    when(objectStorage.headObject(testBucketName, testObjectKeyPath))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.HeadObjectResponse(etag, null, 0, metadata)));
+    when(objectStorage.getObject(testBucketName, testObjectKeyPath))
+        .thenReturn(CompletableFuture.completedFuture(new ObjectStorage.GetObjectResponse(
+            TWO_ELEMENTS_JSON.getBytes(StandardCharsets.UTF_8), etag, metadata)));
+  }
+
+  private void givenDelta(long sequence, String content) {
+    when(objectStorage.getObject(testBucketName, deltaKey(sequence)))
+        .thenReturn(CompletableFuture.completedFuture(new ObjectStorage.GetObjectResponse(
+            content.getBytes(StandardCharsets.UTF_8), "deltaETag" + sequence)));
+  }
+
+  private void givenDeltasAfter(long sequence, String... keys) {
+    when(objectStorage.listObjects(testBucketName, testDeltaPrefix, deltaKey(sequence)))
+        .thenReturn(CompletableFuture.completedFuture(List.of(keys)));
+  }
+
+  @Test
+  void testReadDocumentFoldsDeltasIntoBase() throws ExecutionException, InterruptedException {
+    // Given
+    givenBase("baseETag", 0);
+    givenDeltasAfter(0, deltaKey(1), deltaKey(2));
+    givenDelta(1, HYDROGEN_DELTA_JSON);
+    givenDelta(2, HELIUM_DELTA_JSON);
+
+    // When
+    PeriodicTableEntity periodicTable = deltaLogPeriodicTableStore.readDocument().get();
+
+    // Then
+    assertEquals("\"2\"", periodicTable.etag(), "Version should be the last delta sequence");
+    assertEquals(2, periodicTable.data().size());
+    assertEquals("Protium", periodicTable.data().get(0).get("alternative_name"));
+    assertEquals("Noble", periodicTable.data().get(1).get("alternative_name"));
+  }
+
+  @Test
+  void testReadDocumentOnlyDownloadsNewDeltas() throws ExecutionException, InterruptedException {
+    // Given
+    givenBase("baseETag", 0);
+    givenDeltasAfter(0, deltaKey(1));
+    givenDelta(1, HYDROGEN_DELTA_JSON);
+    givenDeltasAfter(1, deltaKey(2));
+    givenDelta(2, HELIUM_DELTA_JSON);
+    deltaLogPeriodicTableStore.readDocument().get();
+
+    // When
+    PeriodicTableEntity periodicTable = deltaLogPeriodicTableStore.readDocument().get();
+
+    // Then
+    assertEquals("\"2\"", periodicTable.etag());
+    assertEquals("Protium", periodicTable.data().get(0).get("alternative_name"));
+    assertEquals("Noble", periodicTable.data().get(1).get("alternative_name"));
+    verify(objectStorage, times(1)).getObject(testBucketName, testObjectKeyPath);
+    verify(objectStorage, times(1)).getObject(testBucketName, deltaKey(1));
+  }
+
+  @Test
+  void testReadDocumentStopsAtGapInDeltas() throws ExecutionException, InterruptedException {
+    // Given
+    givenBase("baseETag", 0);
+    givenDeltasAfter(0, deltaKey(1), deltaKey(3));
+    givenDelta(1, HYDROGEN_DELTA_JSON);
+
+    // When
+    PeriodicTableEntity periodicTable = deltaLogPeriodicTableStore.readDocument().get();
+
+    // Then
+    assertEquals("\"1\"", periodicTable.etag());
+    verify(objectStorage, never()).getObject(testBucketName, deltaKey(3));
+  }
+
+  @Test
+  void testReadVersionListsDeltasWithoutDownloadingThem()
+      throws ExecutionException, InterruptedException {
+    // Given
+    when(objectStorage.headObject(testBucketName, testObjectKeyPath))
+        .thenReturn(CompletableFuture.completedFuture(new ObjectStorage.HeadObjectResponse(
+            "baseETag", null, 0,
+            Map.of(DeltaLogPeriodicTableStore.DELTA_SEQUENCE_METADATA, "4"))));
+    givenDeltasAfter(4, deltaKey(5), deltaKey(6));
+
+    // When
+    String version = deltaLogPeriodicTableStore.readVersion().get();
+
+    // Then
+    assertEquals("\"6\"", version);
+    verify(objectStorage, never()).getObject(anyString(), anyString());
+  }
+
+  @Test
+  void testReadSnapshotIfModifiedReturnsEmptyWhenNoNewDeltas()
+      throws ExecutionException, InterruptedException {
+    // Given
+    givenBase("baseETag", 0);
+    givenDeltasAfter(0);
+    PeriodicTableSnapshot current =
+        deltaLogPeriodicTableStore.readSnapshotIfModified(null).get().orElseThrow();
+
+    // When
+    Optional<PeriodicTableSnapshot> snapshot =
+        deltaLogPeriodicTableStore.readSnapshotIfModified(current).get();
+
+    // Then
+    assertEquals("\"0\"", current.etag());
+    assertTrue(snapshot.isEmpty(), "Unchanged table should not be parsed again");
+  }
+
+  @Test
+  void testWriteDocumentAppendsChangedRowsAsNextDelta() throws Exception {
+    // Given
+    givenBase("baseETag", 0);
+    givenDeltasAfter(0);
+    when(objectStorage.createObject(eq(testBucketName), eq(deltaKey(1)), any()))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.PutObjectResponse("deltaETag1", "deltaVersion1")));
+    PeriodicTableEntity periodicTable = deltaLogPeriodicTableStore.readDocument().get();
+    List<Map<String, Object>> data = new ArrayList<>(periodicTable.data());
+    Map<String, Object> helium = new LinkedHashMap<>(data.get(1));
+    helium.put("alternative_name", "Noble");
+    data.set(1, helium);
+
+    // When
+    PeriodicTableStore.StoredWrite written = deltaLogPeriodicTableStore.writeDocument(
+        new PeriodicTableEntity(data, periodicTable.etag())).get();
+
+    // Then
+    ArgumentCaptor<byte[]> content = ArgumentCaptor.forClass(byte[].class);
+    verify(objectStorage).createObject(eq(testBucketName), eq(deltaKey(1)), content.capture());
+    List<Map<String, Object>> delta = jsonCodec.readDocument(content.getValue());
+    assertEquals(1, delta.size(), "Delta should only hold the changed row");
+    assertEquals("Noble", delta.get(0).get("alternative_name"));
+    assertEquals("\"1\"", written.response().etag());
+    assertEquals("deltaVersion1", written.response().versionId());
+    assertEquals("Noble", written.snapshot().getElement(2).alternativeName());
+    verify(objectStorage, never())
+        .replaceObject(anyString(), anyString(), any(), anyString(), any(), any());
+  }
+
+  @Test
+  void testWriteDocumentRejectsTableThatCannotBeIndexed() throws Exception {
+    // Given
+    givenBase("baseETag", 0);
+    givenDeltasAfter(0);
+    PeriodicTableEntity periodicTable = deltaLogPeriodicTableStore.readDocument().get();
+    List<Map<String, Object>> data = new ArrayList<>(periodicTable.data());
+    Map<String, Object> helium = new LinkedHashMap<>(data.get(1));
+    helium.put("atomic_number", "two");
+    data.set(1, helium);
+
+    // When / Then
+    assertThrows(PeriodicTableStore.JsonMappingException.class,
+        () -> deltaLogPeriodicTableStore.writeDocument(
+            new PeriodicTableEntity(data, periodicTable.etag())));
+    verify(objectStorage, never()).createObject(anyString(), anyString(), any());
+  }
+
+  @Test
+  void testWriteDocumentRejectsStaleVersion() throws ExecutionException, InterruptedException {
+    // Given
+    givenBase("baseETag", 0);
+    givenDeltasAfter(0, deltaKey(1));
+    givenDelta(1, HYDROGEN_DELTA_JSON);
+    PeriodicTableEntity periodicTable = deltaLogPeriodicTableStore.readDocument().get();
+
+    // When
+    CompletableFuture<PeriodicTableStore.StoredWrite> written = deltaLogPeriodicTableStore
+        .writeDocument(new PeriodicTableEntity(periodicTable.data(), "\"0\""));
+
+    // Then
+    ExecutionException exception = assertThrows(ExecutionException.class, written::get);
+    assertInstanceOf(ObjectStorage.PreconditionFailedException.class, exception.getCause());
+    verify(objectStorage, never()).createObject(anyString(), anyString(), any());
+  }
+
+  @Test
+  void testCompactWritesBaseAndDeletesDeltasOfPreviousBase() throws Exception {
+    // Given
+    givenBase("baseETag", 2);
+    givenDeltasAfter(2, deltaKey(3));
+    givenDelta(3, HELIUM_DELTA_JSON);
+    when(objectStorage.replaceObject(eq(testBucketName), eq(testObjectKeyPath), any(),
+        eq("baseETag"), eq(Map.of(DeltaLogPeriodicTableStore.DELTA_SEQUENCE_METADATA, "3")),
+        isNull()))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.PutObjectResponse("newBaseETag", "newBaseVersion")));
+    when(objectStorage.listObjects(eq(testBucketName), eq(testDeltaPrefix), isNull()))
+        .thenReturn(CompletableFuture.completedFuture(
+            List.of(deltaKey(1), deltaKey(2), deltaKey(3))));
+    when(objectStorage.deleteObject(eq(testBucketName), anyString()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+
+    // When
+    boolean compacted = deltaLogPeriodicTableStore.compact(1).get();
+
+    // Then
+    assertTrue(compacted);
+    ArgumentCaptor<byte[]> content = ArgumentCaptor.forClass(byte[].class);
+    verify(objectStorage).replaceObject(eq(testBucketName), eq(testObjectKeyPath),
+        content.capture(), eq("baseETag"), any(), isNull());
+    assertEquals("Noble", jsonCodec.readDocument(content.getValue()).get(1)
+        .get("alternative_name"));
+    verify(objectStorage).deleteObject(testBucketName, deltaKey(1));
+    verify(objectStorage).deleteObject(testBucketName, deltaKey(2));
+    verify(objectStorage, never()).deleteObject(testBucketName, deltaKey(3));
+  }
+
+  @Test
+  void testCompactSkipsBelowMinimumDeltas() throws ExecutionException, InterruptedException {
+    // Given
+    givenBase("baseETag", 2);
+    givenDeltasAfter(2, deltaKey(3));
+    givenDelta(3, HELIUM_DELTA_JSON);
+
+    // When
+    boolean compacted = deltaLogPeriodicTableStore.compact(20).get();
+
+    // Then
+    assertFalse(compacted);
+    verify(objectStorage, never())
+        .replaceObject(anyString(), anyString(), any(), anyString(), any(), any());
+    verify(objectStorage, never()).deleteObject(anyString(), anyString());
+  }
+}
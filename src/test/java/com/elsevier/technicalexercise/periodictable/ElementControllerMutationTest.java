@@ -1,5 +1,6 @@
 package com.elsevier.technicalexercise.periodictable;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
@@ -76,9 +77,14 @@ public class ElementControllerMutationTest {
             .andReturn();
 
     // Then
-    mockMvc.perform(asyncDispatch(mvcPatchResult))
+    MvcResult patchResult = mockMvc.perform(asyncDispatch(mvcPatchResult))
         .andExpect(status().isNoContent())
-        .andExpect(header().exists("ETag"));
+        .andExpect(header().exists("ETag"))
+        .andExpect(header().string("X-Changed-Atomic-Numbers", "1,2"))
+        .andReturn();
+    assertEquals(objectStorage.headObject(bucket, testObjectKey).join().etag(),
+        patchResult.getResponse().getHeader("ETag"),
+        "PATCH should return the ETag of the written table");
 
     // Verify first element was updated
     MvcResult mvcGetResult1 = mockMvc.perform(get("/elements/1").accept(MediaType.APPLICATION_JSON))
@@ -204,6 +210,42 @@ public class ElementControllerMutationTest {
 
   }
 
+  @Test
+  public void testPatchUnknownAtomicNumber() throws Exception {
+    // When - update a valid element together with one that doesn't exist
+    MvcResult mvcPatchResult =
+        mockMvc.perform(patch("/elements")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsBytes(List.of(
+                    new ElementPatchRequestDto("Updated Hydrogen", 1, null, null),
+                    new ElementPatchRequestDto("Non-existent Element", 999, null, null)
+                ))))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // Then
+    mockMvc.perform(asyncDispatch(mvcPatchResult))
+        .andExpect(status().isNotFound())
+        .andExpect(jsonPath("$.error.reason").value("ElementNotFoundException"))
+        .andExpect(jsonPath("$.error.message")
+            .value("Element not found for atomic numbers: [999]"));
+  }
+
+  @Test
+  public void testPatchDuplicateAtomicNumber() throws Exception {
+    // When - patch the same element twice in one request
+    mockMvc.perform(patch("/elements")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(mapper.writeValueAsBytes(List.of(
+                new ElementPatchRequestDto("Updated Hydrogen", 1, null, null),
+                new ElementPatchRequestDto(null, 1, "H", null)
+            ))))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("$.error.code").value(400))
+        .andExpect(jsonPath("$.error.reason").value("DuplicateAtomicNumberException"));
+  }
+
   @Test
   public void testPatchEmptyList() throws Exception {
     // When - send an empty list of elements to update
@@ -257,4 +299,95 @@ public class ElementControllerMutationTest {
             .andExpect(jsonPath("$.error.reason").value("HandlerMethodValidationException"))
             .andExpect(jsonPath("$.error.message").exists());
   }
+
+  @Test
+  public void testPatchWithIfMatch() throws Exception {
+    // Given
+    MvcResult mvcFirstPatchResult =
+        mockMvc.perform(patch("/elements")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsBytes(List.of(
+                    new ElementPatchRequestDto("First Lithium", 3, null, null)
+                ))))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    String firstEtag = mockMvc.perform(asyncDispatch(mvcFirstPatchResult))
+        .andExpect(status().isNoContent())
+        .andReturn().getResponse().getHeader("ETag");
+
+    // When
+    MvcResult mvcSecondPatchResult =
+        mockMvc.perform(patch("/elements")
+                .header("If-Match", firstEtag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsBytes(List.of(
+                    new ElementPatchRequestDto("Second Lithium", 3, null, null)
+                ))))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    mockMvc.perform(asyncDispatch(mvcSecondPatchResult))
+        .andExpect(status().isNoContent())
+        .andExpect(header().string("X-Changed-Atomic-Numbers", "3"));
+    MvcResult mvcStalePatchResult =
+        mockMvc.perform(patch("/elements")
+                .header("If-Match", firstEtag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsBytes(List.of(
+                    new ElementPatchRequestDto("Stale Lithium", 3, null, null)
+                ))))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // Then
+    mockMvc.perform(asyncDispatch(mvcStalePatchResult))
+        .andExpect(status().isPreconditionFailed())
+        .andExpect(jsonPath("$.error.code").value(412));
+
+    MvcResult mvcGetResult = mockMvc.perform(get("/elements/3").accept(MediaType.APPLICATION_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    mockMvc.perform(asyncDispatch(mvcGetResult))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.data.name").value("Second Lithium"));
+  }
+
+  @Test
+  public void testBulkPatchReportsEveryLine() throws Exception {
+    // When
+    MvcResult mvcPatchResult =
+        mockMvc.perform(patch("/elements")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("""
+                    {"atomicNumber": 1, "name": "Bulk Hydrogen"}
+                    {"atomicNumber": 2, "groupBlock": "invalid"}
+                    {"atomicNumber": 999, "name": "Unknown"}
+                    not json
+                    {"atomicNumber": 3, "name": "Lithium"}
+                    """))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // Then
+    mockMvc.perform(asyncDispatch(mvcPatchResult))
+        .andExpect(status().isOk())
+        .andExpect(header().exists("ETag"))
+        .andExpect(header().string("X-Changed-Atomic-Numbers", "1"))
+        .andExpect(jsonPath("$.data.items.length()").value(5))
+        .andExpect(jsonPath("$.data.items[0].status").value("updated"))
+        .andExpect(jsonPath("$.data.items[1].status").value("rejected"))
+        .andExpect(jsonPath("$.data.items[1].reason").value("ConstraintViolationException"))
+        .andExpect(jsonPath("$.data.items[2].reason").value("ElementNotFoundException"))
+        .andExpect(jsonPath("$.data.items[3].line").value(4))
+        .andExpect(jsonPath("$.data.items[3].status").value("rejected"))
+        .andExpect(jsonPath("$.data.items[4].status").value("unchanged"));
+
+    MvcResult mvcGetResult = mockMvc.perform(get("/elements/1").accept(MediaType.APPLICATION_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    mockMvc.perform(asyncDispatch(mvcGetResult))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.data.name").value("Bulk Hydrogen"));
+  }
 }
@@ -1,5 +1,8 @@
 package com.elsevier.technicalexercise.periodictable;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -8,6 +11,8 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -73,6 +78,265 @@ public class ElementControllerTest {
         .andExpect(jsonPath("$.data.items.length()").value(30));
   }
 
+  @Test
+  public void testGetAllElementsGzipEncoded() throws Exception {
+    // When
+    MvcResult mvcResult = mockMvc.perform(get("/elements")
+            .header("Accept-Encoding", "gzip, deflate")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    // Then
+    MvcResult gzipResult = mockMvc.perform(asyncDispatch(mvcResult))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(header().string("Content-Encoding", "gzip"))
+        .andExpect(header().string("Vary", "Accept-Encoding"))
+        .andReturn();
+
+    try (GZIPInputStream body = new GZIPInputStream(
+        new ByteArrayInputStream(gzipResult.getResponse().getContentAsByteArray()))) {
+      String json = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+      assertTrue(json.contains("\"name\":\"Hydrogen\""),
+          "Decompressed body should contain the element listing");
+    }
+  }
+
+  @Test
+  public void testGetElementNotModified() throws Exception {
+    // Given
+    MvcResult firstResult = mockMvc.perform(get("/elements/1")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    String etag = mockMvc.perform(asyncDispatch(firstResult))
+        .andExpect(status().isOk())
+        .andExpect(header().exists("ETag"))
+        .andExpect(header().string("Cache-Control", "max-age=60, stale-while-revalidate=30"))
+        .andReturn()
+        .getResponse()
+        .getHeader("ETag");
+
+    // When
+    MvcResult mvcResult = mockMvc.perform(get("/elements/1")
+            .header("If-None-Match", etag)
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    // Then
+    mockMvc.perform(asyncDispatch(mvcResult))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string("ETag", etag))
+        .andExpect(content().bytes(new byte[0]));
+  }
+
+  @Test
+  public void testListingEtagDependsOnQueryShape() throws Exception {
+    // When
+    MvcResult allResult = mockMvc.perform(get("/elements")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    MvcResult groupResult = mockMvc.perform(get("/elements")
+            .param("group", "1")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    // Then
+    String allEtag = mockMvc.perform(asyncDispatch(allResult))
+        .andReturn().getResponse().getHeader("ETag");
+    String groupEtag = mockMvc.perform(asyncDispatch(groupResult))
+        .andReturn().getResponse().getHeader("ETag");
+    assertNotEquals(allEtag, groupEtag, "Different query shapes should have different ETags");
+  }
+
+  @Test
+  public void testTopElementsByBoilingPoint() throws Exception {
+    // When
+    MvcResult mvcResult = mockMvc.perform(get("/elements")
+            .param("sort", "-boilingPoint")
+            .param("limit", "3")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    // Then
+    mockMvc.perform(asyncDispatch(mvcResult))
+        .andExpect(status().isOk())
+        .andExpect(header().exists("ETag"))
+        .andExpect(jsonPath("$.data.items.length()").value(3))
+        .andExpect(jsonPath("$.data.items[0].name").value("Tungsten"))
+        .andExpect(jsonPath("$.data.items[1].name").value("Rhenium"))
+        .andExpect(jsonPath("$.data.items[2].name").value("Tantalum"));
+  }
+
+  @Test
+  public void testFilterByBoilingPointRangeAndGroup() throws Exception {
+    // When
+    MvcResult mvcResult = mockMvc.perform(get("/elements")
+            .param("group", "18")
+            .param("boilingPoint.lt", "100")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    // Then
+    mockMvc.perform(asyncDispatch(mvcResult))
+        .andExpect(status().isOk())
+        // Helium, neon and argon boil below 100 K
+        .andExpect(jsonPath("$.data.items.length()").value(3))
+        .andExpect(jsonPath("$.data.items[0].name").value("Helium"));
+  }
+
+  @Test
+  public void testCombinedFilters() throws Exception {
+    // When
+    MvcResult mvcResult = mockMvc.perform(get("/elements")
+            .param("period", "4")
+            .param("block", "d")
+            .param("phase", "solid")
+            .param("category", "transition metal")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    // Then
+    mockMvc.perform(asyncDispatch(mvcResult))
+        .andExpect(status().isOk())
+        // Scandium to zinc
+        .andExpect(jsonPath("$.data.items.length()").value(10))
+        .andExpect(jsonPath("$.data.items[0].name").value("Scandium"));
+  }
+
+  @Test
+  public void testFilterByAnyOfSeveralGroupsAndPeriods() throws Exception {
+    // When
+    MvcResult mvcResult = mockMvc.perform(get("/elements")
+            .param("group", "1", "2")
+            .param("period", "2,3")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    // Then
+    mockMvc.perform(asyncDispatch(mvcResult))
+        .andExpect(status().isOk())
+        // Lithium, beryllium, sodium and magnesium
+        .andExpect(jsonPath("$.data.items.length()").value(4));
+  }
+
+  @Test
+  public void testFilterByInvalidPhase() throws Exception {
+    mockMvc.perform(get("/elements")
+            .param("phase", "plasma")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("$.error.code").value(400))
+        .andExpect(jsonPath("$.error.reason").value("MethodArgumentNotValidException"));
+  }
+
+  @Test
+  public void testGetSeveralElementsByAtomicNumber() throws Exception {
+    // When
+    MvcResult mvcResult = mockMvc.perform(get("/elements")
+            .param("atomicNumber", "8,1,999,8")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    // Then
+    mockMvc.perform(asyncDispatch(mvcResult))
+        .andExpect(status().isOk())
+        .andExpect(header().exists("ETag"))
+        .andExpect(jsonPath("$.data.items.length()").value(4))
+        .andExpect(jsonPath("$.data.items[0].element.name").value("Oxygen"))
+        .andExpect(jsonPath("$.data.items[1].element.name").value("Hydrogen"))
+        .andExpect(jsonPath("$.data.items[1].element.alternativeName").exists())
+        .andExpect(jsonPath("$.data.items[2].atomicNumber").value(999))
+        .andExpect(jsonPath("$.data.items[2].element").isEmpty())
+        .andExpect(jsonPath("$.data.items[2].error")
+            .value("Element not found for atomic number: 999"))
+        .andExpect(jsonPath("$.data.items[3].element.name").value("Oxygen"));
+  }
+
+  @Test
+  public void testGetSeveralElementsWithFilters() throws Exception {
+    mockMvc.perform(get("/elements")
+            .param("atomicNumber", "1,6")
+            .param("group", "1")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.error.code").value(400));
+  }
+
+  @Test
+  public void testGetSeveralElementsByInvalidAtomicNumbers() throws Exception {
+    mockMvc.perform(get("/elements")
+            .param("atomicNumber", "1,carbon")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("$.error.code").value(400))
+        .andExpect(jsonPath("$.error.reason").value("MethodArgumentNotValidException"));
+  }
+
+  @Test
+  public void testSearchElements() throws Exception {
+    // When
+    MvcResult mvcResult = mockMvc.perform(get("/elements/search")
+            .param("q", "Fe")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    // Then
+    mockMvc.perform(asyncDispatch(mvcResult))
+        .andExpect(status().isOk())
+        .andExpect(header().exists("ETag"))
+        // Iron by its symbol, then fermium by its name
+        .andExpect(jsonPath("$.data.items.length()").value(2))
+        .andExpect(jsonPath("$.data.items[0].name").value("Iron"))
+        .andExpect(jsonPath("$.data.items[0].symbol").value("Fe"))
+        .andExpect(jsonPath("$.data.items[0].match").value("exact"))
+        .andExpect(jsonPath("$.data.items[1].name").value("Fermium"));
+  }
+
+  @Test
+  public void testSearchElementsByMisspelledName() throws Exception {
+    // When
+    MvcResult mvcResult = mockMvc.perform(get("/elements/search")
+            .param("q", "tungstn")
+            .param("limit", "1")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    // Then
+    mockMvc.perform(asyncDispatch(mvcResult))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.data.items.length()").value(1))
+        .andExpect(jsonPath("$.data.items[0].name").value("Tungsten"))
+        .andExpect(jsonPath("$.data.items[0].match").value("fuzzy"));
+  }
+
+  @Test
+  public void testSearchElementsWithBlankQuery() throws Exception {
+    mockMvc.perform(get("/elements/search")
+            .param("q", " ")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("$.error.code").value(400))
+        .andExpect(jsonPath("$.error.reason").value("HandlerMethodValidationException"));
+  }
+
+  @Test
+  public void testSortByUnknownProperty() throws Exception {
+    mockMvc.perform(get("/elements")
+            .param("sort", "name")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(jsonPath("$.error.code").value(400))
+        .andExpect(jsonPath("$.error.reason").value("MethodArgumentNotValidException"));
+  }
+
   @Test
   public void testFilterByNonExistentGroup() throws Exception {
     mockMvc.perform(get("/elements")
@@ -119,6 +383,51 @@ public class ElementControllerTest {
     // The actual exception handling is tested in other tests
   }
 
+  @Test
+  public void testGetElementBySymbolIgnoringCase() throws Exception {
+    // When
+    MvcResult mvcResult = mockMvc.perform(get("/elements/by-symbol/fE")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    // Then
+    mockMvc.perform(asyncDispatch(mvcResult))
+        .andExpect(status().isOk())
+        .andExpect(header().exists("ETag"))
+        .andExpect(jsonPath("$.data.name").value("Iron"))
+        .andExpect(jsonPath("$.data.atomicNumber").value(26));
+  }
+
+  @Test
+  public void testGetElementByNameIgnoringCase() throws Exception {
+    // When
+    MvcResult mvcResult = mockMvc.perform(get("/elements/by-name/TUNGSTEN")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    // Then
+    mockMvc.perform(asyncDispatch(mvcResult))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.data.name").value("Tungsten"))
+        .andExpect(jsonPath("$.data.atomicNumber").value(74));
+  }
+
+  @Test
+  public void testGetElementByUnknownSymbol() throws Exception {
+    // When
+    MvcResult mvcResult = mockMvc.perform(get("/elements/by-symbol/Xx")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    // Then
+    mockMvc.perform(asyncDispatch(mvcResult))
+        .andExpect(status().isNotFound())
+        .andExpect(jsonPath("$.error.code").value(404));
+  }
+
   @Test
   public void testInvalidRequestParameter() throws Exception {
     // When - Using an invalid parameter type (string instead of integer)
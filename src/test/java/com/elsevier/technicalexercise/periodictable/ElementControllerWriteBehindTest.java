@@ -0,0 +1,142 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.elsevier.technicalexercise.cloud.ObjectStorage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+    "periodic-table.write.mode=write-behind",
+    // Flushed by the tests, so that the patches stay pending until then.
+    "periodic-table.write.write-behind.flush-interval=1h"
+})
+public class ElementControllerWriteBehindTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectStorage objectStorage;
+
+  @Autowired
+  private PeriodicTableWriteBehind writeBehind;
+
+  @Value("${periodic-table.bucket}")
+  private String bucket;
+
+  static String testObjectKey;
+  private ObjectMapper mapper;
+
+  @DynamicPropertySource
+  static void dynamicProperties(DynamicPropertyRegistry registry) throws IOException {
+    testObjectKey = "tests/periodic-table-" + UUID.randomUUID() + ".json";
+    String journal = Files.createTempDirectory("periodic-table-journal")
+        .resolve("periodic-table-journal.ndjson").toString();
+    registry.add("periodic-table.key", () -> testObjectKey);
+    registry.add("periodic-table.write.write-behind.journal", () -> journal);
+  }
+
+  @BeforeEach
+  public void setUp() {
+    objectStorage.copyObject(bucket, "tests/periodic_table.json", testObjectKey).join();
+    mapper = new ObjectMapper();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    objectStorage.deleteObject(bucket, testObjectKey).join();
+  }
+
+  @Test
+  public void testPatchAcceptedBeforeItIsWritten() throws Exception {
+    // When
+    MvcResult mvcPatchResult =
+        mockMvc.perform(patch("/elements")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsBytes(List.of(
+                    new ElementPatchRequestDto("Accepted Hydrogen", 1, null, null)))))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // Then
+    MvcResult patchResult = mockMvc.perform(asyncDispatch(mvcPatchResult))
+        .andExpect(status().isAccepted())
+        .andExpect(header().string("X-Changed-Atomic-Numbers", "1"))
+        .andExpect(jsonPath("$.data.status").value("pending"))
+        .andExpect(jsonPath("$.data.changedAtomicNumbers[0]").value(1))
+        .andReturn();
+    String id = mapper.readTree(patchResult.getResponse().getContentAsString())
+        .path("data").path("id").asText();
+    assertEquals("operations/" + id, patchResult.getResponse().getHeader("Location"),
+        "Location should point at the status resource of the operation");
+
+    MvcResult mvcGetResult = mockMvc.perform(get("/elements/1")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    mockMvc.perform(asyncDispatch(mvcGetResult))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.data.name").value("Accepted Hydrogen"));
+  }
+
+  @Test
+  public void testGetOperationOnceWritten() throws Exception {
+    // Given
+    MvcResult mvcPatchResult =
+        mockMvc.perform(patch("/elements")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsBytes(List.of(
+                    new ElementPatchRequestDto("Written Helium", 2, null, null)))))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult patchResult = mockMvc.perform(asyncDispatch(mvcPatchResult))
+        .andExpect(status().isAccepted())
+        .andReturn();
+    String location = patchResult.getResponse().getHeader("Location");
+    assertNotNull(location);
+
+    // When
+    mockMvc.perform(get("/" + location).accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.data.status").value("pending"));
+    writeBehind.flush().join();
+
+    // Then
+    String etag = objectStorage.headObject(bucket, testObjectKey).join().etag();
+    mockMvc.perform(get("/" + location).accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.data.status").value("durable"))
+        .andExpect(jsonPath("$.data.etag").value(etag));
+  }
+
+  @Test
+  public void testGetUnknownOperation() throws Exception {
+    mockMvc.perform(get("/operations/unknown").accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotFound());
+  }
+}
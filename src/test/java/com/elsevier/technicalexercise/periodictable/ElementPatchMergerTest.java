@@ -0,0 +1,105 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ElementPatchMergerTest {
+
+  private static Map<String, Object> element(int atomicNumber, String name) {
+    Map<String, Object> element = new LinkedHashMap<>();
+    element.put("name", name);
+    element.put("atomic_number", atomicNumber);
+    element.put("alternative_name", "n/a");
+    element.put("group_block", "group 1, s-block");
+    return element;
+  }
+
+  @Test
+  void testMergeReportsChangedRowsInDocumentOrder() {
+    // Given
+    List<Map<String, Object>> document =
+        List.of(element(1, "Hydrogen"), element(2, "Helium"), element(3, "Lithium"));
+    ElementPatchMerger merger = new ElementPatchMerger(List.of(
+        new ElementPatchRequestDto("Updated Lithium", 3, null, null),
+        new ElementPatchRequestDto("Updated Hydrogen", 1, null, null)));
+
+    // When
+    ElementPatchMerger.MergedDocument merged = merger.merge(document);
+
+    // Then
+    assertEquals(List.of(1, 3), merged.changedAtomicNumbers(), "Should report changed rows");
+    assertEquals("Updated Hydrogen", merged.data().get(0).get("name"));
+    assertEquals("Updated Lithium", merged.data().get(2).get("name"));
+    assertSame(document.get(1), merged.data().get(1), "Untouched rows should not be copied");
+    assertEquals(List.of("name", "atomic_number", "alternative_name", "group_block"),
+        List.copyOf(merged.data().get(0).keySet()), "Field order should be preserved");
+  }
+
+  @Test
+  void testMergeIgnoresUnchangedValues() {
+    // Given
+    List<Map<String, Object>> document = List.of(element(1, "Hydrogen"));
+    ElementPatchMerger merger = new ElementPatchMerger(List.of(
+        new ElementPatchRequestDto("Hydrogen", 1, "n/a", " ")));
+
+    // When
+    ElementPatchMerger.MergedDocument merged = merger.merge(document);
+
+    // Then
+    assertTrue(merged.changedAtomicNumbers().isEmpty(), "Identical values should not change");
+    assertSame(document.getFirst(), merged.data().getFirst(), "Row should not be copied");
+  }
+
+  @Test
+  void testMergeAcceptsAtomicNumbersStoredAsText() {
+    // Given
+    Map<String, Object> hydrogen = element(1, "Hydrogen");
+    hydrogen.put("atomic_number", "1");
+    ElementPatchMerger merger = new ElementPatchMerger(List.of(
+        new ElementPatchRequestDto("Updated Hydrogen", 1, null, null)));
+
+    // When
+    ElementPatchMerger.MergedDocument merged = merger.merge(List.of(hydrogen));
+
+    // Then
+    assertEquals(List.of(1), merged.changedAtomicNumbers());
+  }
+
+  @Test
+  void testDuplicateAtomicNumbersRejected() {
+    // When
+    ElementPatchMerger.DuplicateAtomicNumberException exception = assertThrows(
+        ElementPatchMerger.DuplicateAtomicNumberException.class,
+        () -> new ElementPatchMerger(List.of(
+            new ElementPatchRequestDto("A", 2, null, null),
+            new ElementPatchRequestDto("B", 1, null, null),
+            new ElementPatchRequestDto("C", 2, null, null))));
+
+    // Then
+    assertTrue(exception.getMessage().endsWith("[2]"), exception.getMessage());
+  }
+
+  @Test
+  void testUnknownAtomicNumbersRejected() {
+    // Given
+    ElementPatchMerger merger = new ElementPatchMerger(List.of(
+        new ElementPatchRequestDto("A", 1, null, null),
+        new ElementPatchRequestDto("B", 200, null, null),
+        new ElementPatchRequestDto("C", 150, null, null)));
+
+    // When
+    PeriodicTableService.ElementNotFoundException exception = assertThrows(
+        PeriodicTableService.ElementNotFoundException.class,
+        () -> merger.merge(List.of(element(1, "Hydrogen"))));
+
+    // Then
+    assertTrue(exception.getMessage().endsWith("[150, 200]"), exception.getMessage());
+  }
+}
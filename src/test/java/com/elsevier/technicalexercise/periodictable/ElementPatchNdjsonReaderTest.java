@@ -0,0 +1,93 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ElementPatchNdjsonReaderTest {
+
+  private ElementPatchNdjsonReader reader;
+
+  @BeforeEach
+  void setUp() {
+    reader = new ElementPatchNdjsonReader(new ObjectMapper(),
+        Validation.buildDefaultValidatorFactory().getValidator(), 10, 128);
+  }
+
+  private List<ElementPatchNdjsonReader.ParsedLine> read(String body) throws IOException {
+    return reader.read(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  void testReadAcceptsValidLinesAndSkipsBlankLines() throws IOException {
+    // When
+    List<ElementPatchNdjsonReader.ParsedLine> lines = read("""
+        {"atomicNumber": 1, "name": "Updated Hydrogen"}
+
+        {"atomicNumber": 2, "groupBlock": "group 18, s-block"}""");
+
+    // Then
+    assertEquals(2, lines.size(), "Blank lines should be skipped");
+    assertTrue(lines.get(0).isAccepted());
+    assertEquals("Updated Hydrogen", lines.get(0).patch().getName());
+    assertEquals(3, lines.get(1).line(), "Line numbers should count blank lines");
+    assertEquals(2, lines.get(1).atomicNumber());
+  }
+
+  @Test
+  void testReadRejectsInvalidLinesOnTheirOwn() throws IOException {
+    // When
+    List<ElementPatchNdjsonReader.ParsedLine> lines = read("""
+        {"atomicNumber": 1, "name":
+        {"atomicNumber": -1, "name": "Negative"}
+        {"atomicNumber": 2, "groupBlock": "not a group block"}
+        {"atomicNumber": 3}
+        {"atomicNumber": 4, "name": "Beryllium"}
+        {"atomicNumber": 4, "name": "Again"}
+        """);
+
+    // Then
+    assertEquals(6, lines.size());
+    assertEquals("JsonEOFException", lines.get(0).reason());
+    assertNull(lines.get(0).patch());
+    assertEquals("ConstraintViolationException", lines.get(1).reason());
+    assertTrue(lines.get(1).message().startsWith("atomicNumber: "));
+    assertEquals("ConstraintViolationException", lines.get(2).reason());
+    assertEquals("PatchElementSizeException", lines.get(3).reason(),
+        "Line without any field to update should be rejected");
+    assertTrue(lines.get(4).isAccepted());
+    assertEquals("DuplicateAtomicNumberException", lines.get(5).reason());
+  }
+
+  @Test
+  void testReadRejectsLongLineWithoutBufferingIt() throws IOException {
+    // When
+    List<ElementPatchNdjsonReader.ParsedLine> lines = read(
+        "{\"atomicNumber\": 1, \"name\": \"" + "x".repeat(1024) + "\"}\n"
+            + "{\"atomicNumber\": 2, \"name\": \"Updated Helium\"}\n");
+
+    // Then
+    assertEquals(2, lines.size());
+    assertEquals("PatchElementSizeException", lines.get(0).reason());
+    assertTrue(lines.get(1).isAccepted(), "Line after a long line should still be read");
+  }
+
+  @Test
+  void testReadRejectsTooManyLines() {
+    // Given
+    String body = "{\"atomicNumber\": 1, \"name\": \"Hydrogen\"}\n".repeat(11);
+
+    // When / Then
+    assertThrows(ElementController.PatchElementSizeException.class, () -> read(body));
+  }
+}
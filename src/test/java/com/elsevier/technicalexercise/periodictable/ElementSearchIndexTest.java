@@ -0,0 +1,93 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ElementSearchIndexTest {
+
+  private static ElementEntity element(String name, int atomicNumber, String symbol,
+                                       String alternativeName, String alternativeNames) {
+    return new ElementEntity(name, atomicNumber, alternativeName, "group 1, s-block", null, null,
+        null, null, null, null, null, symbol, alternativeNames);
+  }
+
+  private static final List<ElementEntity> ELEMENTS = List.of(
+      element("Hydrogen", 1, "H", "n/a", "n/a"),
+      element("Helium", 2, "He", "n/a", "n/a"),
+      element("Aluminium", 13, "Al", "aluminum (US)", "n/a"),
+      element("Iron", 26, "Fe", "n/a", "n/a"),
+      element("Tungsten", 74, "W", "n/a", "wolfram"),
+      element("Hafnium", 72, "Hf", "n/a", "n/a"),
+      element("Ununtrium", 113, "Uut", "n/a", "eka-thallium")
+  );
+
+  private static List<String> names(List<ElementSearchIndex.Match> matches) {
+    return matches.stream().map(match -> ELEMENTS.get(match.position()).name()).toList();
+  }
+
+  @Test
+  void testExactSymbolComesBeforePrefixes() {
+    // Given
+    ElementSearchIndex index = new ElementSearchIndex(ELEMENTS);
+
+    // When
+    List<ElementSearchIndex.Match> matches = index.search("H", 10);
+
+    // Then
+    assertEquals(List.of("Hydrogen", "Helium", "Hafnium"), names(matches),
+        "The exact symbol should come first, then symbols before longer names");
+    assertEquals(ElementSearchIndex.MatchType.EXACT, matches.get(0).type());
+    assertEquals(ElementSearchIndex.MatchType.PREFIX, matches.get(1).type());
+  }
+
+  @Test
+  void testPrefixMatchesNamesAndAlternativeNames() {
+    // Given
+    ElementSearchIndex index = new ElementSearchIndex(ELEMENTS);
+
+    // When
+    List<ElementSearchIndex.Match> aluminium = index.search("Alumin", 10);
+    List<ElementSearchIndex.Match> wolfram = index.search("wolf", 10);
+    List<ElementSearchIndex.Match> thallium = index.search("thall", 10);
+
+    // Then
+    assertEquals(List.of("Aluminium"), names(aluminium),
+        "An element should be returned once even when several of its terms match");
+    assertEquals(List.of("Tungsten"), names(wolfram));
+    assertEquals("wolfram", wolfram.get(0).term());
+    assertEquals(List.of("Ununtrium"), names(thallium),
+        "Later words of a term should be searchable");
+  }
+
+  @Test
+  void testFuzzyMatchesMisspellings() {
+    // Given
+    ElementSearchIndex index = new ElementSearchIndex(ELEMENTS);
+
+    // When
+    List<ElementSearchIndex.Match> matches = index.search("tungstn", 10);
+
+    // Then
+    assertEquals(List.of("Tungsten"), names(matches));
+    assertEquals(ElementSearchIndex.MatchType.FUZZY, matches.get(0).type());
+  }
+
+  @Test
+  void testLimitAndUnknownQueries() {
+    // Given
+    ElementSearchIndex index = new ElementSearchIndex(ELEMENTS);
+
+    // When
+    List<ElementSearchIndex.Match> limited = index.search("h", 2);
+    List<ElementSearchIndex.Match> unknown = index.search("xyzzy", 10);
+    List<ElementSearchIndex.Match> blank = index.search("  ", 10);
+
+    // Then
+    assertEquals(List.of("Hydrogen", "Helium"), names(limited));
+    assertTrue(unknown.isEmpty(), "Unknown spellings should not match");
+    assertTrue(blank.isEmpty(), "Blank queries should not match");
+  }
+}
@@ -0,0 +1,89 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+@ExtendWith(MockitoExtension.class)
+class PeriodicTableHealthIndicatorTest {
+
+  @Mock
+  private PeriodicTableWarmup periodicTableWarmup;
+
+  @Mock
+  private PeriodicTableRefresher periodicTableRefresher;
+
+  @Test
+  void testOutOfServiceUntilWarm() {
+    // Given
+    when(periodicTableWarmup.isWarm()).thenReturn(false);
+
+    // When
+    PeriodicTableHealthIndicator healthIndicator =
+        new PeriodicTableHealthIndicator(periodicTableWarmup, periodicTableRefresher);
+
+    // Then
+    assertEquals(Status.OUT_OF_SERVICE, healthIndicator.health().getStatus(),
+        "Should not be ready before the snapshot is loaded");
+  }
+
+  @Test
+  void testUpOnceWarm() {
+    // Given
+    when(periodicTableWarmup.isWarm()).thenReturn(true);
+
+    // When
+    PeriodicTableHealthIndicator healthIndicator =
+        new PeriodicTableHealthIndicator(periodicTableWarmup, periodicTableRefresher);
+
+    // Then
+    assertEquals(Status.UP, healthIndicator.health().getStatus(),
+        "Should be ready once the snapshot is loaded");
+  }
+
+  @Test
+  void testReportsLastRefresh() {
+    // Given
+    Instant lastRefreshAt = Instant.parse("2026-01-01T00:00:00Z");
+    when(periodicTableWarmup.isWarm()).thenReturn(true);
+    when(periodicTableRefresher.getLastRefreshAt()).thenReturn(lastRefreshAt);
+    when(periodicTableRefresher.getLastRefreshEtag()).thenReturn("\"etag\"");
+    when(periodicTableRefresher.getConsecutiveFailures()).thenReturn(2);
+
+    // When
+    Health health =
+        new PeriodicTableHealthIndicator(periodicTableWarmup, periodicTableRefresher).health();
+
+    // Then
+    assertEquals(Status.UP, health.getStatus(),
+        "Failing refreshes should keep serving the loaded snapshot");
+    assertEquals(lastRefreshAt, health.getDetails().get("lastRefreshAt"),
+        "Should report the time of the last refresh");
+    assertEquals("\"etag\"", health.getDetails().get("etag"),
+        "Should report the ETag of the current snapshot");
+    assertEquals(2, health.getDetails().get("consecutiveRefreshFailures"),
+        "Should report the failed refreshes");
+  }
+
+  @Test
+  void testOmitsRefreshBeforeFirstPoll() {
+    // Given
+    when(periodicTableWarmup.isWarm()).thenReturn(true);
+
+    // When
+    Health health =
+        new PeriodicTableHealthIndicator(periodicTableWarmup, periodicTableRefresher).health();
+
+    // Then
+    assertFalse(health.getDetails().containsKey("lastRefreshAt"),
+        "Should not report a refresh before the first poll");
+  }
+}
@@ -0,0 +1,110 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the shared readers and writers of {@link PeriodicTableJsonCodec} with the
+ * per-call {@link ObjectMapper} they replaced, on the real periodic_table.json. Elements are
+ * read three ways, so that sharing the mapper and projecting the fields the index needs are
+ * measured apart: data binding with a mapper built per call, data binding with a shared
+ * reader, and the streaming projection of the codec.
+ *
+ * <p>Run from the project root with {@code ./mvnw test-compile exec:java
+ * -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.elsevier.technicalexercise.periodictable.PeriodicTableJsonCodecBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PeriodicTableJsonCodecBenchmark {
+
+  private byte[] content;
+  private List<Map<String, Object>> document;
+  private PeriodicTableJsonCodec jsonCodec;
+  private ObjectReader elementsReader;
+
+  @Setup
+  public void setUp() throws IOException {
+    content = Files.readAllBytes(Path.of("periodic_table.json"));
+    jsonCodec = new PeriodicTableJsonCodec();
+    document = jsonCodec.readDocument(content);
+    elementsReader = newElementsMapper().readerFor(new TypeReference<List<ElementEntity>>() {
+    });
+  }
+
+  private static ObjectMapper newElementsMapper() {
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+    mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    return mapper;
+  }
+
+  @Benchmark
+  public List<ElementEntity> readElementsPerCallMapper() throws IOException {
+    return newElementsMapper().readValue(content, new TypeReference<>() {
+    });
+  }
+
+  @Benchmark
+  public List<ElementEntity> readElementsSharedReader() throws IOException {
+    return elementsReader.readValue(content);
+  }
+
+  @Benchmark
+  public List<ElementEntity> readElementsProjection() throws IOException {
+    return jsonCodec.readElements(content);
+  }
+
+  @Benchmark
+  public List<Map<String, Object>> readDocumentPerCallMapper() throws IOException {
+    return new ObjectMapper().readValue(content, new TypeReference<>() {
+    });
+  }
+
+  @Benchmark
+  public List<Map<String, Object>> readDocumentSharedReader() throws IOException {
+    return jsonCodec.readDocument(content);
+  }
+
+  @Benchmark
+  public byte[] writeDocumentPerCallMapper() throws IOException {
+    return new ObjectMapper().writeValueAsBytes(document);
+  }
+
+  @Benchmark
+  public byte[] writeDocumentSharedWriter() throws IOException {
+    return jsonCodec.writeDocument(document);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(PeriodicTableJsonCodecBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
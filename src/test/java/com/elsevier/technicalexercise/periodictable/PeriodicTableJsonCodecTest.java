@@ -0,0 +1,94 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class PeriodicTableJsonCodecTest {
+
+  private final PeriodicTableJsonCodec jsonCodec = new PeriodicTableJsonCodec();
+
+  @Test
+  void testReadElementsSkipsUnrequestedAttributes() throws IOException {
+    // Given
+    String jsonContent = """
+        [
+            {
+                "iso": "iso, NA, half-life, DM, DE (MeV), DP",
+                "name": "Hydrogen",
+                "nested": {"ignored": [1, 2, {"deep": true}]},
+                "atomic_number": 1,
+                "alternative_name": "n/a",
+                "group_block": "group 1, s-block"
+            }
+        ]
+        """;
+
+    // When
+    List<ElementEntity> elements =
+        jsonCodec.readElements(jsonContent.getBytes(StandardCharsets.UTF_8));
+
+    // Then
+    assertEquals(List.of(new ElementEntity("Hydrogen", 1, "n/a", "group 1, s-block")), elements,
+        "Only the projected attributes should be materialized");
+  }
+
+  @Test
+  void testReadProjectionWithMissingAttribute() throws IOException {
+    // Given
+    String jsonContent = """
+        [{"name": "Hydrogen", "atomic_number": 1}]
+        """;
+
+    // When
+    List<Object[]> rows = jsonCodec.readProjection(
+        jsonContent.getBytes(StandardCharsets.UTF_8), List.of("atomic_number", "symbol"));
+
+    // Then
+    assertEquals(1, rows.size(), "Should read one row per element");
+    assertArrayEquals(new Object[] {1, null}, rows.getFirst(),
+        "Missing attribute should be null");
+  }
+
+  @Test
+  void testReadElementsRejectsNonArrayDocument() {
+    assertThrows(IOException.class,
+        () -> jsonCodec.readElements("{ \"name\": \"Hydrogen\" }".getBytes(StandardCharsets.UTF_8)),
+        "A document that is not an array should be rejected");
+  }
+
+  @Test
+  void testGzipDocumentRoundTrip() throws IOException {
+    // Given
+    List<Map<String, Object>> data = List.of(Map.of(
+        "name", "Hydrogen", "atomic_number", 1, "alternative_name", "n/a",
+        "group_block", "group 1, s-block"));
+    byte[] plain = jsonCodec.writeDocument(data);
+
+    // When
+    byte[] compressed = jsonCodec.writeDocument(data, PeriodicTableJsonCodec.GZIP_ENCODING);
+
+    // Then
+    assertEquals(0x1f, compressed[0] & 0xff, "Document should be written with a gzip header");
+    assertEquals(0x8b, compressed[1] & 0xff, "Document should be written with a gzip header");
+    assertEquals(data, jsonCodec.readDocument(compressed, PeriodicTableJsonCodec.GZIP_ENCODING));
+    assertEquals(List.of(new ElementEntity("Hydrogen", 1, "n/a", "group 1, s-block")),
+        jsonCodec.readElements(compressed, "GZIP"),
+        "Elements should be streamed out of the compressed document");
+    assertEquals(data, jsonCodec.readDocument(plain, null),
+        "Documents without a content encoding should be read as plain JSON");
+  }
+
+  @Test
+  void testReadDocumentRejectsUnsupportedContentEncoding() {
+    assertThrows(IOException.class,
+        () -> jsonCodec.readDocument("[]".getBytes(StandardCharsets.UTF_8), "br"),
+        "A content encoding that cannot be decoded should be rejected");
+  }
+}
@@ -0,0 +1,83 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PeriodicTableRefresherTest {
+
+  @Mock
+  private PeriodicTableService periodicTableService;
+
+  @Mock
+  private ElementResponseCache elementResponseCache;
+
+  private PeriodicTableRefresher refresher(double jitter) {
+    return new PeriodicTableRefresher(periodicTableService, elementResponseCache, true,
+        Duration.ofSeconds(20), jitter, Duration.ofSeconds(60));
+  }
+
+  @Test
+  void testRefreshRecordsEtagAndRendersSnapshot() {
+    // Given
+    PeriodicTableSnapshot snapshot = new PeriodicTableSnapshot("\"etag\"",
+        List.of(new ElementEntity("Hydrogen", 1, "n/a", "group 1, s-block")));
+    when(periodicTableService.refreshSnapshotIfModified())
+        .thenReturn(CompletableFuture.completedFuture(snapshot));
+    PeriodicTableRefresher refresher = refresher(0);
+
+    // When
+    refresher.refresh().join();
+
+    // Then
+    assertEquals("\"etag\"", refresher.getLastRefreshEtag(), "Should record the current ETag");
+    assertNotNull(refresher.getLastRefreshAt(), "Should record the refresh time");
+    verify(elementResponseCache).forSnapshot(snapshot);
+  }
+
+  @Test
+  void testFailedRefreshesBackOffUpToMaximum() {
+    // Given
+    when(periodicTableService.refreshSnapshotIfModified())
+        .thenReturn(CompletableFuture.failedFuture(new RuntimeException("S3 unavailable")));
+    PeriodicTableRefresher refresher = refresher(0);
+
+    // When
+    long healthyDelay = refresher.nextDelayMillis();
+    refresher.refresh().join();
+    long firstBackoff = refresher.nextDelayMillis();
+    refresher.refresh().join();
+    refresher.refresh().join();
+    long cappedBackoff = refresher.nextDelayMillis();
+
+    // Then
+    assertEquals(20_000, healthyDelay, "Should poll at the interval while healthy");
+    assertEquals(40_000, firstBackoff, "Should double the interval after a failure");
+    assertEquals(60_000, cappedBackoff, "Should not back off beyond the maximum");
+    assertEquals(3, refresher.getConsecutiveFailures(), "Should count consecutive failures");
+  }
+
+  @Test
+  void testJitterSpreadsPolls() {
+    // Given
+    PeriodicTableRefresher refresher = refresher(0.25);
+
+    // When / Then
+    for (int i = 0; i < 100; i++) {
+      long delay = refresher.nextDelayMillis();
+      assertTrue(delay >= 15_000 && delay <= 25_000,
+          "Delay should stay within the jitter around the interval: " + delay);
+    }
+  }
+}
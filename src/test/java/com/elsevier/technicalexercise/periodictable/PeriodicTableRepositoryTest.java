@@ -1,21 +1,31 @@
 package com.elsevier.technicalexercise.periodictable;
 
 import com.elsevier.technicalexercise.cloud.ObjectStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,12 +37,308 @@ class PeriodicTableRepositoryTest {
   @Mock
   private ObjectStorage objectStorage;
 
+  private SimpleMeterRegistry meterRegistry;
+
   private PeriodicTableRepository periodicTableRepository;
 
   @BeforeEach
   void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
     periodicTableRepository =
-        new PeriodicTableRepository(objectStorage, testBucketName, testObjectKeyPath);
+        new PeriodicTableRepository(new WholeObjectPeriodicTableStore(objectStorage,
+            new PeriodicTableJsonCodec(), testBucketName, testObjectKeyPath, false),
+            meterRegistry,
+            Duration.ofSeconds(30), true);
+  }
+
+  private static final String TWO_ELEMENTS_JSON = """
+      [
+          {
+              "name": "Hydrogen",
+              "atomic_number": 1,
+              "alternative_name": "n/a",
+              "group_block": "group 1, s-block"
+          },
+          {
+              "name": "Helium",
+              "atomic_number": 2,
+              "alternative_name": "n/a",
+              "group_block": "group 18 (noble gases), s-block"
+          }
+      ]
+      """;
+
+  @Test
+  void testFindElementsServedFromSnapshotCache()
+      throws ExecutionException, InterruptedException {
+    // Given
+    ObjectStorage.GetObjectResponse mockResponse = new ObjectStorage.GetObjectResponse(
+        TWO_ELEMENTS_JSON.getBytes(StandardCharsets.UTF_8),
+        "mockETag"
+    );
+    when(objectStorage.getObject(eq(testBucketName),
+        eq(testObjectKeyPath)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+    // When
+    periodicTableRepository.findElements().get();
+    periodicTableRepository.getSnapshot().get().findElementsByGroup(1);
+    Optional<ElementEntity> helium = periodicTableRepository.getElement(2).get();
+
+    // Then
+    assertTrue(helium.isPresent(), "Helium should be served from the cached snapshot");
+    verify(objectStorage, times(1)).getObject(testBucketName, testObjectKeyPath);
+  }
+
+  @Test
+  void testStaleSnapshotRevalidatedWithEtag() throws ExecutionException, InterruptedException {
+    // Given
+    periodicTableRepository =
+        new PeriodicTableRepository(new WholeObjectPeriodicTableStore(objectStorage,
+            new PeriodicTableJsonCodec(), testBucketName, testObjectKeyPath, false),
+            meterRegistry,
+            Duration.ZERO, false);
+    ObjectStorage.GetObjectResponse mockResponse = new ObjectStorage.GetObjectResponse(
+        TWO_ELEMENTS_JSON.getBytes(StandardCharsets.UTF_8),
+        "mockETag"
+    );
+    when(objectStorage.getObject(eq(testBucketName),
+        eq(testObjectKeyPath)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+    when(objectStorage.getObjectIfNoneMatch(eq(testBucketName),
+        eq(testObjectKeyPath), eq("mockETag")))
+        .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+    // When
+    PeriodicTableSnapshot first = periodicTableRepository.getSnapshot().get();
+    PeriodicTableSnapshot second = periodicTableRepository.getSnapshot().get();
+
+    // Then
+    assertSame(first, second, "Not modified response should keep the cached snapshot");
+    verify(objectStorage, times(1)).getObjectIfNoneMatch(testBucketName, testObjectKeyPath,
+        "mockETag");
+  }
+
+  @Test
+  void testStaleSnapshotServedWhileRevalidating()
+      throws ExecutionException, InterruptedException {
+    // Given
+    periodicTableRepository =
+        new PeriodicTableRepository(new WholeObjectPeriodicTableStore(objectStorage,
+            new PeriodicTableJsonCodec(), testBucketName, testObjectKeyPath, false),
+            meterRegistry,
+            Duration.ZERO, true);
+    ObjectStorage.GetObjectResponse mockResponse = new ObjectStorage.GetObjectResponse(
+        TWO_ELEMENTS_JSON.getBytes(StandardCharsets.UTF_8),
+        "mockETag"
+    );
+    when(objectStorage.getObject(eq(testBucketName),
+        eq(testObjectKeyPath)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+    when(objectStorage.getObjectIfNoneMatch(eq(testBucketName),
+        eq(testObjectKeyPath), eq("mockETag")))
+        .thenReturn(new CompletableFuture<>());
+
+    // When
+    PeriodicTableSnapshot first = periodicTableRepository.getSnapshot().get();
+    CompletableFuture<PeriodicTableSnapshot> second = periodicTableRepository.getSnapshot();
+
+    // Then
+    assertTrue(second.isDone(), "Stale snapshot should be served without waiting for refresh");
+    assertSame(first, second.get(), "Stale snapshot should be served while revalidating");
+  }
+
+  @Test
+  void testFailedBackgroundRefreshCounted() throws ExecutionException, InterruptedException {
+    // Given
+    periodicTableRepository =
+        new PeriodicTableRepository(new WholeObjectPeriodicTableStore(objectStorage,
+            new PeriodicTableJsonCodec(), testBucketName, testObjectKeyPath, false),
+            meterRegistry,
+            Duration.ZERO, true);
+    ObjectStorage.GetObjectResponse mockResponse = new ObjectStorage.GetObjectResponse(
+        TWO_ELEMENTS_JSON.getBytes(StandardCharsets.UTF_8),
+        "mockETag"
+    );
+    when(objectStorage.getObject(eq(testBucketName),
+        eq(testObjectKeyPath)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+    when(objectStorage.getObjectIfNoneMatch(eq(testBucketName),
+        eq(testObjectKeyPath), eq("mockETag")))
+        .thenReturn(CompletableFuture.failedFuture(new RuntimeException("S3 unavailable")));
+
+    // When
+    PeriodicTableSnapshot first = periodicTableRepository.getSnapshot().get();
+    PeriodicTableSnapshot second = periodicTableRepository.getSnapshot().get();
+
+    // Then
+    assertSame(first, second, "Stale snapshot should be served when the refresh fails");
+    assertEquals(1,
+        meterRegistry.counter("periodic.table.snapshot.background.refresh.failures").count());
+  }
+
+  @Test
+  void testRefreshSnapshotIfModifiedSkipsDownloadForSameEtag()
+      throws ExecutionException, InterruptedException {
+    // Given
+    ObjectStorage.GetObjectResponse mockResponse = new ObjectStorage.GetObjectResponse(
+        TWO_ELEMENTS_JSON.getBytes(StandardCharsets.UTF_8),
+        "mockETag"
+    );
+    when(objectStorage.getObject(eq(testBucketName),
+        eq(testObjectKeyPath)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+    when(objectStorage.headObject(eq(testBucketName), eq(testObjectKeyPath)))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.HeadObjectResponse("mockETag", Instant.now(), 0)));
+
+    // When
+    PeriodicTableSnapshot loaded = periodicTableRepository.getSnapshot().get();
+    PeriodicTableSnapshot refreshed = periodicTableRepository.refreshSnapshotIfModified().get();
+
+    // Then
+    assertSame(loaded, refreshed, "Unchanged ETag should keep the cached snapshot");
+    verify(objectStorage, times(1)).getObject(testBucketName, testObjectKeyPath);
+    verify(objectStorage, never()).getObjectIfNoneMatch(anyString(), anyString(), anyString());
+  }
+
+  @Test
+  void testRefreshSnapshotIfModifiedReloadsChangedEtag()
+      throws ExecutionException, InterruptedException {
+    // Given
+    ObjectStorage.GetObjectResponse mockResponse = new ObjectStorage.GetObjectResponse(
+        TWO_ELEMENTS_JSON.getBytes(StandardCharsets.UTF_8),
+        "mockETag"
+    );
+    ObjectStorage.GetObjectResponse changedResponse = new ObjectStorage.GetObjectResponse(
+        TWO_ELEMENTS_JSON.getBytes(StandardCharsets.UTF_8),
+        "changedETag"
+    );
+    when(objectStorage.getObject(eq(testBucketName),
+        eq(testObjectKeyPath)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+    when(objectStorage.headObject(eq(testBucketName), eq(testObjectKeyPath)))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.HeadObjectResponse("changedETag", Instant.now(), 0)));
+    when(objectStorage.getObjectIfNoneMatch(eq(testBucketName),
+        eq(testObjectKeyPath), eq("mockETag")))
+        .thenReturn(CompletableFuture.completedFuture(Optional.of(changedResponse)));
+
+    // When
+    periodicTableRepository.getSnapshot().get();
+    PeriodicTableSnapshot refreshed = periodicTableRepository.refreshSnapshotIfModified().get();
+
+    // Then
+    assertEquals("changedETag", refreshed.etag(), "Changed ETag should reload the snapshot");
+    assertSame(refreshed, periodicTableRepository.getSnapshot().get(),
+        "Reloaded snapshot should be served");
+  }
+
+  @Test
+  void testUpdatePeriodicTableInstallsWrittenSnapshot()
+      throws ExecutionException, InterruptedException {
+    // Given
+    ObjectStorage.GetObjectResponse mockResponse = new ObjectStorage.GetObjectResponse(
+        TWO_ELEMENTS_JSON.getBytes(StandardCharsets.UTF_8),
+        "mockETag"
+    );
+    when(objectStorage.getObject(eq(testBucketName),
+        eq(testObjectKeyPath)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+    when(objectStorage.replaceObject(eq(testBucketName), eq(testObjectKeyPath),
+        any(byte[].class), eq("mockETag"), eq(Map.of()),
+        isNull()))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.PutObjectResponse("newETag", "newVersion")));
+    PeriodicTableEntity periodicTable = periodicTableRepository.getPeriodicTable().get();
+    periodicTable.data().getFirst().put("name", "Updated Hydrogen");
+
+    // When
+    ObjectStorage.PutObjectResponse putResponse =
+        periodicTableRepository.updatePeriodicTable(periodicTable).get();
+    PeriodicTableSnapshot snapshot = periodicTableRepository.getSnapshot().get();
+
+    // Then
+    assertEquals("newETag", putResponse.etag(), "Should return the ETag of the write");
+    assertEquals("newVersion", putResponse.versionId(), "Should return the version of the write");
+    assertEquals("newETag", snapshot.etag(), "Written table should be installed as snapshot");
+    assertEquals("Updated Hydrogen", snapshot.getElement(1).name(),
+        "Snapshot should contain the written values");
+    verify(objectStorage, times(1)).getObject(testBucketName, testObjectKeyPath);
+  }
+
+  @Test
+  void testUpdatePeriodicTableRejectsTableThatCannotBeIndexed()
+      throws ExecutionException, InterruptedException {
+    // Given
+    ObjectStorage.GetObjectResponse mockResponse = new ObjectStorage.GetObjectResponse(
+        TWO_ELEMENTS_JSON.getBytes(StandardCharsets.UTF_8),
+        "mockETag"
+    );
+    when(objectStorage.getObject(eq(testBucketName),
+        eq(testObjectKeyPath)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+    PeriodicTableEntity periodicTable = periodicTableRepository.getPeriodicTable().get();
+    periodicTable.data().getFirst().put("atomic_number", "one");
+
+    // When / Then
+    assertThrows(PeriodicTableStore.JsonMappingException.class,
+        () -> periodicTableRepository.updatePeriodicTable(periodicTable));
+    verify(objectStorage, never()).replaceObject(anyString(), anyString(), any(byte[].class),
+        anyString(), any(), any());
+  }
+
+  @Test
+  void testFindElementsFromGzipObject() throws Exception {
+    // Given
+    PeriodicTableJsonCodec jsonCodec = new PeriodicTableJsonCodec();
+    byte[] compressed = jsonCodec.writeDocument(
+        jsonCodec.readDocument(TWO_ELEMENTS_JSON.getBytes(StandardCharsets.UTF_8)),
+        PeriodicTableJsonCodec.GZIP_ENCODING);
+    when(objectStorage.getObject(eq(testBucketName), eq(testObjectKeyPath)))
+        .thenReturn(CompletableFuture.completedFuture(new ObjectStorage.GetObjectResponse(
+            compressed, "mockETag", Map.of(), "gzip")));
+
+    // When
+    List<ElementEntity> elements = periodicTableRepository.findElements().get();
+    PeriodicTableEntity periodicTable = periodicTableRepository.getPeriodicTable().get();
+
+    // Then
+    assertEquals(2, elements.size(), "Compressed object should be decompressed on read");
+    assertEquals("Helium", elements.get(1).name());
+    assertEquals("Hydrogen", periodicTable.data().getFirst().get("name"));
+  }
+
+  @Test
+  void testUpdatePeriodicTableWritesGzipWhenEnabled() throws Exception {
+    // Given
+    PeriodicTableRepository gzipRepository =
+        new PeriodicTableRepository(new WholeObjectPeriodicTableStore(objectStorage,
+            new PeriodicTableJsonCodec(), testBucketName, testObjectKeyPath, true),
+            meterRegistry,
+            Duration.ofSeconds(30), true);
+    when(objectStorage.getObject(eq(testBucketName), eq(testObjectKeyPath)))
+        .thenReturn(CompletableFuture.completedFuture(new ObjectStorage.GetObjectResponse(
+            TWO_ELEMENTS_JSON.getBytes(StandardCharsets.UTF_8), "mockETag")));
+    when(objectStorage.replaceObject(eq(testBucketName), eq(testObjectKeyPath),
+        any(byte[].class), eq("mockETag"), eq(Map.of()),
+        eq("gzip")))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.PutObjectResponse("newETag", "newVersion")));
+    PeriodicTableEntity periodicTable = gzipRepository.getPeriodicTable().get();
+    periodicTable.data().getFirst().put("name", "Updated Hydrogen");
+
+    // When
+    gzipRepository.updatePeriodicTable(periodicTable).get();
+
+    // Then
+    ArgumentCaptor<byte[]> content = ArgumentCaptor.forClass(byte[].class);
+    verify(objectStorage).replaceObject(eq(testBucketName), eq(testObjectKeyPath),
+        content.capture(), eq("mockETag"), eq(Map.of()), eq("gzip"));
+    assertEquals("Updated Hydrogen", new PeriodicTableJsonCodec()
+        .readDocument(content.getValue(), "gzip").getFirst().get("name"),
+        "Written object should be gzip-compressed");
+    assertEquals("Updated Hydrogen", gzipRepository.getElement(1).get().orElseThrow().name());
   }
 
   @Test
@@ -228,8 +534,8 @@ class PeriodicTableRepositoryTest {
         .thenReturn(CompletableFuture.completedFuture(mockResponse));
 
     // When
-    CompletableFuture<List<ElementEntity>> futureElements =
-        periodicTableRepository.findElements("1");
+    CompletableFuture<List<ElementEntity>> futureElements = periodicTableRepository.getSnapshot()
+        .thenApply(snapshot -> snapshot.findElementsByGroup(1));
 
     // Then
     assertNotNull(futureElements,
@@ -6,10 +6,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.elsevier.technicalexercise.cloud.ObjectStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
@@ -26,9 +30,37 @@ class PeriodicTableServiceTest {
 
   private PeriodicTableService periodicTableService;
 
+  private SimpleMeterRegistry meterRegistry;
+
+  private static List<Map<String, Object>> hydrogenAndHelium(String hydrogenName) {
+    List<Map<String, Object>> data = new ArrayList<>();
+    Map<String, Object> hydrogen = new HashMap<>();
+    hydrogen.put("atomic_number", 1);
+    hydrogen.put("name", hydrogenName);
+    hydrogen.put("alternative_name", "n/a");
+    hydrogen.put("group_block", "group 1, s-block");
+    data.add(hydrogen);
+    Map<String, Object> helium = new HashMap<>();
+    helium.put("atomic_number", 2);
+    helium.put("name", "Helium");
+    helium.put("alternative_name", "n/a");
+    helium.put("group_block", "group 18 (noble gases), s-block");
+    data.add(helium);
+    return data;
+  }
+
+  private static CompletableFuture<Object> preconditionFailed() {
+    return CompletableFuture.failedFuture(
+        new ObjectStorage.PreconditionFailedException("Status Code: 412", null));
+  }
+
   @BeforeEach
   void setUp() {
-    periodicTableService = new PeriodicTableService(periodicTableRepository);
+    meterRegistry = new SimpleMeterRegistry();
+    periodicTableService = new PeriodicTableService(periodicTableRepository,
+        new PeriodicTableWriteCoordinator(periodicTableRepository, meterRegistry,
+            Duration.ZERO, 64, 3, Duration.ofMillis(1), Duration.ofMillis(5)),
+        Optional.empty());
   }
 
   @Test
@@ -55,19 +87,24 @@ class PeriodicTableServiceTest {
     when(periodicTableRepository.getPeriodicTable())
         .thenReturn(CompletableFuture.completedFuture(originalEntity));
     when(periodicTableRepository.updatePeriodicTable(any(PeriodicTableEntity.class)))
-        .thenReturn(CompletableFuture.completedFuture(null));
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.PutObjectResponse("newETag", "newVersion")));
 
     // Create patch elements
     List<ElementPatchRequestDto> patchElements = new ArrayList<>();
     patchElements.add(new ElementPatchRequestDto("Updated Hydrogen", 1, "H", "updated group 1, s-block"));
 
     // When
-    CompletableFuture<PeriodicTableEntity> result =
+    CompletableFuture<PeriodicTableUpdate> result =
         periodicTableService.updatePeriodicTable(patchElements);
 
     // Then
     assertNotNull(result, "Result should not be null");
-    PeriodicTableEntity updatedEntity = result.get(); // Wait for completion
+    PeriodicTableEntity updatedEntity = result.get().periodicTable(); // Wait for completion
+    assertEquals(List.of(1), result.get().changedAtomicNumbers(),
+        "Only Hydrogen should be reported as changed");
+    assertEquals("newETag", updatedEntity.etag(), "ETag of the write should be returned");
+    assertEquals("newVersion", result.get().versionId(), "Version of the write should be returned");
 
     // Verify repository methods were called
     verify(periodicTableRepository).getPeriodicTable();
@@ -106,7 +143,7 @@ class PeriodicTableServiceTest {
     patchElements.add(new ElementPatchRequestDto("Updated Hydrogen", 1, "H", "updated group 1, s-block"));
 
     // When
-    CompletableFuture<PeriodicTableEntity> result = 
+    CompletableFuture<PeriodicTableUpdate> result = 
         periodicTableService.updatePeriodicTable(patchElements);
 
     // Then
@@ -150,7 +187,7 @@ class PeriodicTableServiceTest {
     patchElements.add(new ElementPatchRequestDto("Updated Hydrogen", 1, "H", "updated group 1, s-block"));
 
     // When
-    CompletableFuture<PeriodicTableEntity> result = 
+    CompletableFuture<PeriodicTableUpdate> result = 
         periodicTableService.updatePeriodicTable(patchElements);
 
     // Then
@@ -168,4 +205,151 @@ class PeriodicTableServiceTest {
     verify(periodicTableRepository).getPeriodicTable();
     verify(periodicTableRepository).updatePeriodicTable(any(PeriodicTableEntity.class));
   }
+
+  @Test
+  void testUpdatePeriodicTable_UnchangedValuesSkipWrite()
+      throws ExecutionException, InterruptedException {
+    // Given
+    List<Map<String, Object>> originalData = new ArrayList<>();
+    Map<String, Object> hydrogen = new HashMap<>();
+    hydrogen.put("atomic_number", 1);
+    hydrogen.put("name", "Hydrogen");
+    hydrogen.put("alternative_name", "n/a");
+    hydrogen.put("group_block", "group 1, s-block");
+    originalData.add(hydrogen);
+    when(periodicTableRepository.getPeriodicTable())
+        .thenReturn(CompletableFuture.completedFuture(
+            new PeriodicTableEntity(originalData, "mockETag")));
+
+    // When
+    PeriodicTableUpdate result = periodicTableService.updatePeriodicTable(
+        List.of(new ElementPatchRequestDto("Hydrogen", 1, null, null))).get();
+
+    // Then
+    assertTrue(result.changedAtomicNumbers().isEmpty(), "No element should be changed");
+    assertEquals("mockETag", result.periodicTable().etag(), "Stored version should be kept");
+    verify(periodicTableRepository, never()).updatePeriodicTable(any(PeriodicTableEntity.class));
+  }
+
+  @Test
+  void testUpdatePeriodicTable_DuplicateAtomicNumbersRejectedUpFront() {
+    // Given
+    List<ElementPatchRequestDto> patchElements = List.of(
+        new ElementPatchRequestDto("Hydrogen", 1, null, null),
+        new ElementPatchRequestDto("Protium", 1, null, null));
+
+    // When / Then
+    assertThrows(ElementPatchMerger.DuplicateAtomicNumberException.class,
+        () -> periodicTableService.updatePeriodicTable(patchElements),
+        "Duplicated atomic numbers should be rejected");
+    verify(periodicTableRepository, never()).getPeriodicTable();
+  }
+
+  @Test
+  void testUpdatePeriodicTable_UnknownAtomicNumberRejected() {
+    // Given
+    List<Map<String, Object>> originalData = new ArrayList<>();
+    Map<String, Object> hydrogen = new HashMap<>();
+    hydrogen.put("atomic_number", 1);
+    hydrogen.put("name", "Hydrogen");
+    hydrogen.put("alternative_name", "n/a");
+    hydrogen.put("group_block", "group 1, s-block");
+    originalData.add(hydrogen);
+    when(periodicTableRepository.getPeriodicTable())
+        .thenReturn(CompletableFuture.completedFuture(
+            new PeriodicTableEntity(originalData, "mockETag")));
+
+    // When
+    CompletableFuture<PeriodicTableUpdate> result = periodicTableService.updatePeriodicTable(
+        List.of(new ElementPatchRequestDto("Updated Hydrogen", 1, null, null),
+            new ElementPatchRequestDto("Unknown", 999, null, null)));
+
+    // Then
+    ExecutionException executionException = assertThrows(ExecutionException.class,
+        result::get, "Unknown atomic numbers should be rejected");
+    assertInstanceOf(PeriodicTableService.ElementNotFoundException.class,
+        executionException.getCause());
+    assertTrue(executionException.getCause().getMessage().contains("[999]"),
+        "Unknown atomic numbers should be reported");
+    verify(periodicTableRepository, never()).updatePeriodicTable(any(PeriodicTableEntity.class));
+  }
+
+  @Test
+  void testUpdatePeriodicTable_RetriedOnConcurrentUpdateOfOtherElements()
+      throws ExecutionException, InterruptedException {
+    // Given
+    List<Map<String, Object>> concurrentData = hydrogenAndHelium("Hydrogen");
+    concurrentData.get(1).put("name", "Concurrent Helium");
+    when(periodicTableRepository.getPeriodicTable())
+        .thenReturn(CompletableFuture.completedFuture(
+            new PeriodicTableEntity(hydrogenAndHelium("Hydrogen"), "staleETag")))
+        .thenReturn(CompletableFuture.completedFuture(
+            new PeriodicTableEntity(concurrentData, "freshETag")));
+    doReturn(preconditionFailed(), CompletableFuture.completedFuture(
+            new ObjectStorage.PutObjectResponse("newETag", "newVersion")))
+        .when(periodicTableRepository).updatePeriodicTable(any(PeriodicTableEntity.class));
+
+    // When
+    PeriodicTableUpdate result = periodicTableService.updatePeriodicTable(
+        List.of(new ElementPatchRequestDto("Updated Hydrogen", 1, null, null))).get();
+
+    // Then
+    var argumentCaptor = org.mockito.ArgumentCaptor.forClass(PeriodicTableEntity.class);
+    verify(periodicTableRepository, times(2)).updatePeriodicTable(argumentCaptor.capture());
+    PeriodicTableEntity retried = argumentCaptor.getAllValues().get(1);
+    assertEquals("freshETag", retried.etag(), "Retry should be conditional on the fresh ETag");
+    assertEquals("Updated Hydrogen", retried.data().get(0).get("name"),
+        "Patch should be re-applied");
+    assertEquals("Concurrent Helium", retried.data().get(1).get("name"),
+        "Concurrent update should be kept");
+    assertEquals(List.of(1), result.changedAtomicNumbers());
+    assertEquals(1, meterRegistry.counter("periodic.table.write.retries").count());
+    assertEquals(0, meterRegistry.counter("periodic.table.write.conflicts").count());
+  }
+
+  @Test
+  void testUpdatePeriodicTable_ConflictOnConcurrentUpdateOfSameField() {
+    // Given
+    when(periodicTableRepository.getPeriodicTable())
+        .thenReturn(CompletableFuture.completedFuture(
+            new PeriodicTableEntity(hydrogenAndHelium("Hydrogen"), "staleETag")))
+        .thenReturn(CompletableFuture.completedFuture(
+            new PeriodicTableEntity(hydrogenAndHelium("Concurrent Hydrogen"), "freshETag")));
+    doReturn(preconditionFailed())
+        .when(periodicTableRepository).updatePeriodicTable(any(PeriodicTableEntity.class));
+
+    // When
+    CompletableFuture<PeriodicTableUpdate> result = periodicTableService.updatePeriodicTable(
+        List.of(new ElementPatchRequestDto("Updated Hydrogen", 1, null, null)));
+
+    // Then
+    ExecutionException executionException = assertThrows(ExecutionException.class,
+        result::get, "Concurrent change of the same field should conflict");
+    assertInstanceOf(PeriodicTableService.ElementConflictException.class,
+        executionException.getCause());
+    verify(periodicTableRepository, times(1)).updatePeriodicTable(any(PeriodicTableEntity.class));
+    assertEquals(1, meterRegistry.counter("periodic.table.write.conflicts").count());
+  }
+
+  @Test
+  void testUpdatePeriodicTable_GivesUpAfterMaxAttempts() {
+    // Given
+    when(periodicTableRepository.getPeriodicTable())
+        .thenReturn(CompletableFuture.completedFuture(
+            new PeriodicTableEntity(hydrogenAndHelium("Hydrogen"), "staleETag")));
+    doReturn(preconditionFailed())
+        .when(periodicTableRepository).updatePeriodicTable(any(PeriodicTableEntity.class));
+
+    // When
+    CompletableFuture<PeriodicTableUpdate> result = periodicTableService.updatePeriodicTable(
+        List.of(new ElementPatchRequestDto("Updated Hydrogen", 1, null, null)));
+
+    // Then
+    ExecutionException executionException = assertThrows(ExecutionException.class,
+        result::get, "Write should give up after the configured attempts");
+    assertInstanceOf(PeriodicTableService.PeriodicTableContentionException.class,
+        executionException.getCause());
+    verify(periodicTableRepository, times(3)).updatePeriodicTable(any(PeriodicTableEntity.class));
+    assertEquals(2, meterRegistry.counter("periodic.table.write.retries").count());
+  }
 }
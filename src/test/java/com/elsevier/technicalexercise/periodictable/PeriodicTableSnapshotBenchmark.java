@@ -0,0 +1,75 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares atomic number lookups on the snapshot index with the linear scan it replaced.
+ * The indexed lookup should stay flat while the scan grows with the dataset size.
+ *
+ * <p>Run with {@code ./mvnw test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.elsevier.technicalexercise.periodictable.PeriodicTableSnapshotBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PeriodicTableSnapshotBenchmark {
+
+  @Param({"118", "1180", "11800", "118000"})
+  public int datasetSize;
+
+  private PeriodicTableSnapshot snapshot;
+
+  @Setup
+  public void setUp() {
+    List<ElementEntity> elements = new ArrayList<>(datasetSize);
+    for (int atomicNumber = 1; atomicNumber <= datasetSize; atomicNumber++) {
+      elements.add(new ElementEntity("Element " + atomicNumber, atomicNumber, "n/a",
+          "group 1, s-block"));
+    }
+    snapshot = new PeriodicTableSnapshot("benchmark", elements);
+  }
+
+  private int randomAtomicNumber() {
+    return ThreadLocalRandom.current().nextInt(1, datasetSize + 1);
+  }
+
+  @Benchmark
+  public ElementEntity indexedLookup() {
+    return snapshot.getElement(randomAtomicNumber());
+  }
+
+  @Benchmark
+  public ElementEntity linearScan() {
+    int atomicNumber = randomAtomicNumber();
+    return snapshot.elements().stream()
+        .filter(element -> element.atomicNumber() == atomicNumber)
+        .findFirst()
+        .orElse(null);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(PeriodicTableSnapshotBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
@@ -0,0 +1,251 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class PeriodicTableSnapshotTest {
+
+  private static ElementEntity element(String name, int atomicNumber) {
+    return new ElementEntity(name, atomicNumber, "n/a", "group 1, s-block");
+  }
+
+  @Test
+  void testGetElementFromDenseIndex() {
+    PeriodicTableSnapshot snapshot = new PeriodicTableSnapshot("mockETag", List.of(
+        element("Hydrogen", 1),
+        element("Helium", 2),
+        element("Lithium", 3)
+    ));
+
+    assertEquals("Helium", snapshot.getElement(2).name(),
+        "Element should be found by atomic number");
+  }
+
+  @Test
+  void testGetElementOutOfRange() {
+    PeriodicTableSnapshot snapshot = new PeriodicTableSnapshot("mockETag", List.of(
+        element("Hydrogen", 1),
+        element("Helium", 2)
+    ));
+
+    assertNull(snapshot.getElement(0), "Zero should not resolve to an element");
+    assertNull(snapshot.getElement(-1), "Negative numbers should not resolve to an element");
+    assertNull(snapshot.getElement(3), "Numbers above the maximum should not resolve");
+    assertNull(snapshot.getElement(Integer.MAX_VALUE), "Huge numbers should not resolve");
+  }
+
+  @Test
+  void testGetElementWithGapsInAtomicNumbers() {
+    PeriodicTableSnapshot snapshot = new PeriodicTableSnapshot("mockETag", List.of(
+        element("Hydrogen", 1),
+        element("Oxygen", 8)
+    ));
+
+    assertNull(snapshot.getElement(5), "Gap in atomic numbers should not resolve");
+    assertEquals("Oxygen", snapshot.getElement(8).name(),
+        "Element after a gap should be found");
+  }
+
+  @Test
+  void testGetElementWithSparseAtomicNumbers() {
+    PeriodicTableSnapshot snapshot = new PeriodicTableSnapshot("mockETag", List.of(
+        element("Hydrogen", 1),
+        element("Unknownium", 1_000_000)
+    ));
+
+    assertEquals("Hydrogen", snapshot.getElement(1).name(),
+        "Small atomic number should be found in a sparse index");
+    assertEquals("Unknownium", snapshot.getElement(1_000_000).name(),
+        "Large atomic number should be found in a sparse index");
+    assertNull(snapshot.getElement(500), "Missing atomic number should not resolve");
+  }
+
+  @Test
+  void testGetElementWithDuplicateAtomicNumberKeepsFirst() {
+    PeriodicTableSnapshot snapshot = new PeriodicTableSnapshot("mockETag", List.of(
+        element("Hydrogen", 1),
+        element("Duplicate Hydrogen", 1)
+    ));
+
+    assertEquals("Hydrogen", snapshot.getElement(1).name(),
+        "First row should win for a duplicated atomic number");
+  }
+
+  @Test
+  void testGetElementBySymbolAndNameIgnoringCase() {
+    // Given
+    ElementEntity iron = new ElementEntity("Iron", 26, "n/a", "group 8, d-block", null, null,
+        null, null, null, null, null, "Fe", "n/a");
+    ElementEntity ununtrium = new ElementEntity("Ununtrium", 113, "n/a", "group 13, p-block",
+        null, null, null, null, null, null, null, "n/a", "n/a");
+    ElementEntity renamed = new ElementEntity("iron", 126, "n/a", "group 8, d-block", null,
+        null, null, null, null, null, null, "FE", "n/a");
+    PeriodicTableSnapshot snapshot = new PeriodicTableSnapshot("mockETag",
+        List.of(iron, ununtrium, renamed));
+
+    // When / Then
+    assertEquals(iron, snapshot.getElementBySymbol("fe"));
+    assertEquals(iron, snapshot.getElementByName("IRON"),
+        "The first element should win for a key duplicated ignoring case");
+    assertEquals(ununtrium, snapshot.getElementByName("ununtrium"));
+    assertEquals(iron, snapshot.getElementBySymbol(" Fe "),
+        "Keys should be stripped on lookup as they are when indexed");
+    assertNull(snapshot.getElementBySymbol("n/a"), "Placeholder symbols should not be indexed");
+    assertNull(snapshot.getElementBySymbol("Fer"));
+    assertNull(snapshot.getElementByName(""));
+  }
+
+  @Test
+  void testFindElementsByGroupAndBlock() {
+    PeriodicTableSnapshot snapshot = new PeriodicTableSnapshot("mockETag", List.of(
+        new ElementEntity("Hydrogen", 1, "n/a", "group 1, s-block"),
+        new ElementEntity("Helium", 2, "n/a", "group 18 (noble gases), s-block"),
+        new ElementEntity("Lithium", 3, "n/a", "group 1 (alkali metals), s-block"),
+        new ElementEntity("Lanthanum", 57, "n/a", "group n/a, f-block")
+    ));
+
+    assertEquals(List.of("Hydrogen", "Lithium"),
+        snapshot.findElementsByGroup(1).stream().map(ElementEntity::name).toList(),
+        "Group 1 should contain labelled and unlabelled rows in document order");
+    assertEquals("Lanthanum", snapshot.findElementsByGroup(null).getFirst().name(),
+        "Group n/a should be indexed");
+    assertTrue(snapshot.findElementsByGroup(2).isEmpty(), "Empty group should be empty");
+    assertTrue(snapshot.findElementsByGroup(99).isEmpty(), "Unknown group should be empty");
+    assertEquals(3, snapshot.findElementsByBlock('s').size(),
+        "s-block should contain three elements");
+    assertEquals(1, snapshot.findElementsByBlock('F').size(),
+        "Block lookup should ignore case");
+  }
+
+  @Test
+  void testMalformedGroupBlockLeftOutOfGroupsOnly() {
+    // Given
+    ElementEntity hydrogen = new ElementEntity("Hydrogen", 1, "n/a", "group 1, s-block", null,
+        null, null, null, null, null, null, "H", "n/a");
+    ElementEntity broken = new ElementEntity("Broken", 2, "n/a", "groupless", null, null,
+        null, null, null, null, null, "Bk", "n/a");
+
+    // When
+    PeriodicTableSnapshot snapshot = new PeriodicTableSnapshot("mockETag",
+        List.of(hydrogen, broken));
+
+    // Then
+    assertEquals(List.of(hydrogen), snapshot.findElementsByGroup(1));
+    assertEquals(List.of(hydrogen), snapshot.findElementsByBlock('s'));
+    assertTrue(snapshot.findElementsByGroup(null).isEmpty(),
+        "The malformed row should not be listed under group n/a");
+    assertEquals(broken, snapshot.getElement(2));
+    assertEquals(broken, snapshot.getElementBySymbol("bk"));
+    assertEquals(broken, snapshot.getElementByName("broken"));
+    assertEquals(1, snapshot.search("broken", 5).getFirst().position(),
+        "The malformed row should still be searchable");
+    assertEquals(List.of(hydrogen, broken), snapshot.elements());
+  }
+
+  private static ElementEntity element(String name, int atomicNumber, String groupBlock,
+                                       String boilingPoint) {
+    return new ElementEntity(name, atomicNumber, "n/a", groupBlock, null, boilingPoint, null,
+        null, null, null, null, null, null);
+  }
+
+  private static ElementQuery boilingPointQuery(String group, RangeFilter range,
+                                                boolean descending, Integer limit) {
+    return new ElementQuery(
+        group == null ? Map.of() : Map.of(ElementFacet.GROUP, Set.of(group)),
+        range == null ? Map.of()
+            : Map.of(ElementPropertyColumns.NumericProperty.BOILING_POINT, range),
+        ElementPropertyColumns.NumericProperty.BOILING_POINT, descending, limit);
+  }
+
+  @Test
+  void testQueryRangeAndTopK() {
+    // Given
+    PeriodicTableSnapshot snapshot = new PeriodicTableSnapshot("mockETag", List.of(
+        element("Hydrogen", 1, "group 1, s-block", "20.271"),
+        element("Helium", 2, "group 18, s-block", "4.222"),
+        element("Lithium", 3, "group 1, s-block", "1603"),
+        element("Francium", 87, "group 1, s-block", "? 950 K (680 °C, 1300 °F)"),
+        element("Oganesson", 118, "group 18, p-block", "n/a")
+    ));
+    RangeFilter aboveHundred = new RangeFilter();
+    aboveHundred.setGt(100.0);
+
+    // When
+    List<ElementEntity> hottest = snapshot.query(boilingPointQuery(null, null, true, 2));
+    List<ElementEntity> inRange = snapshot.query(boilingPointQuery("1", aboveHundred, false,
+        null));
+    List<ElementEntity> coldestFirst = snapshot.query(boilingPointQuery("18", null, false,
+        null));
+
+    // Then
+    assertEquals(List.of("Lithium", "Francium"),
+        hottest.stream().map(ElementEntity::name).toList(),
+        "Top-k should follow the normalized values, reading text values from their figure");
+    assertEquals(List.of("Francium", "Lithium"),
+        inRange.stream().map(ElementEntity::name).toList(),
+        "Range and group filters should be combined");
+    assertEquals(List.of("Helium", "Oganesson"),
+        coldestFirst.stream().map(ElementEntity::name).toList(),
+        "Elements without a value should come last");
+  }
+
+  @Test
+  void testQueryDescendingKeepsTiesInSnapshotOrder() {
+    // Given
+    PeriodicTableSnapshot snapshot = new PeriodicTableSnapshot("mockETag", List.of(
+        element("Sodium", 11, "group 1, s-block", "1156"),
+        element("Potassium", 19, "group 1, s-block", "1032"),
+        element("Rubidium", 37, "group 1, s-block", "1156"),
+        element("Caesium", 55, "group 1, s-block", "1032")
+    ));
+
+    // When
+    List<ElementEntity> hottest = snapshot.query(boilingPointQuery(null, null, true, null));
+
+    // Then
+    assertEquals(List.of("Sodium", "Rubidium", "Potassium", "Caesium"),
+        hottest.stream().map(ElementEntity::name).toList(),
+        "Equal values should keep the snapshot order when sorted descending");
+  }
+
+  @Test
+  void testQueryCombinesFacets() {
+    // Given
+    PeriodicTableSnapshot snapshot = new PeriodicTableSnapshot("mockETag", List.of(
+        new ElementEntity("Hydrogen", 1, "n/a", "group 1, s-block", null, null, null, null,
+            "1", "diatomic nonmetal", "gas", null, null),
+        new ElementEntity("Lithium", 3, "n/a", "group 1, s-block", null, null, null, null,
+            "2", "alkali metal", "solid", null, null),
+        new ElementEntity("Iron", 26, "n/a", "group 8, d-block", null, null, null, null,
+            "4", "transition metal", "solid", null, null),
+        new ElementEntity("Zinc", 30, "n/a", "group 12, d-block", null, null, null, null,
+            "4", "transition metal, alternatively considered a post-transition metal",
+            "solid", null, null),
+        new ElementEntity("Mercury", 80, "n/a", "group 12, d-block", null, null, null, null,
+            "6", "transition metal", "liquid", null, null)
+    ));
+
+    // When
+    List<ElementEntity> solidTransitionMetals = snapshot.query(new ElementQuery(
+        Map.of(ElementFacet.CATEGORY, Set.of("transition metal"),
+            ElementFacet.PHASE, Set.of("solid")),
+        Map.of(), null, false, null));
+    List<ElementEntity> sBlockOfFirstTwoPeriods = snapshot.query(new ElementQuery(
+        Map.of(ElementFacet.PERIOD, Set.of("1", "2"), ElementFacet.BLOCK, Set.of("s")),
+        Map.of(), null, false, null));
+
+    // Then
+    assertEquals(List.of("Iron", "Zinc"),
+        solidTransitionMetals.stream().map(ElementEntity::name).toList(),
+        "Facets should be intersected, reading the category from its first clause");
+    assertEquals(List.of("Hydrogen", "Lithium"),
+        sBlockOfFirstTwoPeriods.stream().map(ElementEntity::name).toList(),
+        "Values of a facet should be united");
+  }
+}
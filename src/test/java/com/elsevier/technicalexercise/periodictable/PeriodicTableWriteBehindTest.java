@@ -0,0 +1,261 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PeriodicTableWriteBehindTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final PeriodicTableJsonCodec jsonCodec = new PeriodicTableJsonCodec();
+
+  @Mock
+  private PeriodicTableRepository periodicTableRepository;
+
+  @Mock
+  private PeriodicTableWriteCoordinator writeCoordinator;
+
+  @TempDir
+  private Path directory;
+
+  private Path journalPath;
+
+  private PeriodicTableSnapshot base;
+
+  private PeriodicTableWriteBehind writeBehind;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    journalPath = directory.resolve("periodic-table-journal.ndjson");
+    base = new PeriodicTableSnapshot("\"mockETag\"", jsonCodec.toElements(threeElements()));
+    writeBehind = newWriteBehind();
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    writeBehind.destroy();
+  }
+
+  private PeriodicTableWriteBehind newWriteBehind() throws IOException {
+    return newWriteBehind(100);
+  }
+
+  private PeriodicTableWriteBehind newWriteBehind(int journalCompactionThreshold)
+      throws IOException {
+    return new PeriodicTableWriteBehind(periodicTableRepository, writeCoordinator, jsonCodec,
+        objectMapper, journalPath.toString(), Duration.ofHours(1), 100,
+        journalCompactionThreshold);
+  }
+
+  private static List<Map<String, Object>> threeElements() {
+    List<Map<String, Object>> data = new ArrayList<>();
+    for (int atomicNumber = 1; atomicNumber <= 3; atomicNumber++) {
+      Map<String, Object> element = new LinkedHashMap<>();
+      element.put("name", "Element " + atomicNumber);
+      element.put("atomic_number", atomicNumber);
+      element.put("alternative_name", "n/a");
+      element.put("group_block", "group 1, s-block");
+      data.add(element);
+    }
+    return data;
+  }
+
+  private static List<ElementPatchRequestDto> rename(int atomicNumber, String name) {
+    return List.of(new ElementPatchRequestDto(name, atomicNumber, null, null));
+  }
+
+  private static PeriodicTableUpdate stored(int atomicNumber) {
+    return new PeriodicTableUpdate(new PeriodicTableEntity(threeElements(), "\"newETag\""),
+        "newVersion", List.of(atomicNumber));
+  }
+
+  @Test
+  void testSubmittedPatchShownBeforeItIsWritten()
+      throws ExecutionException, InterruptedException {
+    // Given
+    when(periodicTableRepository.getSnapshot())
+        .thenReturn(CompletableFuture.completedFuture(base));
+
+    // When
+    PeriodicTableOperation operation = writeBehind.submit(rename(2, "Pending")).get();
+    PeriodicTableSnapshot snapshot = writeBehind.getSnapshot().get();
+
+    // Then
+    assertEquals(PeriodicTableOperation.Status.PENDING, operation.status());
+    assertEquals(List.of(2), operation.changedAtomicNumbers());
+    assertEquals(operation, writeBehind.getOperation(operation.id()).orElseThrow());
+    assertEquals("Pending", snapshot.getElement(2).name());
+    assertEquals("Element 1", snapshot.getElement(1).name());
+    assertNotEquals(base.etag(), snapshot.etag(),
+        "The overlay should never share the ETag of the stored table");
+    assertTrue(snapshot.etag().startsWith("\"mockETag+"));
+    assertSame(snapshot, writeBehind.getSnapshot().get(),
+        "The overlay should be reused until the pending patches change");
+    verify(writeCoordinator, never()).submit(any(ElementPatchMerger.class));
+  }
+
+  @Test
+  void testFlushMakesOperationDurable() throws ExecutionException, InterruptedException,
+      IOException {
+    // Given
+    when(periodicTableRepository.getSnapshot())
+        .thenReturn(CompletableFuture.completedFuture(base));
+    when(writeCoordinator.submit(any(ElementPatchMerger.class)))
+        .thenReturn(CompletableFuture.completedFuture(stored(2)));
+    PeriodicTableOperation accepted = writeBehind.submit(rename(2, "Pending")).get();
+
+    // When
+    writeBehind.flush().get();
+
+    // Then
+    PeriodicTableOperation operation = writeBehind.getOperation(accepted.id()).orElseThrow();
+    assertEquals(PeriodicTableOperation.Status.DURABLE, operation.status());
+    assertEquals("\"newETag\"", operation.etag());
+    assertEquals("newVersion", operation.versionId());
+    assertSame(base, writeBehind.getSnapshot().get(),
+        "Nothing is pending, so the stored snapshot should be shown as is");
+    assertEquals(0, Files.size(journalPath), "The journal should be emptied");
+  }
+
+  @Test
+  void testFlushRetriesTransientFailure() throws ExecutionException, InterruptedException {
+    // Given
+    when(periodicTableRepository.getSnapshot())
+        .thenReturn(CompletableFuture.completedFuture(base));
+    when(writeCoordinator.submit(any(ElementPatchMerger.class)))
+        .thenReturn(CompletableFuture.failedFuture(
+            new PeriodicTableService.PeriodicTableContentionException("Contended")))
+        .thenReturn(CompletableFuture.completedFuture(stored(2)));
+    PeriodicTableOperation accepted = writeBehind.submit(rename(2, "Pending")).get();
+
+    // When
+    writeBehind.flush().get();
+
+    // Then
+    assertEquals(PeriodicTableOperation.Status.PENDING,
+        writeBehind.getOperation(accepted.id()).orElseThrow().status());
+    assertEquals("Pending", writeBehind.getSnapshot().get().getElement(2).name());
+
+    // When
+    writeBehind.flush().get();
+
+    // Then
+    assertEquals(PeriodicTableOperation.Status.DURABLE,
+        writeBehind.getOperation(accepted.id()).orElseThrow().status());
+  }
+
+  @Test
+  void testFlushFailsPatchThatCannotBeMerged() throws ExecutionException, InterruptedException {
+    // Given
+    when(periodicTableRepository.getSnapshot())
+        .thenReturn(CompletableFuture.completedFuture(base));
+    when(writeCoordinator.submit(any(ElementPatchMerger.class)))
+        .thenReturn(CompletableFuture.failedFuture(
+            new IllegalArgumentException("Invalid group block")));
+    PeriodicTableOperation accepted = writeBehind.submit(rename(2, "Pending")).get();
+
+    // When
+    writeBehind.flush().get();
+
+    // Then
+    PeriodicTableOperation operation = writeBehind.getOperation(accepted.id()).orElseThrow();
+    assertEquals(PeriodicTableOperation.Status.FAILED, operation.status(),
+        "A deterministic failure should not be retried");
+    assertEquals("IllegalArgumentException", operation.errorReason());
+    assertEquals("Element 2", writeBehind.getSnapshot().get().getElement(2).name());
+  }
+
+  @Test
+  void testJournaledPatchesReplayedOnRestart() throws ExecutionException, InterruptedException,
+      IOException {
+    // Given
+    when(periodicTableRepository.getSnapshot())
+        .thenReturn(CompletableFuture.completedFuture(base));
+    PeriodicTableOperation accepted = writeBehind.submit(rename(3, "Journaled")).get();
+    writeBehind.destroy();
+
+    // When
+    writeBehind = newWriteBehind();
+
+    // Then
+    PeriodicTableOperation replayed = writeBehind.getOperation(accepted.id()).orElseThrow();
+    assertEquals(PeriodicTableOperation.Status.PENDING, replayed.status());
+    assertEquals(List.of(3), replayed.changedAtomicNumbers(),
+        "The changed rows should be read back from the journal");
+    assertEquals("Journaled", writeBehind.getSnapshot().get().getElement(3).name());
+
+    // When
+    when(writeCoordinator.submit(any(ElementPatchMerger.class)))
+        .thenReturn(CompletableFuture.completedFuture(stored(3)));
+    writeBehind.flush().get();
+
+    // Then
+    assertEquals(PeriodicTableOperation.Status.DURABLE,
+        writeBehind.getOperation(accepted.id()).orElseThrow().status());
+    assertEquals(0, Files.size(journalPath));
+  }
+
+  @Test
+  void testJournalRewrittenWithPendingPatchesOnly() throws ExecutionException,
+      InterruptedException, IOException {
+    // Given
+    writeBehind.destroy();
+    writeBehind = newWriteBehind(0);
+    when(periodicTableRepository.getSnapshot())
+        .thenReturn(CompletableFuture.completedFuture(base));
+    when(writeCoordinator.submit(any(ElementPatchMerger.class)))
+        .thenReturn(CompletableFuture.completedFuture(stored(2)))
+        .thenReturn(CompletableFuture.failedFuture(
+            new PeriodicTableService.PeriodicTableContentionException("Contended")));
+    PeriodicTableOperation written = writeBehind.submit(rename(2, "Written")).get();
+    PeriodicTableOperation retried = writeBehind.submit(rename(3, "Retried")).get();
+
+    // When
+    writeBehind.flush().get();
+
+    // Then
+    List<String> lines = Files.readAllLines(journalPath);
+    assertEquals(1, lines.size(), "Only the pending patch should be left in the journal");
+    assertTrue(lines.get(0).contains(retried.id()));
+    assertFalse(Files.exists(journalPath.resolveSibling(journalPath.getFileName() + ".tmp")));
+
+    // When
+    writeBehind.submit(rename(1, "Appended")).get();
+    writeBehind.destroy();
+    writeBehind = newWriteBehind();
+
+    // Then
+    assertTrue(writeBehind.getOperation(written.id()).isEmpty());
+    assertEquals(PeriodicTableOperation.Status.PENDING,
+        writeBehind.getOperation(retried.id()).orElseThrow().status());
+    assertEquals("Appended", writeBehind.getSnapshot().get().getElement(1).name(),
+        "Patches should be appended to the rewritten journal");
+  }
+}
@@ -0,0 +1,232 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.elsevier.technicalexercise.cloud.ObjectStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PeriodicTableWriteCoordinatorTest {
+
+  @Mock
+  private PeriodicTableRepository periodicTableRepository;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private PeriodicTableWriteCoordinator writeCoordinator;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    writeCoordinator = new PeriodicTableWriteCoordinator(periodicTableRepository, meterRegistry,
+        Duration.ofMillis(200), 64, 3, Duration.ofMillis(1), Duration.ofMillis(5));
+  }
+
+  private static PeriodicTableEntity threeElements() {
+    List<Map<String, Object>> data = new ArrayList<>();
+    for (int atomicNumber = 1; atomicNumber <= 3; atomicNumber++) {
+      Map<String, Object> element = new LinkedHashMap<>();
+      element.put("name", "Element " + atomicNumber);
+      element.put("atomic_number", atomicNumber);
+      element.put("alternative_name", "n/a");
+      element.put("group_block", "group 1, s-block");
+      data.add(element);
+    }
+    return new PeriodicTableEntity(data, "mockETag");
+  }
+
+  private static ElementPatchMerger rename(int atomicNumber, String name) {
+    return new ElementPatchMerger(
+        List.of(new ElementPatchRequestDto(name, atomicNumber, null, null)));
+  }
+
+  @Test
+  void testConcurrentPatchesWrittenTogether() throws ExecutionException, InterruptedException {
+    // Given
+    when(periodicTableRepository.getPeriodicTable())
+        .thenReturn(CompletableFuture.completedFuture(threeElements()));
+    when(periodicTableRepository.updatePeriodicTable(any(PeriodicTableEntity.class)))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.PutObjectResponse("newETag", "newVersion")));
+
+    // When
+    CompletableFuture<PeriodicTableUpdate> first = writeCoordinator.submit(rename(1, "First"));
+    CompletableFuture<PeriodicTableUpdate> second = writeCoordinator.submit(rename(3, "Second"));
+    CompletableFuture<PeriodicTableUpdate> third = writeCoordinator.submit(rename(1, "Third"));
+
+    // Then
+    assertEquals(List.of(1), first.get().changedAtomicNumbers());
+    assertEquals(List.of(3), second.get().changedAtomicNumbers());
+    assertEquals(List.of(1), third.get().changedAtomicNumbers());
+    ArgumentCaptor<PeriodicTableEntity> argumentCaptor =
+        ArgumentCaptor.forClass(PeriodicTableEntity.class);
+    verify(periodicTableRepository, times(1)).getPeriodicTable();
+    verify(periodicTableRepository, times(1)).updatePeriodicTable(argumentCaptor.capture());
+    List<Map<String, Object>> written = argumentCaptor.getValue().data();
+    assertEquals("Third", written.get(0).get("name"), "Later patches should win");
+    assertEquals("Element 2", written.get(1).get("name"));
+    assertEquals("Second", written.get(2).get("name"));
+    assertEquals(3, meterRegistry.summary("periodic.table.write.batch.size").totalAmount());
+  }
+
+  @Test
+  void testInvalidPatchFailsAlone() throws ExecutionException, InterruptedException {
+    // Given
+    when(periodicTableRepository.getPeriodicTable())
+        .thenReturn(CompletableFuture.completedFuture(threeElements()));
+    when(periodicTableRepository.updatePeriodicTable(any(PeriodicTableEntity.class)))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.PutObjectResponse("newETag", "newVersion")));
+
+    // When
+    CompletableFuture<PeriodicTableUpdate> valid = writeCoordinator.submit(rename(2, "Valid"));
+    CompletableFuture<PeriodicTableUpdate> unknown = writeCoordinator.submit(rename(999, "X"));
+
+    // Then
+    assertEquals(List.of(2), valid.get().changedAtomicNumbers());
+    ExecutionException executionException = assertThrows(ExecutionException.class,
+        unknown::get, "Unknown atomic number should fail its own request");
+    assertInstanceOf(PeriodicTableService.ElementNotFoundException.class,
+        executionException.getCause());
+    verify(periodicTableRepository, times(1)).updatePeriodicTable(any(PeriodicTableEntity.class));
+  }
+
+  @Test
+  void testFullBatchWrittenWithoutWaitingForWindow()
+      throws ExecutionException, InterruptedException {
+    // Given
+    writeCoordinator = new PeriodicTableWriteCoordinator(periodicTableRepository, meterRegistry,
+        Duration.ofHours(1), 2, 3, Duration.ofMillis(1), Duration.ofMillis(5));
+    when(periodicTableRepository.getPeriodicTable())
+        .thenReturn(CompletableFuture.completedFuture(threeElements()));
+    when(periodicTableRepository.updatePeriodicTable(any(PeriodicTableEntity.class)))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.PutObjectResponse("newETag", "newVersion")));
+
+    // When
+    CompletableFuture<PeriodicTableUpdate> first = writeCoordinator.submit(rename(1, "First"));
+    CompletableFuture<PeriodicTableUpdate> second = writeCoordinator.submit(rename(2, "Second"));
+
+    // Then
+    assertEquals(List.of(1), first.get().changedAtomicNumbers());
+    assertEquals(List.of(2), second.get().changedAtomicNumbers());
+  }
+
+  @Test
+  void testPatchAgainstCachedTableSkipsRead() throws ExecutionException, InterruptedException {
+    // Given
+    when(periodicTableRepository.getCachedPeriodicTable("mockETag"))
+        .thenReturn(Optional.of(threeElements()));
+    when(periodicTableRepository.updatePeriodicTable(any(PeriodicTableEntity.class)))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.PutObjectResponse("newETag", "newVersion")));
+
+    // When
+    PeriodicTableUpdate update = writeCoordinator.submit(rename(2, "Cached"), "mockETag").get();
+
+    // Then
+    assertEquals("newETag", update.periodicTable().etag());
+    ArgumentCaptor<PeriodicTableEntity> argumentCaptor =
+        ArgumentCaptor.forClass(PeriodicTableEntity.class);
+    verify(periodicTableRepository).updatePeriodicTable(argumentCaptor.capture());
+    assertEquals("mockETag", argumentCaptor.getValue().etag(),
+        "Write should be conditional on the client ETag");
+    assertEquals("Cached", argumentCaptor.getValue().data().get(1).get("name"));
+    verify(periodicTableRepository, never()).getPeriodicTable();
+  }
+
+  @Test
+  void testPatchAgainstStaleVersionRejected() {
+    // Given
+    when(periodicTableRepository.getCachedPeriodicTable("staleETag"))
+        .thenReturn(Optional.empty());
+    when(periodicTableRepository.getPeriodicTable())
+        .thenReturn(CompletableFuture.completedFuture(threeElements()));
+
+    // When
+    CompletableFuture<PeriodicTableUpdate> update =
+        writeCoordinator.submit(rename(2, "Stale"), "staleETag");
+
+    // Then
+    ExecutionException executionException = assertThrows(ExecutionException.class,
+        update::get, "Patch made against another version should be rejected");
+    assertInstanceOf(PeriodicTableService.PeriodicTableVersionMismatchException.class,
+        executionException.getCause());
+    verify(periodicTableRepository, never()).updatePeriodicTable(any(PeriodicTableEntity.class));
+  }
+
+  @Test
+  void testOnlyFirstPatchAgainstSameVersionApplied()
+      throws ExecutionException, InterruptedException {
+    // Given
+    when(periodicTableRepository.getCachedPeriodicTable("mockETag"))
+        .thenReturn(Optional.of(threeElements()));
+    when(periodicTableRepository.updatePeriodicTable(any(PeriodicTableEntity.class)))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.PutObjectResponse("newETag", "newVersion")));
+
+    // When
+    CompletableFuture<PeriodicTableUpdate> first =
+        writeCoordinator.submit(rename(1, "First"), "mockETag");
+    CompletableFuture<PeriodicTableUpdate> second =
+        writeCoordinator.submit(rename(1, "Second"), "mockETag");
+
+    // Then
+    assertEquals(List.of(1), first.get().changedAtomicNumbers());
+    ExecutionException executionException = assertThrows(ExecutionException.class,
+        second::get, "Table changed by the first patch should reject the second");
+    assertInstanceOf(PeriodicTableService.PeriodicTableVersionMismatchException.class,
+        executionException.getCause());
+    ArgumentCaptor<PeriodicTableEntity> argumentCaptor =
+        ArgumentCaptor.forClass(PeriodicTableEntity.class);
+    verify(periodicTableRepository).updatePeriodicTable(argumentCaptor.capture());
+    assertEquals("First", argumentCaptor.getValue().data().get(0).get("name"));
+  }
+
+  @Test
+  void testPatchesAgainstDifferentVersionsCheckedAgainstStorage()
+      throws ExecutionException, InterruptedException {
+    // Given
+    when(periodicTableRepository.getPeriodicTable())
+        .thenReturn(CompletableFuture.completedFuture(threeElements()));
+    when(periodicTableRepository.updatePeriodicTable(any(PeriodicTableEntity.class)))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.PutObjectResponse("newETag", "newVersion")));
+
+    // When
+    CompletableFuture<PeriodicTableUpdate> stale =
+        writeCoordinator.submit(rename(1, "Stale"), "cachedETag");
+    CompletableFuture<PeriodicTableUpdate> current =
+        writeCoordinator.submit(rename(2, "Current"), "mockETag");
+
+    // Then
+    assertEquals(List.of(2), current.get().changedAtomicNumbers(),
+        "Patch made against the stored version should be applied");
+    ExecutionException executionException = assertThrows(ExecutionException.class,
+        stale::get, "Patch made against a version storage is no longer at should be rejected");
+    assertInstanceOf(PeriodicTableService.PeriodicTableVersionMismatchException.class,
+        executionException.getCause());
+    verify(periodicTableRepository, never()).getCachedPeriodicTable(any());
+  }
+}
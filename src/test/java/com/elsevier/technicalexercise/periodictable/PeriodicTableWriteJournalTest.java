@@ -0,0 +1,114 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PeriodicTableWriteJournalTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @TempDir
+  private Path directory;
+
+  private ElementPatchRequestDto patch(int atomicNumber, String name) throws IOException {
+    return objectMapper.readValue(
+        "{\"atomicNumber\": " + atomicNumber + ", \"name\": \"" + name + "\"}",
+        ElementPatchRequestDto.class);
+  }
+
+  @Test
+  void testReadPendingReplaysPatchesNotCompleted() throws IOException {
+    // Given
+    Path path = directory.resolve("journal/periodic-table-journal.ndjson");
+    try (PeriodicTableWriteJournal journal = PeriodicTableWriteJournal.open(path, objectMapper)) {
+      journal.appendPatch("first", List.of(patch(1, "Updated Hydrogen")), List.of(1));
+      journal.appendPatch("second", List.of(patch(2, "Updated Helium")), List.of(2));
+      journal.appendCompleted(List.of("first"));
+    }
+
+    // When
+    List<PeriodicTableWriteJournal.PendingEntry> pending;
+    try (PeriodicTableWriteJournal journal = PeriodicTableWriteJournal.open(path, objectMapper)) {
+      pending = journal.readPending();
+    }
+
+    // Then
+    assertEquals(1, pending.size());
+    assertEquals("second", pending.get(0).id());
+    assertEquals("Updated Helium", pending.get(0).patches().get(0).getName());
+    assertEquals(List.of(2), pending.get(0).changedAtomicNumbers());
+  }
+
+  @Test
+  void testOpenSkipsLineCutShortByCrash() throws IOException {
+    // Given
+    Path path = directory.resolve("periodic-table-journal.ndjson");
+    try (PeriodicTableWriteJournal journal = PeriodicTableWriteJournal.open(path, objectMapper)) {
+      journal.appendPatch("first", List.of(patch(1, "Updated Hydrogen")), List.of(1));
+    }
+    Files.writeString(path, "{\"type\":\"patch\",\"id\":\"torn\",\"pat",
+        StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+    // When
+    List<PeriodicTableWriteJournal.PendingEntry> pending;
+    try (PeriodicTableWriteJournal journal = PeriodicTableWriteJournal.open(path, objectMapper)) {
+      journal.appendPatch("second", List.of(patch(2, "Updated Helium")), List.of(2));
+      pending = journal.readPending();
+    }
+
+    // Then
+    assertEquals(List.of("first", "second"),
+        pending.stream().map(PeriodicTableWriteJournal.PendingEntry::id).toList(),
+        "The torn line should be skipped without losing the entry appended after it");
+  }
+
+  @Test
+  void testTruncateEmptiesJournal() throws IOException {
+    // Given
+    Path path = directory.resolve("periodic-table-journal.ndjson");
+    try (PeriodicTableWriteJournal journal = PeriodicTableWriteJournal.open(path, objectMapper)) {
+      journal.appendPatch("first", List.of(patch(1, "Updated Hydrogen")), List.of(1));
+
+      // When
+      journal.truncate();
+
+      // Then
+      assertTrue(journal.readPending().isEmpty());
+      assertEquals(0, Files.size(path));
+    }
+  }
+
+  @Test
+  void testRewriteKeepsOnlyPendingPatches() throws IOException {
+    // Given
+    Path path = directory.resolve("periodic-table-journal.ndjson");
+    try (PeriodicTableWriteJournal journal = PeriodicTableWriteJournal.open(path, objectMapper)) {
+      journal.appendPatch("first", List.of(patch(1, "Updated Hydrogen")), List.of(1));
+      journal.appendPatch("second", List.of(patch(2, "Updated Helium")), List.of(2));
+      journal.appendCompleted(List.of("first"));
+      assertEquals(1, journal.completedEntries());
+      List<PeriodicTableWriteJournal.PendingEntry> pending = journal.readPending();
+      assertEquals(1, journal.completedEntries());
+
+      // When
+      journal.rewrite(pending);
+      journal.appendPatch("third", List.of(patch(3, "Updated Lithium")), List.of(3));
+
+      // Then
+      assertEquals(0, journal.completedEntries());
+      assertEquals(2, Files.readAllLines(path).size());
+      assertEquals(List.of("second", "third"),
+          journal.readPending().stream().map(PeriodicTableWriteJournal.PendingEntry::id).toList());
+    }
+  }
+}
@@ -0,0 +1,324 @@
+package com.elsevier.technicalexercise.periodictable;
+
+import com.elsevier.technicalexercise.cloud.ObjectStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ShardedPeriodicTableStoreTest {
+
+  private String testBucketName = "elsevier-technical-exercise";
+  private String testShardPrefix = "periodic_table.json.shards/";
+  private String testManifestKey = "periodic_table.json.shards/manifest.json";
+  private String hydrogenShardKey = "periodic_table.json.shards/elements/001-hydrogen.json";
+  private String heliumShardKey = "periodic_table.json.shards/elements/002-helium.json";
+
+  @Mock
+  private ObjectStorage objectStorage;
+
+  private PeriodicTableJsonCodec jsonCodec = new PeriodicTableJsonCodec();
+
+  private ShardedPeriodicTableStore shardedPeriodicTableStore;
+
+  @BeforeEach
+  void setUp() {
+    shardedPeriodicTableStore = new ShardedPeriodicTableStore(objectStorage, jsonCodec,
+        testBucketName, testShardPrefix, Duration.ofHours(1));
+  }
+
+  private static final String HYDROGEN_JSON = """
+      {
+          "name": "Hydrogen",
+          "atomic_number": 1,
+          "alternative_name": "n/a",
+          "group_block": "group 1, s-block",
+          "iso": "large text"
+      }
+      """;
+
+  private static final String HELIUM_JSON = """
+      {
+          "name": "Helium",
+          "atomic_number": 2,
+          "alternative_name": "n/a",
+          "group_block": "group 18 (noble gases), s-block",
+          "iso": "large text"
+      }
+      """;
+
+  private String manifestJson() {
+    return """
+        [
+            {
+                "name": "Hydrogen",
+                "atomic_number": 1,
+                "alternative_name": "n/a",
+                "group_block": "group 1, s-block",
+                "shard_key": "%s",
+                "shard_etag": "hydrogenETag",
+                "shard_size": 120
+            },
+            {
+                "name": "Helium",
+                "atomic_number": 2,
+                "alternative_name": "n/a",
+                "group_block": "group 18 (noble gases), s-block",
+                "shard_key": "%s",
+                "shard_etag": "heliumETag",
+                "shard_size": 130
+            }
+        ]
+        """.formatted(hydrogenShardKey, heliumShardKey);
+  }
+
+  private void givenManifest() {
+    when(objectStorage.getObject(testBucketName, testManifestKey))
+        .thenReturn(CompletableFuture.completedFuture(new ObjectStorage.GetObjectResponse(
+            manifestJson().getBytes(StandardCharsets.UTF_8), "manifestETag")));
+  }
+
+  private void givenShard(String key, String content) {
+    when(objectStorage.getObject(testBucketName, key))
+        .thenReturn(CompletableFuture.completedFuture(new ObjectStorage.GetObjectResponse(
+            content.getBytes(StandardCharsets.UTF_8), key + "ETag")));
+  }
+
+  @Test
+  void testSnapshotIsReadFromManifestOnly() throws ExecutionException, InterruptedException {
+    // Given
+    givenManifest();
+
+    // When
+    Optional<PeriodicTableSnapshot> snapshot =
+        shardedPeriodicTableStore.readSnapshotIfModified(null).get();
+
+    // Then
+    assertTrue(snapshot.isPresent());
+    assertEquals("manifestETag", snapshot.get().etag());
+    assertEquals("Helium", snapshot.get().getElement(2).name());
+    verify(objectStorage, never()).getObject(testBucketName, hydrogenShardKey);
+    verify(objectStorage, never()).getObject(testBucketName, heliumShardKey);
+  }
+
+  @Test
+  void testReadDocumentDownloadsShardsOnce() throws ExecutionException, InterruptedException {
+    // Given
+    givenManifest();
+    givenShard(hydrogenShardKey, HYDROGEN_JSON);
+    givenShard(heliumShardKey, HELIUM_JSON);
+
+    // When
+    shardedPeriodicTableStore.readDocument().get();
+    PeriodicTableEntity periodicTable = shardedPeriodicTableStore.readDocument().get();
+
+    // Then
+    assertEquals("manifestETag", periodicTable.etag());
+    assertEquals(2, periodicTable.data().size());
+    assertEquals("large text", periodicTable.data().get(0).get("iso"),
+        "Full elements should keep every attribute");
+    verify(objectStorage, times(2)).getObject(testBucketName, testManifestKey);
+    verify(objectStorage, times(1)).getObject(testBucketName, hydrogenShardKey);
+    verify(objectStorage, times(1)).getObject(testBucketName, heliumShardKey);
+  }
+
+  @Test
+  void testWriteDocumentUploadsChangedShardAndReplacesManifest() throws Exception {
+    // Given
+    givenManifest();
+    givenShard(hydrogenShardKey, HYDROGEN_JSON);
+    givenShard(heliumShardKey, HELIUM_JSON);
+    when(objectStorage.createObject(eq(testBucketName),
+        startsWith(testShardPrefix + "elements/002-"), any()))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.PutObjectResponse("newHeliumETag", "newHeliumVersion")));
+    when(objectStorage.replaceObject(eq(testBucketName), eq(testManifestKey), any(),
+        eq("manifestETag")))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.PutObjectResponse("newManifestETag", "newManifestVersion")));
+    PeriodicTableEntity periodicTable = shardedPeriodicTableStore.readDocument().get();
+    List<Map<String, Object>> data = new ArrayList<>(periodicTable.data());
+    Map<String, Object> helium = new LinkedHashMap<>(data.get(1));
+    helium.put("alternative_name", "Noble");
+    data.set(1, helium);
+
+    // When
+    PeriodicTableStore.StoredWrite written = shardedPeriodicTableStore.writeDocument(
+        new PeriodicTableEntity(data, periodicTable.etag())).get();
+
+    // Then
+    verify(objectStorage, times(1)).createObject(anyString(), anyString(), any());
+    ArgumentCaptor<byte[]> manifest = ArgumentCaptor.forClass(byte[].class);
+    verify(objectStorage).replaceObject(eq(testBucketName), eq(testManifestKey),
+        manifest.capture(), eq("manifestETag"));
+    List<Map<String, Object>> entries = jsonCodec.readDocument(manifest.getValue());
+    assertEquals(hydrogenShardKey, entries.get(0).get("shard_key"),
+        "Unchanged element should keep its shard");
+    assertNotEquals(heliumShardKey, entries.get(1).get("shard_key"));
+    assertEquals("newHeliumETag", entries.get(1).get("shard_etag"));
+    assertEquals("Noble", entries.get(1).get("alternative_name"));
+    assertEquals("newManifestETag", written.response().etag());
+    assertEquals("Noble", written.snapshot().getElement(2).alternativeName());
+  }
+
+  @Test
+  void testWriteDocumentNeverReusesShardKey() throws Exception {
+    // Given
+    givenManifest();
+    givenShard(hydrogenShardKey, HYDROGEN_JSON);
+    givenShard(heliumShardKey, HELIUM_JSON);
+    when(objectStorage.createObject(eq(testBucketName),
+        startsWith(testShardPrefix + "elements/002-"), any()))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.PutObjectResponse("nobleETag", "nobleVersion")))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.PutObjectResponse("revertedETag", "revertedVersion")));
+    when(objectStorage.replaceObject(eq(testBucketName), eq(testManifestKey), any(),
+        eq("manifestETag")))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.PutObjectResponse("nobleManifestETag", "nobleManifestVersion")));
+    when(objectStorage.replaceObject(eq(testBucketName), eq(testManifestKey), any(),
+        eq("nobleManifestETag")))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.PutObjectResponse("revertedManifestETag", "revertedVersion")));
+    PeriodicTableEntity periodicTable = shardedPeriodicTableStore.readDocument().get();
+    List<Map<String, Object>> data = new ArrayList<>(periodicTable.data());
+    Map<String, Object> helium = new LinkedHashMap<>(data.get(1));
+    helium.put("alternative_name", "Noble");
+    data.set(1, helium);
+    shardedPeriodicTableStore.writeDocument(
+        new PeriodicTableEntity(data, periodicTable.etag())).get();
+
+    // When
+    shardedPeriodicTableStore.writeDocument(
+        new PeriodicTableEntity(periodicTable.data(), "nobleManifestETag")).get();
+
+    // Then
+    ArgumentCaptor<String> shardKeys = ArgumentCaptor.forClass(String.class);
+    verify(objectStorage, times(2)).createObject(eq(testBucketName), shardKeys.capture(),
+        any());
+    String revertedShardKey = shardKeys.getAllValues().get(1);
+    assertNotEquals(heliumShardKey, revertedShardKey,
+        "Reverting to earlier content should not bring back a dropped shard key");
+    assertNotEquals(shardKeys.getAllValues().get(0), revertedShardKey);
+  }
+
+  @Test
+  void testWriteDocumentDeletesDroppedShardOnceRetained() throws Exception {
+    // Given
+    shardedPeriodicTableStore = new ShardedPeriodicTableStore(objectStorage, jsonCodec,
+        testBucketName, testShardPrefix, Duration.ZERO);
+    givenManifest();
+    givenShard(hydrogenShardKey, HYDROGEN_JSON);
+    givenShard(heliumShardKey, HELIUM_JSON);
+    when(objectStorage.createObject(eq(testBucketName),
+        startsWith(testShardPrefix + "elements/002-"), any()))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.PutObjectResponse("newHeliumETag", "newHeliumVersion")));
+    when(objectStorage.replaceObject(eq(testBucketName), eq(testManifestKey), any(),
+        eq("manifestETag")))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.PutObjectResponse("newManifestETag", "newManifestVersion")));
+    when(objectStorage.deleteObject(testBucketName, heliumShardKey))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    PeriodicTableEntity periodicTable = shardedPeriodicTableStore.readDocument().get();
+    List<Map<String, Object>> data = new ArrayList<>(periodicTable.data());
+    Map<String, Object> helium = new LinkedHashMap<>(data.get(1));
+    helium.put("alternative_name", "Noble");
+    data.set(1, helium);
+
+    // When
+    shardedPeriodicTableStore.writeDocument(
+        new PeriodicTableEntity(data, periodicTable.etag())).get();
+
+    // Then
+    verify(objectStorage, timeout(1000)).deleteObject(testBucketName, heliumShardKey);
+    verify(objectStorage, never()).deleteObject(testBucketName, hydrogenShardKey);
+  }
+
+  @Test
+  void testWriteDocumentRejectsTableThatCannotBeIndexed() throws Exception {
+    // Given
+    givenManifest();
+    givenShard(hydrogenShardKey, HYDROGEN_JSON);
+    givenShard(heliumShardKey, HELIUM_JSON);
+    PeriodicTableEntity periodicTable = shardedPeriodicTableStore.readDocument().get();
+    List<Map<String, Object>> data = new ArrayList<>(periodicTable.data());
+    Map<String, Object> helium = new LinkedHashMap<>(data.get(1));
+    helium.put("atomic_number", "two");
+    data.set(1, helium);
+
+    // When / Then
+    assertThrows(PeriodicTableStore.JsonMappingException.class,
+        () -> shardedPeriodicTableStore.writeDocument(
+            new PeriodicTableEntity(data, periodicTable.etag())));
+    verify(objectStorage, never()).createObject(anyString(), anyString(), any());
+  }
+
+  @Test
+  void testWriteDocumentRejectsStaleVersion() throws ExecutionException, InterruptedException {
+    // Given
+    givenManifest();
+    givenShard(hydrogenShardKey, HYDROGEN_JSON);
+    givenShard(heliumShardKey, HELIUM_JSON);
+    PeriodicTableEntity periodicTable = shardedPeriodicTableStore.readDocument().get();
+
+    // When
+    CompletableFuture<PeriodicTableStore.StoredWrite> written = shardedPeriodicTableStore
+        .writeDocument(new PeriodicTableEntity(periodicTable.data(), "staleETag"));
+
+    // Then
+    ExecutionException exception = assertThrows(ExecutionException.class, written::get);
+    assertInstanceOf(ObjectStorage.PreconditionFailedException.class, exception.getCause());
+    verify(objectStorage, never()).createObject(anyString(), anyString(), any());
+  }
+
+  @Test
+  void testImportDocumentCreatesShardsAndManifest() throws Exception {
+    // Given
+    when(objectStorage.createObject(eq(testBucketName), anyString(), any()))
+        .thenReturn(CompletableFuture.completedFuture(
+            new ObjectStorage.PutObjectResponse("createdETag", "createdVersion")));
+    List<Map<String, Object>> data = List.of(jsonCodec.readRow(
+        HYDROGEN_JSON.getBytes(StandardCharsets.UTF_8)),
+        jsonCodec.readRow(HELIUM_JSON.getBytes(StandardCharsets.UTF_8)));
+
+    // When
+    shardedPeriodicTableStore.importDocument(data).get();
+
+    // Then
+    ArgumentCaptor<byte[]> manifest = ArgumentCaptor.forClass(byte[].class);
+    verify(objectStorage).createObject(eq(testBucketName), eq(testManifestKey),
+        manifest.capture());
+    verify(objectStorage, times(3)).createObject(eq(testBucketName), anyString(), any());
+    List<Map<String, Object>> entries = jsonCodec.readDocument(manifest.getValue());
+    assertEquals(2, entries.size());
+    assertTrue(String.valueOf(entries.get(0).get("shard_key"))
+        .startsWith(testShardPrefix + "elements/001-"));
+    assertNull(entries.get(0).get("iso"), "Manifest should only hold the summary fields");
+  }
+}